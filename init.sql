@@ -2,15 +2,36 @@ USE todo_db;
 CREATE TABLE IF NOT EXISTS todos (
   todo_id INT AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(255) NOT NULL,
-  description VARCHAR(255) DEFAULT NULL
+  description VARCHAR(255) DEFAULT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
+  change_seq BIGINT NOT NULL DEFAULT 0,
+  INDEX idx_todos_change_seq (change_seq),
+  CONSTRAINT uk_todos_name UNIQUE (name)
 ) ENGINE=InnoDB;
 CREATE TABLE IF NOT EXISTS tasks (
 	task_id INT AUTO_INCREMENT PRIMARY KEY,
 	name VARCHAR(255) NOT NULL,
 	description VARCHAR(255) DEFAULT NULL,
 	todo_id INT, 
+	INDEX idx_tasks_todo_id_name (todo_id, name),
 	FOREIGN KEY (todo_id) REFERENCES todos(todo_id) ON DELETE SET NULL
 ) ENGINE=InnoDB;;
+CREATE TABLE IF NOT EXISTS id_sequences (
+  sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+  next_val BIGINT
+) ENGINE=InnoDB;
+CREATE TABLE IF NOT EXISTS todo_tombstones (
+  todo_id INT NOT NULL PRIMARY KEY,
+  change_seq BIGINT NOT NULL,
+  INDEX idx_todo_tombstones_change_seq (change_seq)
+) ENGINE=InnoDB;
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  idempotency_key VARCHAR(320) NOT NULL PRIMARY KEY,
+  fingerprint VARCHAR(64) NOT NULL,
+  response LONGTEXT NOT NULL,
+  created_at TIMESTAMP(6) NOT NULL,
+  INDEX idx_idempotency_keys_created_at (created_at)
+) ENGINE=InnoDB;
 INSERT INTO todos(name, description) VALUES
 ('Clean bathroom', 'Home duty'),
 ('Make lunch', 'Pasta with cevapcici'),
@@ -23,4 +44,9 @@ INSERT INTO tasks (name, description, todo_id) VALUES
   ('Warm up cevapcici', '8 min', 2),
   ('Make salad', 'Rucola and tomatoes', 2),
   ('Check paper bin capacity', 'Bin is empty on Monday', 3),
-  ('Throw out box', 'If container is not full', 3);
\ No newline at end of file
+  ('Throw out box', 'If container is not full', 3);
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'todos', COALESCE(MAX(todo_id), 0) + 50 FROM todos;
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'tasks', COALESCE(MAX(task_id), 0) + 50 FROM tasks;
+INSERT INTO id_sequences (sequence_name, next_val) VALUES ('changes', 0);
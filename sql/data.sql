@@ -10,4 +10,9 @@ INSERT INTO tasks (name, description, todo_id) VALUES
   ('Warm up cevapcici', '8 min', 2),
   ('Make salad', 'Rucola and tomatoes', 2),
   ('Check paper bin capacity', 'Bin is empty on Monday', 3),
-  ('Throw out box', 'If container is not full', 3);
\ No newline at end of file
+  ('Throw out box', 'If container is not full', 3);
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'todos', COALESCE(MAX(todo_id), 0) + 50 FROM todos;
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'tasks', COALESCE(MAX(task_id), 0) + 50 FROM tasks;
+INSERT INTO id_sequences (sequence_name, next_val) VALUES ('changes', 0);
\ No newline at end of file
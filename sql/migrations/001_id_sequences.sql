@@ -0,0 +1,11 @@
+-- Todo and task ids are allocated in blocks of 50 from id_sequences (see TodoEntity.id).
+-- Hibernate hands out ids next_val - 49 .. next_val of the block it reads, so the seed
+-- is set one block above the largest existing id.
+CREATE TABLE IF NOT EXISTS id_sequences (
+  sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+  next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'todos', COALESCE(MAX(todo_id), 0) + 50 FROM todos;
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'tasks', COALESCE(MAX(task_id), 0) + 50 FROM tasks;
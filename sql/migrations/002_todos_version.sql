@@ -0,0 +1,3 @@
+-- Optimistic lock version of a todo (see TodoEntity.version), bumped on every change of the
+-- todo or its tasks and exposed as the todo ETag.
+ALTER TABLE todos ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
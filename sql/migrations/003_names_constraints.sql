@@ -0,0 +1,6 @@
+-- Todo names are unique (see TodoEntity.NAME_CONSTRAINT): the constraint replaces the
+-- read-before-insert duplicate check. Existing duplicates must be renamed before it is added.
+ALTER TABLE todos ADD CONSTRAINT uk_todos_name UNIQUE (name);
+-- Serves task lookups and deletes by todo and name. Task names aren't unique within a todo,
+-- the index also covers the todo_id foreign key.
+CREATE INDEX idx_tasks_todo_id_name ON tasks (todo_id, name);
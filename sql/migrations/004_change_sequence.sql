@@ -0,0 +1,10 @@
+-- Delta sync (see TodosService.getChanges): every committed change of a todo or its tasks is
+-- stamped with the next number of the 'changes' sequence, deleted todos leave a tombstone.
+ALTER TABLE todos ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+CREATE INDEX idx_todos_change_seq ON todos (change_seq);
+CREATE TABLE IF NOT EXISTS todo_tombstones (
+  todo_id INT NOT NULL PRIMARY KEY,
+  change_seq BIGINT NOT NULL
+) ENGINE=InnoDB;
+CREATE INDEX idx_todo_tombstones_change_seq ON todo_tombstones (change_seq);
+INSERT INTO id_sequences (sequence_name, next_val) VALUES ('changes', 0);
@@ -0,0 +1,10 @@
+-- Responses of requests sent with an Idempotency-Key header (see IdempotencyService), read by
+-- their retries when main.idempotencyJdbc is set. Rows older than main.idempotencyKeyTtl are
+-- ignored and deleted by the application.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  idempotency_key VARCHAR(320) NOT NULL PRIMARY KEY,
+  fingerprint VARCHAR(64) NOT NULL,
+  response LONGTEXT NOT NULL,
+  created_at TIMESTAMP(6) NOT NULL
+) ENGINE=InnoDB;
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -2,9 +2,12 @@ DROP TABLE IF EXISTS todos;
 CREATE TABLE  todos (
   todo_id INT AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(255) NOT NULL,
-  description VARCHAR(255) DEFAULT NULL
-
+  description VARCHAR(255) DEFAULT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
+  change_seq BIGINT NOT NULL DEFAULT 0,
+  CONSTRAINT uk_todos_name UNIQUE (name)
 );
+CREATE INDEX idx_todos_change_seq ON todos (change_seq);
 DROP TABLE IF EXISTS tasks;
 CREATE TABLE tasks (
 	task_id INT AUTO_INCREMENT PRIMARY KEY,
@@ -12,4 +15,24 @@ CREATE TABLE tasks (
 	description VARCHAR(255) DEFAULT NULL,
 	todo_id INT,
 	FOREIGN KEY (todo_id) REFERENCES todos(todo_id) ON DELETE SET NULL
+);
+CREATE INDEX idx_tasks_todo_id_name ON tasks (todo_id, name);
+DROP TABLE IF EXISTS todo_tombstones;
+CREATE TABLE todo_tombstones (
+  todo_id INT NOT NULL PRIMARY KEY,
+  change_seq BIGINT NOT NULL
+);
+CREATE INDEX idx_todo_tombstones_change_seq ON todo_tombstones (change_seq);
+DROP TABLE IF EXISTS idempotency_keys;
+CREATE TABLE idempotency_keys (
+  idempotency_key VARCHAR(320) NOT NULL PRIMARY KEY,
+  fingerprint VARCHAR(64) NOT NULL,
+  response LONGTEXT NOT NULL,
+  created_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
+DROP TABLE IF EXISTS id_sequences;
+CREATE TABLE id_sequences (
+  sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+  next_val BIGINT
 );
\ No newline at end of file
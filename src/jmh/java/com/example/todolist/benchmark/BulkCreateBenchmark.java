@@ -0,0 +1,95 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.TodolistApplication;
+import com.example.todolist.model.BulkResult;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.repository.TaskRepositoryJPA;
+import com.example.todolist.repository.TodoRepositoryJPA;
+import com.example.todolist.service.TodosService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Creating a batch of todos against an in-memory H2 database: one by one through createTodo, or
+ * with the JDBC batch inserts of createTodos. Every invocation inserts todos of new names, the
+ * tables are emptied after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BulkCreateBenchmark {
+  @Param({"100", "2000"})
+  int todos;
+
+  @Param({"5"})
+  int tasksPerTodo;
+
+  private ConfigurableApplicationContext context;
+  private TodosService service;
+  private TodoRepositoryJPA todoRepository;
+  private TaskRepositoryJPA taskRepository;
+  private List<TodoModel> fixtures;
+  private List<TodoModel> batch;
+  private int invocation;
+
+  @Setup
+  public void setUp() {
+    // passed as arguments to take precedence over the profile configuration
+    context =
+        new SpringApplicationBuilder(TodolistApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:bulk-benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    service = context.getBean(TodosService.class);
+    todoRepository = context.getBean(TodoRepositoryJPA.class);
+    taskRepository = context.getBean(TaskRepositoryJPA.class);
+    fixtures = Fixtures.models(todos, tasksPerTodo);
+  }
+
+  /** Todo names are unique, each invocation gets names of its own; an operation takes milliseconds */
+  @Setup(Level.Invocation)
+  public void nextBatch() {
+    String prefix = "batch %d ".formatted(++invocation);
+    batch =
+        fixtures.stream()
+            .map(todo -> todo.toBuilder().id(0).name(prefix + todo.getName()).build())
+            .toList();
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteAll() {
+    taskRepository.deleteAllInBatch();
+    todoRepository.deleteAllInBatch();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int oneByOne() {
+    int created = 0;
+    for (TodoModel todo : batch) {
+      created += service.createTodo(todo).getId() > 0 ? 1 : 0;
+    }
+    return created;
+  }
+
+  @Benchmark
+  public BulkResult bulk() {
+    return service.createTodos(batch);
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.todolist.benchmark;
+
+import static com.example.todolist.controller.RestResponseEntityExceptionHandler.ERRORS_METER;
+
+import com.example.todolist.controller.ProblemFactory;
+import com.example.todolist.controller.RestResponseEntityExceptionHandler;
+import com.example.todolist.model.exceptions.NoSuchTodoFoundException;
+import com.example.todolist.properties.MainProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Answering a GET of a missing todo, from the throw to the response entity. The exception is
+ * thrown "depth" frames down, a servlet request runs a hundred frames or so below the controller.
+ * "legacyError" repeats the former path for comparison: an exception filling its stack trace, a
+ * SimpleDateFormat per error and a counter looked up by its tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ErrorPathBenchmark {
+  private static final int ID = 42;
+
+  @Param({"10", "100"})
+  int depth;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private MainProperties properties;
+  private RestResponseEntityExceptionHandler handler;
+  private MockHttpServletRequest request;
+
+  @Setup
+  public void setUp() {
+    properties = new MainProperties();
+    properties.setExceptionDateFormat("yyyy-MM-dd HH:mm:ss");
+    handler = new RestResponseEntityExceptionHandler(new ProblemFactory(properties, meterRegistry));
+    request = new MockHttpServletRequest("GET", "/api/v1/todos/" + ID);
+  }
+
+  @Benchmark
+  public Object problemError() {
+    try {
+      return findTodo(depth);
+    } catch (NoSuchTodoFoundException e) {
+      return handler.handleNoSuchTodoFoundException(e, request);
+    }
+  }
+
+  @Benchmark
+  public Object legacyError() {
+    try {
+      return findLegacyTodo(depth);
+    } catch (RuntimeException e) {
+      meterRegistry
+          .counter(ERRORS_METER,
+              "exception", e.getClass().getSimpleName(),
+              "status", String.valueOf(HttpStatus.NOT_FOUND.value()))
+          .increment();
+      String timestamp = new SimpleDateFormat(properties.getExceptionDateFormat()).format(new Date());
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(
+              Map.of(
+                  "status", HttpStatus.NOT_FOUND.value(),
+                  "error", HttpStatus.NOT_FOUND.getReasonPhrase(),
+                  "messages", List.of(e.getMessage()),
+                  "path", request.getRequestURL().toString(),
+                  "timestamp", timestamp));
+    }
+  }
+
+  private static Object findTodo(int depth) {
+    if (depth > 0) {
+      return findTodo(depth - 1);
+    }
+    throw new NoSuchTodoFoundException(ID);
+  }
+
+  private static Object findLegacyTodo(int depth) {
+    if (depth > 0) {
+      return findLegacyTodo(depth - 1);
+    }
+    throw new IllegalStateException("Todo ID is not found: " + ID);
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.entity.TaskEntity;
+import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/** Catalogues of generated todos shared by the benchmarks. */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class Fixtures {
+
+  static List<TodoModel> models(int todos, int tasksPerTodo) {
+    List<TodoModel> models = new ArrayList<>(todos);
+    for (int i = 0; i < todos; i++) {
+      List<TaskModel> tasks = new ArrayList<>(tasksPerTodo);
+      for (int j = 0; j < tasksPerTodo; j++) {
+        tasks.add(
+            TaskModel.builder().name("task name %d".formatted(j)).description("task description").build());
+      }
+      models.add(
+          TodoModel.builder()
+              .id(i + 1)
+              .name("todo name %06d".formatted(i))
+              .description("todo description %d".formatted(i))
+              .tasks(tasks)
+              .build());
+    }
+    return models;
+  }
+
+  static List<TodoEntity> entities(int todos, int tasksPerTodo) {
+    List<TodoEntity> entities = new ArrayList<>(todos);
+    int taskId = 0;
+    for (int i = 0; i < todos; i++) {
+      TodoEntity todo =
+          TodoEntity.builder()
+              .id(i + 1)
+              .name("todo name %06d".formatted(i))
+              .description("todo description %d".formatted(i))
+              .build();
+      for (int j = 0; j < tasksPerTodo; j++) {
+        todo.addTask(
+            TaskEntity.builder()
+                .id(++taskId)
+                .name("task name %d".formatted(j))
+                .description("task description")
+                .build());
+      }
+      entities.add(todo);
+    }
+    return entities;
+  }
+}
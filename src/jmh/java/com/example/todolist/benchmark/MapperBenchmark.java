@@ -0,0 +1,53 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.util.TaskMapper;
+import com.example.todolist.util.TodoMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Entity to model mapping and back, one operation maps the whole catalogue. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MapperBenchmark {
+  @Param({"10", "1000", "100000"})
+  int todos;
+
+  @Param({"5"})
+  int tasksPerTodo;
+
+  private List<TodoEntity> entities;
+  private List<TodoModel> models;
+
+  @Setup
+  public void setUp() {
+    entities = Fixtures.entities(todos, tasksPerTodo);
+    models = Fixtures.models(todos, tasksPerTodo);
+  }
+
+  @Benchmark
+  public List<TodoModel> todosToModels() {
+    return TodoMapper.toModels(entities);
+  }
+
+  @Benchmark
+  public void todosToEntities(Blackhole blackhole) {
+    for (TodoModel model : models) {
+      blackhole.consume(TodoMapper.toEntity(model));
+    }
+  }
+
+  @Benchmark
+  public void tasksToModels(Blackhole blackhole) {
+    for (TodoEntity entity : entities) {
+      blackhole.consume(TaskMapper.toTaskModels(entity.getTasks()));
+    }
+  }
+}
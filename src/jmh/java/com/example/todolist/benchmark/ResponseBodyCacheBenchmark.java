@@ -0,0 +1,84 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.controller.CachedBodyConverter;
+import com.example.todolist.controller.ResponseBodyCache;
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.properties.MainProperties;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Writing a catalogue page held by the todos cache as the response of a client accepting gzip:
+ * serialized and gzipped on every request, as the container does, or written from the bytes kept
+ * by ResponseBodyCache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ResponseBodyCacheBenchmark {
+  @Param({"20", "100"})
+  int todos;
+
+  @Param({"5"})
+  int tasksPerTodo;
+
+  private final MappingJackson2HttpMessageConverter json =
+      new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+  private CachedBodyConverter cachedConverter;
+  private Catalogue catalogue;
+
+  @Setup
+  public void setUp() {
+    Compression compression = new Compression();
+    compression.setEnabled(true);
+    ResponseBodyCache cache = new ResponseBodyCache(new MainProperties());
+    cachedConverter = new CachedBodyConverter(cache, List.of(json), compression);
+    catalogue =
+        cache.cached(
+            new Catalogue(
+                Fixtures.models(todos, tasksPerTodo), (long) todos * 10, 0, todos,
+                "/api/v1/todos?page=1&size=" + todos, "bmFtZQox"));
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @TearDown
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Benchmark
+  public byte[] serializeAndGzip() throws IOException {
+    MockHttpOutputMessage message = new MockHttpOutputMessage();
+    json.write(catalogue, MediaType.APPLICATION_JSON, message);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(message.getBodyAsBytes());
+    }
+    return compressed.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] cachedBytes() throws IOException {
+    MockHttpOutputMessage message = new MockHttpOutputMessage();
+    cachedConverter.write(catalogue, MediaType.APPLICATION_JSON, message);
+    return message.getBodyAsBytes();
+  }
+}
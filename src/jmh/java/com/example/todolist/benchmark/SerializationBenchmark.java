@@ -0,0 +1,48 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.model.TodoModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/** Jackson round trip of a catalogue page holding all the generated todos. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SerializationBenchmark {
+  @Param({"10", "1000", "100000"})
+  int todos;
+
+  @Param({"5"})
+  int tasksPerTodo;
+
+  // configured like the mapper Spring Boot hands to the controllers
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+  private Catalogue catalogue;
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws IOException {
+    List<TodoModel> models = Fixtures.models(todos, tasksPerTodo);
+    catalogue =
+        new Catalogue(models, (long) todos, 0, todos, "/api/v1/todos?page=1&size=" + todos, "bmFtZQox");
+    json = objectMapper.writeValueAsBytes(catalogue);
+  }
+
+  @Benchmark
+  public byte[] serializeCatalogue() throws IOException {
+    return objectMapper.writeValueAsBytes(catalogue);
+  }
+
+  @Benchmark
+  public Catalogue deserializeCatalogue() throws IOException {
+    return objectMapper.readValue(json, Catalogue.class);
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.TodolistApplication;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.service.TodosService;
+import com.example.todolist.util.CursorCodec;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Service reads against an in-memory H2 database seeded with the generated todos. The read cache
+ * is turned off, so every operation goes down to the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// Hibernate query paths take several seconds to reach steady state
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ServiceBenchmark {
+  private static final int PAGE_SIZE = 20;
+  private static final String SORT = "name";
+
+  @Param({"10", "1000", "100000"})
+  int todos;
+
+  @Param({"5"})
+  int tasksPerTodo;
+
+  private ConfigurableApplicationContext context;
+  private TodosService service;
+  private int[] ids;
+  private int nextId;
+  private int lastPage;
+  private String middleCursor;
+
+  @Setup
+  public void setUp() {
+    // passed as arguments to take precedence over the profile configuration
+    context =
+        new SpringApplicationBuilder(TodolistApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.cache.type=none",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    service = context.getBean(TodosService.class);
+    int chunk = context.getBean(MainProperties.class).getMaxBulkSize();
+    List<TodoModel> models = Fixtures.models(todos, tasksPerTodo);
+    for (int from = 0; from < models.size(); from += chunk) {
+      service.createTodos(models.subList(from, Math.min(from + chunk, models.size())));
+    }
+
+    List<TodoModel> sorted = new ArrayList<>(todos);
+    service.exportTodos(sorted::add);
+    sorted.sort(Comparator.comparing(TodoModel::getName));
+    ids = sorted.stream().mapToInt(TodoModel::getId).toArray();
+    lastPage = (todos - 1) / PAGE_SIZE;
+    TodoModel middle = sorted.get(todos / 2);
+    middleCursor =
+        CursorCodec.encode(new CursorCodec.Cursor(CursorCodec.NAME, middle.getId(), middle.getName()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Page<TodoModel> firstPage() {
+    return service.getTodos(0, PAGE_SIZE, SORT);
+  }
+
+  @Benchmark
+  public Page<TodoModel> lastPage() {
+    return service.getTodos(lastPage, PAGE_SIZE, SORT);
+  }
+
+  @Benchmark
+  public Slice<TodoModel> middleCursorPage() {
+    return service.getTodosAfter(middleCursor, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public TodoModel todoById() {
+    nextId = (nextId + 1) % ids.length;
+    return service.getTodo(ids[nextId]);
+  }
+
+  @Benchmark
+  public void exportAll(Blackhole blackhole) {
+    service.exportTodos(blackhole::consume);
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.service.ValidationService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Validation of todos, one operation validates one todo. Valid todos should show no allocation in
+ * the gc profiler output, invalid ones pay for their messages only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OperationsPerInvocation(ValidationBenchmark.TODOS)
+public class ValidationBenchmark {
+  static final int TODOS = 1000;
+
+  @Param({"5", "100"})
+  int tasksPerTodo;
+
+  private ValidationService validation;
+  private List<TodoModel> valid;
+  private List<TodoModel> invalid;
+
+  @Setup
+  public void setUp() {
+    MainProperties properties = new MainProperties();
+    properties.setErrorInvalidName("Invalid %s name: string shouldn't be null or empty");
+    validation = new ValidationService(properties);
+    valid = Fixtures.models(TODOS, tasksPerTodo);
+    invalid = Fixtures.models(TODOS, tasksPerTodo);
+    for (TodoModel todo : invalid) {
+      List<TaskModel> tasks = todo.getTasks();
+      tasks.set(tasks.size() - 1, tasks.get(0));
+    }
+  }
+
+  @Benchmark
+  public void validTodos(Blackhole blackhole) {
+    for (TodoModel todo : valid) {
+      blackhole.consume(validation.check(todo));
+    }
+  }
+
+  @Benchmark
+  public void invalidTodos(Blackhole blackhole) {
+    for (TodoModel todo : invalid) {
+      blackhole.consume(validation.check(todo));
+    }
+  }
+}
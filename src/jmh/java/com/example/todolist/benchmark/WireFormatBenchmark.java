@@ -0,0 +1,75 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.controller.ProtobufMessageConverter;
+import com.example.todolist.model.Catalogue;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * Encoding and decoding of a catalogue page by the message converter of every wire format, the
+ * payload size of each format is printed by the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class WireFormatBenchmark {
+  @Param({"10000"})
+  int todos;
+
+  @Param({"5"})
+  int tasksPerTodo;
+
+  @Param({"json", "cbor", "smile", "protobuf"})
+  String format;
+
+  private AbstractHttpMessageConverter<Object> converter;
+  private Catalogue catalogue;
+  private byte[] payload;
+
+  @Setup
+  public void setUp() throws IOException {
+    converter =
+        switch (format) {
+          case "json" -> new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+          case "cbor" ->
+              new MappingJackson2CborHttpMessageConverter(
+                  Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build());
+          case "smile" ->
+              new MappingJackson2SmileHttpMessageConverter(
+                  Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build());
+          case "protobuf" -> new ProtobufMessageConverter(Jackson2ObjectMapperBuilder.json());
+          default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    catalogue =
+        new Catalogue(
+            Fixtures.models(todos, tasksPerTodo), (long) todos, 0, todos,
+            "/api/v1/todos?page=1&size=" + todos, "bmFtZQox");
+    payload = encodeCatalogue();
+    System.out.printf("%n%s payload: %d bytes%n", format, payload.length);
+  }
+
+  @Benchmark
+  public byte[] encodeCatalogue() throws IOException {
+    MockHttpOutputMessage message = new MockHttpOutputMessage();
+    converter.write(catalogue, converter.getSupportedMediaTypes().get(0), message);
+    return message.getBodyAsBytes();
+  }
+
+  @Benchmark
+  public Object decodeCatalogue() throws IOException {
+    return converter.read(Catalogue.class, new MockHttpInputMessage(payload));
+  }
+}
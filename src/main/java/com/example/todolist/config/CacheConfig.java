@@ -0,0 +1,20 @@
+package com.example.todolist.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables the todos read-through cache configured by "spring.cache" properties. The cache advice
+ * is ordered outside of the transaction advice, so mutations evict entries after the commit and a
+ * concurrent read can't put back the state being replaced.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+  /** Todo models by id. */
+  public static final String TODO_CACHE = "todo";
+
+  /** Todo pages and cursor slices by request parameters. */
+  public static final String TODOS_CACHE = "todos";
+}
@@ -0,0 +1,22 @@
+package com.example.todolist.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times the methods of beans annotated with {@link io.micrometer.core.annotation.Timed}. Request
+ * latencies of the controller are recorded by Spring Boot as "http.server.requests", histograms
+ * and percentiles of both are configured by "management.metrics.distribution" properties.
+ */
+@Configuration
+public class MetricsConfig {
+  /** Timer of the TodosService operations, tagged by method. */
+  public static final String SERVICE_TIMER = "todos.service";
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry registry) {
+    return new TimedAspect(registry);
+  }
+}
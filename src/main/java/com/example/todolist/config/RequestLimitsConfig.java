@@ -0,0 +1,28 @@
+package com.example.todolist.config;
+
+import com.example.todolist.controller.RequestLimitInterceptor;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the request rate and concurrency limits in front of the API. Actuator endpoints are not
+ * limited, so the application can still be monitored while it sheds requests.
+ */
+@Configuration
+@Profile("!reactive")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RequestLimitsConfig implements WebMvcConfigurer {
+  @NonNull RequestLimitInterceptor requestLimitInterceptor;
+
+  @Override
+  public void addInterceptors(@NonNull InterceptorRegistry registry) {
+    registry.addInterceptor(requestLimitInterceptor).addPathPatterns("/api/v1/**");
+  }
+}
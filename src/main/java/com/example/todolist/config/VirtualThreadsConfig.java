@@ -0,0 +1,40 @@
+package com.example.todolist.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Serves requests on virtual threads, enabled by "main.virtualThreads". Tomcat runs every request
+ * on a new virtual thread instead of its bounded worker pool, so requests blocked on the database
+ * no longer hold one of the 200 platform threads. TodosService calls run on the request thread and
+ * async MVC work, such as the streamed export, runs on virtual threads too.
+ *
+ * <p>Concurrency towards the database stays bounded by the Hikari pool, see "spring.datasource.hikari"
+ * in application.yml.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "main", name = "virtualThreads", havingValue = "true")
+public class VirtualThreadsConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+    return protocolHandler -> protocolHandler.setExecutor(virtualThreadsExecutor("http-vt-"));
+  }
+
+  /** Replaces the auto-configured platform thread pool used for async request processing. */
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor() {
+    return new TaskExecutorAdapter(virtualThreadsExecutor("task-vt-"));
+  }
+
+  private static ExecutorService virtualThreadsExecutor(String prefix) {
+    return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory());
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.todolist.config;
+
+import com.example.todolist.controller.CachedBodyConverter;
+import com.example.todolist.controller.ProtobufMessageConverter;
+import com.example.todolist.controller.ResponseBodyCache;
+import com.example.todolist.properties.MainProperties;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binary representations of the API, negotiated by the Accept and Content-Type headers: CBOR
+ * (application/cbor) and Smile (application/x-jackson-smile) of every body, Protocol Buffers
+ * (application/x-protobuf) of todos, tasks and catalogues. JSON stays the default. All of them are
+ * encoded by mappers configured like the JSON one. Cached todos and catalogues are written from
+ * their cached bytes in any of them, see {@link ResponseBodyCache}.
+ */
+@Configuration
+@Profile("!reactive")
+// web server settings and message converters exist in servlet applications only
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class WireFormatsConfig implements WebMvcConfigurer {
+  // the builder is a prototype bean, every mapper gets its own
+  @NonNull ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+  @NonNull ResponseBodyCache responseBodyCache;
+  @NonNull ServerProperties serverProperties;
+  @NonNull MainProperties properties;
+
+  /** Replaces the default CBOR converter, which is not configured by Spring Boot */
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+    return new MappingJackson2CborHttpMessageConverter(
+        builders.getObject().factory(new CBORFactory()).build());
+  }
+
+  /** Replaces the default Smile converter, which is not configured by Spring Boot */
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+    return new MappingJackson2SmileHttpMessageConverter(
+        builders.getObject().factory(new SmileFactory()).build());
+  }
+
+  /**
+   * Converters declared as beans would be put first and answer requests accepting any type, so
+   * Protobuf is added after the default ones instead.
+   */
+  @Override
+  public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+    converters.add(new ProtobufMessageConverter(builders.getObject()));
+    if (properties.isResponseBodyCache()) {
+      // first, it claims only the todos and catalogues and encodes them with the others
+      converters.add(
+          0,
+          new CachedBodyConverter(
+              responseBodyCache, converters, serverProperties.getCompression()));
+    }
+  }
+
+  /** Responses depend on the Accept header, shared caches must store them per format */
+  @Override
+  public void addInterceptors(@NonNull InterceptorRegistry registry) {
+    registry
+        .addInterceptor(
+            new HandlerInterceptor() {
+              @Override
+              public boolean preHandle(
+                  @NonNull HttpServletRequest request,
+                  @NonNull HttpServletResponse response,
+                  @NonNull Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+              }
+            })
+        .addPathPatterns("/api/v1/**");
+  }
+}
@@ -0,0 +1,221 @@
+package com.example.todolist.controller;
+
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.model.TodoModel;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Writes the todos and catalogues kept by {@link ResponseBodyCache} from their cached bytes, in
+ * every media type of the other converters, which encode a body the first time it is requested in
+ * a media type. Bodies compressed by "server.compression" are gzipped once as well and sent so to
+ * the clients accepting gzip; the container doesn't compress them again. Other bodies are written
+ * by the other converters directly.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CachedBodyConverter implements HttpMessageConverter<Object> {
+    private static final String GZIP = "gzip";
+    private static final Set<Class<?>> TYPES = Set.of(TodoModel.class, Catalogue.class);
+
+    @NonNull ResponseBodyCache cache;
+    List<HttpMessageConverter<?>> converters;
+    boolean compress;
+    long minCompressedSize;
+    List<MediaType> compressedTypes;
+
+    /**
+     * @param converters - converters encoding the bodies
+     * @param compression - "server.compression" settings of the container
+     */
+    public CachedBodyConverter(
+            @NonNull ResponseBodyCache cache,
+            @NonNull List<HttpMessageConverter<?>> converters,
+            @NonNull Compression compression) {
+        this.cache = cache;
+        this.converters = List.copyOf(converters);
+        compress = compression.getEnabled();
+        minCompressedSize = compression.getMinResponseSize().toBytes();
+        compressedTypes = Arrays.stream(compression.getMimeTypes()).map(MediaType::parseMediaType).toList();
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@NonNull Class<?> clazz, MediaType mediaType) {
+        return TYPES.contains(clazz) && converter(clazz, mediaType) != null;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(@NonNull Class<?> clazz) {
+        if (!TYPES.contains(clazz)) {
+            return Collections.emptyList();
+        }
+        // in the order of the converters, so that JSON stays the default
+        Set<MediaType> mediaTypes = new LinkedHashSet<>();
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(clazz, null)) {
+                mediaTypes.addAll(converter.getSupportedMediaTypes(clazz));
+            }
+        }
+        return new ArrayList<>(mediaTypes);
+    }
+
+    @Override
+    public Object read(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Cached bodies are not read", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(@NonNull Object body, MediaType contentType, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        HttpMessageConverter<Object> converter = (HttpMessageConverter<Object>) converter(body.getClass(), contentType);
+        if (!cache.isCached(body)) {
+            converter.write(body, contentType, outputMessage);
+            return;
+        }
+        ResponseBodyCache.Encoded encoded = cache.get(body, contentType);
+        if (encoded == null) {
+            encoded = encode(body, contentType, converter);
+            cache.put(body, contentType, encoded);
+        }
+        HttpHeaders headers = outputMessage.getHeaders();
+        headers.setContentType(encoded.contentType());
+        byte[] bytes = encoded.bytes();
+        if (encoded.gzip() != null) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip()) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                weakenETag(outputMessage);
+                bytes = encoded.gzip();
+            }
+        }
+        headers.setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+
+    /** The gzipped bytes are another representation, the tag only says they mean the same */
+    private static void weakenETag(HttpOutputMessage outputMessage) {
+        HttpHeaders headers = outputMessage.getHeaders();
+        String eTag = headers.getETag();
+        if (eTag == null || eTag.startsWith("W/")) {
+            return;
+        }
+        if (outputMessage instanceof ServletServerHttpResponse response) {
+            // the conditional request check has set the tag on the servlet response already
+            headers.remove(HttpHeaders.ETAG);
+            response.getServletResponse().setHeader(HttpHeaders.ETAG, "W/" + eTag);
+        } else {
+            headers.setETag("W/" + eTag);
+        }
+    }
+
+    private HttpMessageConverter<?> converter(Class<?> clazz, MediaType mediaType) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(clazz, mediaType)) {
+                return converter;
+            }
+        }
+        return null;
+    }
+
+    private ResponseBodyCache.Encoded encode(
+            Object body, MediaType mediaType, HttpMessageConverter<Object> converter) throws IOException {
+        BufferedOutputMessage buffer = new BufferedOutputMessage();
+        converter.write(body, mediaType, buffer);
+        MediaType contentType = buffer.getHeaders().getContentType();
+        byte[] bytes = buffer.body.toByteArray();
+        byte[] gzip = null;
+        if (compress && bytes.length >= minCompressedSize && isCompressed(contentType)) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            gzip = compressed.toByteArray();
+        }
+        return new ResponseBodyCache.Encoded(contentType, bytes, gzip);
+    }
+
+    private boolean isCompressed(MediaType contentType) {
+        return contentType != null
+                && compressedTypes.stream().anyMatch(type -> type.isCompatibleWith(contentType));
+    }
+
+    private static boolean acceptsGzip() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase(GZIP) && !isRefused(parts)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether the coding has a zero quality, e.g. "gzip;q=0" */
+    private static boolean isRefused(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
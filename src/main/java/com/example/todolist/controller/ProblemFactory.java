@@ -0,0 +1,88 @@
+package com.example.todolist.controller;
+
+import static com.example.todolist.controller.RestResponseEntityExceptionHandler.ERRORS_METER;
+
+import com.example.todolist.properties.MainProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the RFC 7807 problem details of the error responses of both stacks and counts the errors.
+ * Besides the standard members a problem carries "messages", every error message, and "timestamp",
+ * formatted with main.exceptionDateFormat.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ProblemFactory {
+    public static final String MESSAGES = "messages";
+    public static final String TIMESTAMP = "timestamp";
+
+    private record ErrorKey(Class<?> type, int status) {}
+
+    // immutable and thread-safe, unlike SimpleDateFormat it is built once
+    DateTimeFormatter timestampFormat;
+    @NonNull MeterRegistry meterRegistry;
+    // counters are looked up by type and status without building their tags on every error
+    Map<ErrorKey, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public ProblemFactory(@NonNull MainProperties properties, @NonNull MeterRegistry meterRegistry) {
+        timestampFormat =
+                DateTimeFormatter.ofPattern(properties.getExceptionDateFormat()).withZone(ZoneId.systemDefault());
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Counts the error and builds its problem
+     *
+     * @param exception - handled exception
+     * @param status    - response status
+     * @param messages  - error messages, the detail of the problem
+     * @param path      - path of the request, the instance of the problem
+     */
+    public ProblemDetail problem(
+            @NonNull Throwable exception,
+            @NonNull HttpStatusCode status,
+            @NonNull List<String> messages,
+            String path) {
+        errorCounters
+                .computeIfAbsent(new ErrorKey(exception.getClass(), status.value()), this::errorCounter)
+                .increment();
+        ProblemDetail problem = ProblemDetail.forStatus(status);
+        problem.setDetail(messages.size() == 1 ? messages.get(0) : String.join("; ", messages));
+        problem.setInstance(instance(path));
+        problem.setProperty(MESSAGES, messages);
+        problem.setProperty(TIMESTAMP, timestampFormat.format(Instant.now()));
+        return problem;
+    }
+
+    private Counter errorCounter(ErrorKey key) {
+        return meterRegistry.counter(ERRORS_METER,
+                "exception", key.type().getSimpleName(),
+                "status", String.valueOf(key.status()));
+    }
+
+    private static URI instance(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            return URI.create(path);
+        } catch (IllegalArgumentException e) {
+            // paths of scanners are not always valid URIs, the problem is sent without its instance
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.todolist.controller;
+
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.model.SparseTodoModel;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Reads and writes todos, tasks and catalogues as Protocol Buffers messages (application/x-protobuf)
+ * of the schema in todos.proto, which clients compile with protoc. Jackson encodes the models from
+ * the schema directly, so there are no generated classes to map them to. Other bodies have no message
+ * in the schema and are not acceptable in this format (406), errors are still sent as problem JSON.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ProtobufMessageConverter extends AbstractHttpMessageConverter<Object> {
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+    public static final String SCHEMA = "todos.proto";
+    // message of the schema by model type, todos of sparse fieldsets are written as todos without some fields
+    private static final Map<Class<?>, String> MESSAGES = Map.of(
+            TodoModel.class, "Todo", SparseTodoModel.class, "Todo", TaskModel.class, "Task", Catalogue.class, "Catalogue");
+
+    // readers and writers are immutable, they are bound to their message once
+    Map<Class<?>, ObjectReader> readers = new HashMap<>();
+    Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+
+    /**
+     * @param builder - configures the mapper like the JSON one, its factory is replaced
+     */
+    public ProtobufMessageConverter(@NonNull Jackson2ObjectMapperBuilder builder) {
+        super(PROTOBUF);
+        ObjectMapper objectMapper = builder.factory(new ProtobufFactory()).build();
+        NativeProtobufSchema schema;
+        try {
+            schema = ProtobufSchemaLoader.std.loadNative(new ClassPathResource(SCHEMA).getURL());
+        } catch (IOException e) {
+            throw new IllegalStateException("Protobuf schema can't be loaded: " + SCHEMA, e);
+        }
+        MESSAGES.forEach((type, message) -> {
+            readers.put(type, objectMapper.readerFor(type).with(schema.forType(message)));
+            writers.put(type, objectMapper.writer(schema.forType(message)));
+        });
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return MESSAGES.containsKey(clazz);
+    }
+
+    @Override
+    protected Object readInternal(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage)
+            throws IOException {
+        try {
+            return readers.get(clazz).readValue(inputMessage.getBody());
+        } catch (JacksonException e) {
+            throw new HttpMessageNotReadableException(
+                    "Invalid " + MESSAGES.get(clazz) + " message: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(@NonNull Object model, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        try {
+            // the body stays open for the container to flush it
+            writers.get(model.getClass()).writeValue(StreamUtils.nonClosing(outputMessage.getBody()), model);
+        } catch (JacksonException e) {
+            throw new HttpMessageNotWritableException(
+                    "Could not write " + MESSAGES.get(model.getClass()) + " message: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.todolist.controller;
+
+import com.example.todolist.model.exceptions.RateLimitExceededException;
+import com.example.todolist.model.exceptions.ServiceOverloadedException;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.service.ConcurrencyLimiter;
+import com.example.todolist.service.RateLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Refuses API requests before they reach the controller when their client exceeds its request
+ * rate (429, see {@link RateLimiter}) or when too many requests are in progress (503, see
+ * {@link ConcurrencyLimiter}). Refusals are answered by {@link RestResponseEntityExceptionHandler}
+ * with a Retry-After header.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RequestLimitInterceptor implements AsyncHandlerInterceptor {
+    /**
+     * Header identifying the client. Only the keys of "main.apiKeys" are honoured: a key chosen by
+     * the client would get a fresh budget each time, so requests without a known key are limited
+     * by client address.
+     */
+    public static final String API_KEY = "X-API-Key";
+    // admitted requests hold a slot of the concurrency limiter until this attribute is removed
+    private static final String ADMITTED = RequestLimitInterceptor.class.getName() + ".admitted";
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final long OVERLOADED_RETRY_AFTER_SECONDS = 1;
+    private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+    @NonNull RateLimiter rateLimiter;
+    @NonNull ConcurrencyLimiter concurrencyLimiter;
+    @NonNull MainProperties properties;
+
+    @Override
+    public boolean preHandle(
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        // the async dispatch of a streamed response was admitted with its request
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        String apiKey = request.getHeader(API_KEY);
+        String client =
+                apiKey != null && properties.getApiKeys().contains(apiKey)
+                        ? "key " + apiKey
+                        : "address " + request.getRemoteAddr();
+        RateLimiter.Budget budget =
+                READ_METHODS.contains(request.getMethod()) ? RateLimiter.Budget.READ : RateLimiter.Budget.WRITE;
+        long wait = rateLimiter.tryAcquire(client, budget);
+        if (wait > 0) {
+            // in whole seconds, rounded up
+            throw new RateLimitExceededException((wait + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            throw new ServiceOverloadedException(OVERLOADED_RETRY_AFTER_SECONDS);
+        }
+        request.setAttribute(ADMITTED, Boolean.TRUE);
+        return true;
+    }
+
+    /** Streams and event feeds don't hold a slot while they are written */
+    @Override
+    public void afterConcurrentHandlingStarted(
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler,
+            Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(ADMITTED) != null) {
+            request.removeAttribute(ADMITTED);
+            concurrencyLimiter.release();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.todolist.controller;
+
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.properties.MainProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the encoded bytes of the todos and catalogues served from the TodosService caches, so that
+ * a cache hit is written without mapping, serializing or compressing anything again, see
+ * {@link CachedBodyConverter}.
+ *
+ * <p>Bytes are kept by model instance and held weakly: the service caches hand out the same
+ * instances until a mutation evicts them, then the bytes can't be found anymore and are collected
+ * with the models, so there is nothing to invalidate here. Only bodies passed to {@link #cached}
+ * are kept, one-off responses are written as usual.
+ */
+@Component
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ResponseBodyCache {
+    /**
+     * Body encoded in one media type
+     *
+     * @param contentType - content type written by the converter of the media type
+     * @param bytes - encoded body
+     * @param gzip - gzipped body, null if the body is not compressed
+     */
+    public record Encoded(MediaType contentType, byte[] bytes, byte[] gzip) {}
+
+    boolean enabled;
+    // catalogue of every cached page, rebuilt only if its links change
+    Cache<Slice<?>, Catalogue> catalogues;
+    Cache<Object, Map<MediaType, Encoded>> bodies;
+
+    public ResponseBodyCache(@NonNull MainProperties properties) {
+        enabled = properties.isResponseBodyCache();
+        catalogues = Caffeine.newBuilder().weakKeys().build();
+        bodies =
+                Caffeine.newBuilder()
+                        .weakKeys()
+                        .maximumWeight(properties.getResponseBodyCacheSize().toBytes())
+                        .weigher(ResponseBodyCache::weigh)
+                        .build();
+    }
+
+    /** Keeps the encoded bytes of the body, which the service returns while it doesn't change */
+    public <T> T cached(@NonNull T body) {
+        if (enabled) {
+            bodies.asMap().putIfAbsent(body, Map.of());
+        }
+        return body;
+    }
+
+    /**
+     * Returns the catalogue built for the cached page before, if its links are the same, so that its
+     * bytes are reused
+     *
+     * @param page - page returned by the service
+     * @param catalogue - catalogue of the page built for this request
+     */
+    public Catalogue catalogue(@NonNull Slice<?> page, @NonNull Catalogue catalogue) {
+        if (!enabled) {
+            return catalogue;
+        }
+        return catalogues
+                .asMap()
+                .compute(page, (key, cached) -> cached != null && sameLinks(cached, catalogue) ? cached : cached(catalogue));
+    }
+
+    public boolean isCached(@NonNull Object body) {
+        return bodies.getIfPresent(body) != null;
+    }
+
+    public Encoded get(@NonNull Object body, @NonNull MediaType mediaType) {
+        Map<MediaType, Encoded> encodings = bodies.getIfPresent(body);
+        return encodings == null ? null : encodings.get(mediaType);
+    }
+
+    public void put(@NonNull Object body, @NonNull MediaType mediaType, @NonNull Encoded encoded) {
+        bodies.asMap()
+                .computeIfPresent(body, (key, encodings) -> {
+                    Map<MediaType, Encoded> updated = new HashMap<>(encodings);
+                    updated.put(mediaType, encoded);
+                    return Map.copyOf(updated);
+                });
+    }
+
+    private static boolean sameLinks(Catalogue cached, Catalogue catalogue) {
+        return Objects.equals(cached.next(), catalogue.next())
+                && Objects.equals(cached.cursor(), catalogue.cursor());
+    }
+
+    private static int weigh(Object body, Map<MediaType, Encoded> encodings) {
+        long weight = 0;
+        for (Encoded encoded : encodings.values()) {
+            weight += encoded.bytes().length + (encoded.gzip() == null ? 0 : encoded.gzip().length);
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+}
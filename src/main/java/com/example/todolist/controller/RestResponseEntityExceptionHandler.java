@@ -1,51 +1,56 @@
 package com.example.todolist.controller;
 
-import com.example.todolist.model.ErrorResponseModel;
+import com.example.todolist.model.exceptions.IdempotencyKeyReusedException;
 import com.example.todolist.model.exceptions.InvalidRequestException;
 import com.example.todolist.model.exceptions.NoSuchTaskFoundException;
 import com.example.todolist.model.exceptions.NoSuchTodoFoundException;
+import com.example.todolist.model.exceptions.RateLimitExceededException;
+import com.example.todolist.model.exceptions.ServiceOverloadedException;
+import com.example.todolist.model.exceptions.TaskAlreadyExistsException;
 import com.example.todolist.model.exceptions.TodoAlreadyExistsException;
-import com.example.todolist.properties.MainProperties;
+import com.example.todolist.model.exceptions.TodoVersionMismatchException;
 import jakarta.servlet.http.HttpServletRequest;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.AccessLevel;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.ObjectUtils;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+/**
+ * Maps the exceptions to RFC 7807 problem responses (application/problem+json), see
+ * {@link ProblemFactory}.
+ */
 @ControllerAdvice
+@Profile("!reactive")
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class RestResponseEntityExceptionHandler {
-    @NonNull MainProperties properties;
+    /** Counter of handled exceptions, tagged by exception type and response status. */
+    public static final String ERRORS_METER = "todos.errors";
+
+    @NonNull ProblemFactory problems;
 
     /**
      * 400 Custom exception is thrown by validation service, returns BAD_REQUEST status
      * if POST/PUT request body contains invalid values.
      */
     @ExceptionHandler(InvalidRequestException.class)
-    public ResponseEntity<ErrorResponseModel> handleInvalidRequestException(
+    public ResponseEntity<ProblemDetail> handleInvalidRequestException(
             @NonNull InvalidRequestException exception, @NonNull HttpServletRequest request) {
-        String timeStamp =
-                new SimpleDateFormat(properties.getExceptionDateFormat()).format(new java.util.Date());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(
-                        ErrorResponseModel.builder()
-                                .status(HttpStatus.BAD_REQUEST.value())
-                                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
-                                .messages(exception.getErrorsList())
-                                .path(request.getRequestURL().toString())
-                                .timestamp(timeStamp)
-                                .build());
+        return problem(exception, HttpStatus.BAD_REQUEST, exception.getErrorsList(), request);
     }
 
     /**
@@ -53,34 +58,18 @@ public class RestResponseEntityExceptionHandler {
      * if POST/PUT request body contains invalid values.
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<ErrorResponseModel> handleValidationExceptions(
+    public ResponseEntity<ProblemDetail> handleValidationExceptions(
             @NonNull MethodArgumentNotValidException ex, @NonNull HttpServletRequest request) {
-        List<String> errors = new ArrayList<>();
-        ex.getBindingResult()
-                .getAllErrors()
-                .forEach(
-                        (error) -> {
-                            FieldError err = ((FieldError) error);
-                            String errorStr =
-                                    "Field error in object '%s' on field '%s': rejected value [%s]; error: %s"
-                                            .formatted(
-                                                    err.getObjectName(),
-                                                    err.getField(),
-                                                    ObjectUtils.nullSafeToString((err).getRejectedValue()),
-                                                    err.getDefaultMessage());
-                            errors.add(errorStr);
-                        });
-        String timeStamp =
-                new SimpleDateFormat(properties.getExceptionDateFormat()).format(new java.util.Date());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(
-                        ErrorResponseModel.builder()
-                                .status(HttpStatus.BAD_REQUEST.value())
-                                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
-                                .messages(errors)
-                                .path(request.getRequestURL().toString())
-                                .timestamp(timeStamp)
-                                .build());
+        List<ObjectError> allErrors = ex.getBindingResult().getAllErrors();
+        List<String> errors = new ArrayList<>(allErrors.size());
+        for (ObjectError error : allErrors) {
+            FieldError err = (FieldError) error;
+            errors.add("Field error in object '" + err.getObjectName()
+                    + "' on field '" + err.getField()
+                    + "': rejected value [" + ObjectUtils.nullSafeToString(err.getRejectedValue())
+                    + "]; error: " + err.getDefaultMessage());
+        }
+        return problem(ex, HttpStatus.BAD_REQUEST, errors, request);
     }
 
     /**
@@ -88,105 +77,108 @@ public class RestResponseEntityExceptionHandler {
      * if POST/PUT request fields, variables or parameters contains invalid values.
      */
     @ExceptionHandler(ConstraintViolationException.class)
-    ResponseEntity<ErrorResponseModel> handleOnConstraintValidationException(
+    ResponseEntity<ProblemDetail> handleOnConstraintValidationException(
             @NonNull ConstraintViolationException ex, @NonNull HttpServletRequest request) {
-        List<String> errors = new ArrayList<>();
-        ex.getConstraintViolations()
-                .forEach(
-                        (violation) -> {
-                            String errorStr =
-                                    "Field error in object '%s': rejected value [%s]; error: %s"
-                                            .formatted(
-                                                    violation.getPropertyPath().toString(),
-                                                    violation.getInvalidValue().toString(),
-                                                    violation.getMessage());
-                            errors.add(errorStr);
-                        });
-        String timeStamp =
-                new SimpleDateFormat(properties.getExceptionDateFormat()).format(new java.util.Date());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(
-                        ErrorResponseModel.builder()
-                                .status(HttpStatus.BAD_REQUEST.value())
-                                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
-                                .messages(errors)
-                                .path(request.getRequestURL().toString())
-                                .timestamp(timeStamp)
-                                .build());
-
+        List<String> errors = new ArrayList<>(ex.getConstraintViolations().size());
+        for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            errors.add("Field error in object '" + violation.getPropertyPath()
+                    + "': rejected value [" + violation.getInvalidValue()
+                    + "]; error: " + violation.getMessage());
+        }
+        return problem(ex, HttpStatus.BAD_REQUEST, errors, request);
     }
 
     /**
      * 404 Custom exception, returns NOT_FOUND status if the todos doesn't exist.
      */
     @ExceptionHandler(NoSuchTodoFoundException.class)
-    public ResponseEntity<ErrorResponseModel> handleNoSuchTodoFoundException(
+    public ResponseEntity<ProblemDetail> handleNoSuchTodoFoundException(
             @NonNull NoSuchTodoFoundException exception, @NonNull HttpServletRequest request) {
-        String timeStamp = new SimpleDateFormat().format(new java.util.Date());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(
-                        ErrorResponseModel.builder()
-                                .status(HttpStatus.NOT_FOUND.value())
-                                .error(HttpStatus.NOT_FOUND.getReasonPhrase())
-                                .messages(List.of((exception.getMessage())))
-                                .path(request.getRequestURL().toString())
-                                .timestamp(timeStamp)
-                                .build());
+        return problem(exception, HttpStatus.NOT_FOUND, List.of(exception.getMessage()), request);
     }
 
     /**
      * 404 Custom exception, returns NOT_FOUND status if the todos doesn't exist.
      */
     @ExceptionHandler(NoSuchTaskFoundException.class)
-    public ResponseEntity<ErrorResponseModel> handleNoSuchTaskFoundException(
+    public ResponseEntity<ProblemDetail> handleNoSuchTaskFoundException(
             @NonNull NoSuchTaskFoundException exception, @NonNull HttpServletRequest request) {
-        String timeStamp = new SimpleDateFormat().format(new java.util.Date());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(
-                        ErrorResponseModel.builder()
-                                .status(HttpStatus.NOT_FOUND.value())
-                                .error(HttpStatus.NOT_FOUND.getReasonPhrase())
-                                .messages(List.of((exception.getMessage())))
-                                .path(request.getRequestURL().toString())
-                                .timestamp(timeStamp)
-                                .build());
+        return problem(exception, HttpStatus.NOT_FOUND, List.of(exception.getMessage()), request);
     }
 
     /**
      * 409 Custom exception, returns CONFLICT status if the created todos already exists.
      */
     @ExceptionHandler(TodoAlreadyExistsException.class)
-    public ResponseEntity<ErrorResponseModel> handleUserAlreadyExistsException(
+    public ResponseEntity<ProblemDetail> handleUserAlreadyExistsException(
             @NonNull TodoAlreadyExistsException exception, @NonNull HttpServletRequest request) {
-        String timeStamp =
-                new SimpleDateFormat(properties.getExceptionDateFormat()).format(new java.util.Date());
-        return ResponseEntity.status(HttpStatus.CONFLICT)
-                .body(
-                        ErrorResponseModel.builder()
-                                .status(HttpStatus.CONFLICT.value())
-                                .error(HttpStatus.CONFLICT.getReasonPhrase())
-                                .messages(List.of((exception.getMessage())))
-                                .path(request.getRequestURL().toString())
-                                .timestamp(timeStamp)
-                                .build());
+        return problem(exception, HttpStatus.CONFLICT, List.of(exception.getMessage()), request);
+    }
+
+    /**
+     * 409 Custom exception, returns CONFLICT status if the todo already has a task with the created task name.
+     */
+    @ExceptionHandler(TaskAlreadyExistsException.class)
+    public ResponseEntity<ProblemDetail> handleTaskAlreadyExistsException(
+            @NonNull TaskAlreadyExistsException exception, @NonNull HttpServletRequest request) {
+        return problem(exception, HttpStatus.CONFLICT, List.of(exception.getMessage()), request);
+    }
+
+    /**
+     * 412 Custom exception, returns PRECONDITION_FAILED status if the todo changed since the If-Match version.
+     */
+    @ExceptionHandler(TodoVersionMismatchException.class)
+    public ResponseEntity<ProblemDetail> handleTodoVersionMismatchException(
+            @NonNull TodoVersionMismatchException exception, @NonNull HttpServletRequest request) {
+        return problem(exception, HttpStatus.PRECONDITION_FAILED, List.of(exception.getMessage()), request);
+    }
+
+    /**
+     * 422 Custom exception, returns UNPROCESSABLE_ENTITY status if the Idempotency-Key was sent with another request.
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ProblemDetail> handleIdempotencyKeyReusedException(
+            @NonNull IdempotencyKeyReusedException exception, @NonNull HttpServletRequest request) {
+        return problem(exception, HttpStatus.UNPROCESSABLE_ENTITY, List.of(exception.getMessage()), request);
+    }
+
+    /**
+     * 429 Custom exception, returns TOO_MANY_REQUESTS status if the client exceeded its request rate, with a Retry-After header.
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ProblemDetail> handleRateLimitExceededException(
+            @NonNull RateLimitExceededException exception, @NonNull HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(problems.problem(exception, HttpStatus.TOO_MANY_REQUESTS,
+                        List.of(exception.getMessage()), request.getRequestURI()));
+    }
+
+    /**
+     * 503 Custom exception, returns SERVICE_UNAVAILABLE status if too many requests are in progress, with a Retry-After header.
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ProblemDetail> handleServiceOverloadedException(
+            @NonNull ServiceOverloadedException exception, @NonNull HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(problems.problem(exception, HttpStatus.SERVICE_UNAVAILABLE,
+                        List.of(exception.getMessage()), request.getRequestURI()));
     }
 
     /**
      * 500 Custom exception, returns INTERNAL_SERVER_ERROR status if the unchecked exception is caught
      */
     @ExceptionHandler(RuntimeException.class)
-    public final @NonNull ResponseEntity<ErrorResponseModel> handleRuntimeExceptions(
+    public final @NonNull ResponseEntity<ProblemDetail> handleRuntimeExceptions(
             @NonNull RuntimeException exception, @NonNull HttpServletRequest request) {
-        String timeStamp =
-                new SimpleDateFormat(properties.getExceptionDateFormat()).format(new java.util.Date());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(
-                        ErrorResponseModel.builder()
-                                .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
-                                .error(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase())
-                                .messages(List.of((exception.getMessage())))
-                                .path(request.getRequestURL().toString())
-                                .timestamp(timeStamp)
-                                .build());
+        return problem(exception, HttpStatus.INTERNAL_SERVER_ERROR,
+                List.of(String.valueOf(exception.getMessage())), request);
+    }
+
+    private ResponseEntity<ProblemDetail> problem(
+            Exception exception, HttpStatus status, List<String> messages, HttpServletRequest request) {
+        return ResponseEntity.status(status)
+                .body(problems.problem(exception, status, messages, request.getRequestURI()));
     }
 }
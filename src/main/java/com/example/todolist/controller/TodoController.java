@@ -1,53 +1,272 @@
 package com.example.todolist.controller;
 
+import com.example.todolist.model.BulkDeleteResult;
+import com.example.todolist.model.BulkResult;
 import com.example.todolist.model.Catalogue;
 import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoChange;
+import com.example.todolist.model.TodoFields;
 import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.TodoPatch;
+import com.example.todolist.model.TodoSync;
+import com.example.todolist.service.IdempotencyService;
+import com.example.todolist.service.TodoChangeFeed;
 import com.example.todolist.service.TodosService;
+import com.example.todolist.util.CursorCodec;
+import com.example.todolist.util.ETags;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
 import lombok.AccessLevel;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
+@Profile("!reactive")
 @Validated
 @CrossOrigin(origins = "http://localhost:4200")
 @RequestMapping(value = "/api/v1/todos")
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class TodoController {
+    // an expired stream is reopened by the client with Last-Event-ID, no change is lost
+    private static final long CHANGES_TIMEOUT = Duration.ofMinutes(30).toMillis();
+    private static final long CHANGES_RECONNECT_DELAY = Duration.ofSeconds(3).toMillis();
+
     @NonNull TodosService service;
+    @NonNull TodoChangeFeed changeFeed;
+    @NonNull ObjectMapper objectMapper;
+    @NonNull IdempotencyService idempotency;
+    @NonNull ResponseBodyCache bodyCache;
 
     /**
-     * GET request for getting a list of all the todos
+     * GET request for getting a page of the todos. If the cursor is passed, keyset pagination is
+     * used instead of page offsets.
      *
-     * @return - list of todos objects in JSON format
+     * @param page  - zero-based page number
+     * @param size  - page size, capped on the server side
+     * @param sort  - sort expression, e.g. "name,desc"
+     * @param after - cursor returned with the previous page
+     * @param ifNoneMatch - ETag of the page the client already has
+     * @return - page of todos objects with page metadata in JSON format, or 304 status if the page
+     * matches the ETag
      */
-    @Operation(summary = "Return all todos", description = "Return all the persisted todos")
+    @Operation(summary = "Return page of todos", description = "Return a page of the persisted todos")
     @ApiResponses(
             value = {
-                    @ApiResponse(responseCode = "200", description = "Todo list is successfully returned")
+                    @ApiResponse(responseCode = "200", description = "Todo page is successfully returned"),
+                    @ApiResponse(responseCode = "304", description = "Todo page didn't change"),
+                    @ApiResponse(responseCode = "400", description = "Bad request parameters")
             })
     @GetMapping()
-    public Catalogue getTodos() {
-        return new Catalogue(service.getTodos());
+    public ResponseEntity<Catalogue> getTodos(
+            @RequestParam(value = "page", defaultValue = "0")
+            @Parameter(name = "page", description = "zero-based page number", example = "0") @PositiveOrZero int page,
+            @RequestParam(value = "size", required = false)
+            @Parameter(name = "size", description = "page size", example = "20") @Positive Integer size,
+            @RequestParam(value = "sort", required = false)
+            @Parameter(name = "sort", description = "sort by id, name or description", example = "name,asc") String sort,
+            @RequestParam(value = "after", required = false)
+            @Parameter(name = "after", description = "cursor of the next page, sort and page are ignored if set")
+            String after,
+            @RequestParam(value = "fields", required = false)
+            @Parameter(name = "fields", description = "fields to return, all if not set; tasks selects all task fields",
+                    example = "id,name,tasks.name") String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            WebRequest request) {
+        TodoFields selected = TodoFields.parse(fields);
+        if (after != null) {
+            Slice<TodoModel> todos = selected == null
+                    ? service.getTodosAfter(after, size)
+                    : service.getTodosAfter(after, size, selected);
+            String cursor = CursorCodec.next(todos);
+            String next = null;
+            if (cursor != null) {
+                next = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("after", cursor)
+                        .replaceQueryParam("size", todos.getSize())
+                        .toUriString();
+            }
+            String eTag = ETags.of(todos);
+            if (request.checkNotModified(eTag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(eTag)
+                    .body(bodyCache.catalogue(todos,
+                            new Catalogue(todos.getContent(), null, null, todos.getSize(), next, cursor)));
+        }
+        // the tag of an offset page is checked against the todo versions, before the todos are loaded
+        if (ifNoneMatch != null && request.checkNotModified(ETags.of(service.getTodosVersions(page, size, sort)))) {
+            return null;
+        }
+        Page<TodoModel> todos = selected == null
+                ? service.getTodos(page, size, sort)
+                : service.getTodos(page, size, sort, selected);
+        String next = null;
+        if (todos.hasNext()) {
+            next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("page", todos.getNumber() + 1)
+                    .replaceQueryParam("size", todos.getSize())
+                    .toUriString();
+        }
+        return ResponseEntity.ok().eTag(ETags.of(todos))
+                .body(bodyCache.catalogue(todos,
+                        new Catalogue(todos.getContent(), todos.getTotalElements(), todos.getNumber(),
+                                todos.getSize(), next, CursorCodec.next(todos))));
+    }
+
+    /**
+     * GET request that streams all the todos with their tasks, one JSON document per line.
+     * Todos are written as they are read from the database, so the whole store is never held in memory.
+     *
+     * @return - newline delimited JSON stream of todos objects
+     */
+    @Operation(summary = "Export all todos", description = "Streams all the persisted todos as newline delimited JSON")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Todos are successfully streamed")
+            })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTodos() {
+        ObjectWriter writer = objectMapper.writerFor(TodoModel.class);
+        StreamingResponseBody body = out -> service.exportTodos(todo -> {
+            try {
+                out.write(writer.writeValueAsBytes(todo));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * GET request for searching the todos: terms are matched in todo and task names and descriptions.
+     *
+     * @param query - search terms, todos matching any of them are returned; "*" ends a prefix and quotes
+     *              enclose a phrase
+     * @param page  - zero-based page number
+     * @param size  - page size, capped on the server side
+     * @return - page of matching todos objects, best matches first
+     */
+    @Operation(summary = "Search todos", description = "Return a page of the todos matching the search terms")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Matching todos are successfully returned"),
+                    @ApiResponse(responseCode = "400", description = "Bad request parameters")
+            })
+    @GetMapping("/search")
+    public Catalogue searchTodos(
+            @RequestParam(value = "q")
+            @Parameter(name = "q", description = "search terms", example = "pasta salad") @NotBlank String query,
+            @RequestParam(value = "page", defaultValue = "0")
+            @Parameter(name = "page", description = "zero-based page number", example = "0") @PositiveOrZero int page,
+            @RequestParam(value = "size", required = false)
+            @Parameter(name = "size", description = "page size", example = "20") @Positive Integer size) {
+        Slice<TodoModel> todos = service.searchTodos(query, page, size);
+        String next = null;
+        if (todos.hasNext()) {
+            next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("page", todos.getNumber() + 1)
+                    .replaceQueryParam("size", todos.getSize())
+                    .toUriString();
+        }
+        return new Catalogue(todos.getContent(), null, todos.getNumber(), todos.getSize(), next, null);
+    }
+
+    /**
+     * GET request for delta syncs: returns only the todos changed and deleted since the last sync, so that
+     * clients don't have to reload all the todos to stay current.
+     *
+     * @param since - "seq" returned by the previous sync, absent for the first sync
+     * @param size  - max number of changes, capped on the server side
+     * @return - changed todos with their tasks, ids of deleted todos and the "since" value of the next sync.
+     * A "seq" lower than "since" means the server data was reset and the todos have to be reloaded.
+     */
+    @Operation(summary = "Return todo changes", description = "Return todos changed and deleted since the last sync")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Changes are successfully returned"),
+                    @ApiResponse(responseCode = "400", description = "Bad request parameters")
+            })
+    @GetMapping("/sync")
+    public TodoSync getChanges(
+            @RequestParam(value = "since", required = false)
+            @Parameter(name = "since", description = "seq of the previous sync", example = "0") @PositiveOrZero Long since,
+            @RequestParam(value = "size", required = false)
+            @Parameter(name = "size", description = "max number of changes", example = "20") @Positive Integer size) {
+        return service.getChanges(since, size);
+    }
+
+    /**
+     * GET request that streams the changes of the todos and their tasks as server-sent events, so that
+     * clients don't have to poll the todos. Every event is named after the change type and carries its
+     * sequence number as id.
+     *
+     * @param lastEventId - id of the last event the client has received, the missed events are sent first
+     * @return - event stream, a "resync" event tells the client that changes were lost and the todos
+     * have to be reloaded
+     */
+    @Operation(summary = "Stream todo changes", description = "Streams todo and task changes as server-sent events")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Changes are streamed")
+            })
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false)
+            @Parameter(name = "Last-Event-ID", description = "id of the last received event") Long lastEventId)
+            throws IOException {
+        SseEmitter emitter = new SseEmitter(CHANGES_TIMEOUT);
+        // the reconnection delay goes out at once, so the client sees the stream open before any change
+        emitter.send(SseEmitter.event().reconnectTime(CHANGES_RECONNECT_DELAY));
+        TodoChangeFeed.Subscription subscription = changeFeed.subscribe(lastEventId,
+                (TodoChange change) -> emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.id()))
+                        .name(change.type().eventName())
+                        .data(change, MediaType.APPLICATION_JSON)));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(() -> {
+            subscription.cancel();
+            emitter.complete();
+        });
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
     }
 
     /**
      * GET request that returns todos by id.
      *
-     * @param id - id number
-     * @return todos object
+     * @param id          - id number
+     * @param ifNoneMatch - ETag of the todo the client already has
+     * @return todos object, or 304 status if the todo matches the ETag
      */
     @Operation(
             summary = "Return todo by id",
@@ -55,19 +274,36 @@ public class TodoController {
     @ApiResponses(
             value = {
                     @ApiResponse(responseCode = "200", description = "Todo is found and returned"),
+                    @ApiResponse(responseCode = "304", description = "Todo didn't change"),
                     @ApiResponse(responseCode = "400", description = "Bad request parameters"),
                     @ApiResponse(responseCode = "404", description = "Todo with this id already exists")
             })
     @GetMapping("/{id}")
-    public TodoModel getTodo(
-            @PathVariable @Parameter(name = "id", description = "id of the task", example = "1") @Positive int id) {
-        return service.getTodo(id);
+    public ResponseEntity<TodoModel> getTodo(
+            @PathVariable @Parameter(name = "id", description = "id of the task", example = "1") @Positive int id,
+            @RequestParam(value = "fields", required = false)
+            @Parameter(name = "fields", description = "fields to return, all if not set; tasks selects all task fields",
+                    example = "id,name,tasks.name") String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            WebRequest request) {
+        TodoFields selected = TodoFields.parse(fields);
+        // only the version column is read to check the tag, the todo is loaded if it changed
+        if (ifNoneMatch != null && request.checkNotModified(ETags.of(service.getTodoVersion(id)))) {
+            return null;
+        }
+        if (selected != null) {
+            TodoModel todo = service.getTodo(id, selected);
+            return ResponseEntity.ok().eTag(ETags.of(todo.getVersion())).body(todo);
+        }
+        TodoModel todo = service.getTodo(id);
+        return ResponseEntity.ok().eTag(ETags.of(todo.getVersion())).body(bodyCache.cached(todo));
     }
 
     /**
      * Creates new todos entity
      *
-     * @param newTodo - new todos object
+     * @param newTodo        - new todos object
+     * @param idempotencyKey - key chosen by the client, a retry with the same key gets the first response
      */
     @Operation(
             summary = "Creates new todo",
@@ -77,12 +313,49 @@ public class TodoController {
                     @ApiResponse(responseCode = "201", description = "Todo is successfully created"),
                     @ApiResponse(responseCode = "400", description = "Todo body is invalid"),
                     @ApiResponse(responseCode = "400", description = "Bad request parameters"),
-                    @ApiResponse(responseCode = "409", description = "Todo with this id already exists")
+                    @ApiResponse(responseCode = "409", description = "Todo with this id already exists"),
+                    @ApiResponse(responseCode = "422", description = "Idempotency key was used with another todo")
             })
     @PostMapping()
     @ResponseStatus(value = HttpStatus.CREATED)
-    public TodoModel createTodo(@Valid @RequestBody TodoModel newTodo) {
-        return service.createTodo(newTodo);
+    public TodoModel createTodo(
+            @Valid @RequestBody TodoModel newTodo,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY, required = false)
+            @Parameter(name = IdempotencyService.IDEMPOTENCY_KEY, description = "key of the request and its retries")
+            @Size(min = 1, max = 255) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "createTodo", newTodo, TodoModel.class,
+                () -> service.createTodo(newTodo));
+    }
+
+    /**
+     * Creates many todos in one request
+     *
+     * @param newTodos       - new todos objects
+     * @param idempotencyKey - key chosen by the client, a retry with the same key gets the first response
+     * @return - per-todo outcomes, 201 status if all the todos are created, 207 otherwise
+     */
+    @Operation(
+            summary = "Creates many todos",
+            description = "Creates todos in one transaction and returns the outcome of every todo")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "201", description = "All the todos are successfully created"),
+                    @ApiResponse(responseCode = "207",
+                            description = "Some todos are not created, invalid (400) or taken names (409), see the items"),
+                    @ApiResponse(responseCode = "400", description = "Todo list is empty or there are too many todos"),
+                    @ApiResponse(responseCode = "422", description = "Idempotency key was used with other todos")
+            })
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResult> createTodos(
+            // validated by the service per item, an invalid todo doesn't fail the others
+            @RequestBody @NotEmpty List<TodoModel> newTodos,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY, required = false)
+            @Parameter(name = IdempotencyService.IDEMPOTENCY_KEY, description = "key of the request and its retries")
+            @Size(min = 1, max = 255) String idempotencyKey) {
+        BulkResult result = idempotency.execute(idempotencyKey, "createTodos", newTodos, BulkResult.class,
+                () -> service.createTodos(newTodos));
+        return ResponseEntity.status(result.failed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(result);
     }
 
     /**
@@ -90,6 +363,7 @@ public class TodoController {
      *
      * @param id       - id number
      * @param editTodo - todos object for updating
+     * @param ifMatch  - ETag of the todo the update is based on, the update is rejected if the todo changed since
      * @return - updated todos object
      */
     @Operation(summary = "Updates todo", description = "Updates todo by ID")
@@ -98,14 +372,44 @@ public class TodoController {
                     @ApiResponse(responseCode = "200", description = "Todo is successfully updated"),
                     @ApiResponse(responseCode = "400", description = "Todo body is invalid"),
                     @ApiResponse(responseCode = "400", description = "Bad request parameters"),
-                    @ApiResponse(responseCode = "404", description = "Todo with this id doesn't exist")
+                    @ApiResponse(responseCode = "404", description = "Todo with this id doesn't exist"),
+                    @ApiResponse(responseCode = "412", description = "Todo was modified since the If-Match ETag")
             })
     @PutMapping("/{id}")
-    public TodoModel updateTodo(
+    public ResponseEntity<TodoModel> updateTodo(
             @PathVariable @Parameter(name = "id", description = "id of the task", example = "1") @Positive int id,
-            @Valid @RequestBody TodoModel editTodo) {
+            @Valid @RequestBody TodoModel editTodo,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         editTodo.setId(id);
-        return service.updateTodo(editTodo);
+        TodoModel todo = service.updateTodo(editTodo, ETags.parseVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(todo.getVersion())).body(todo);
+    }
+
+    /**
+     * Partially updates existing todos with a JSON Merge Patch. Only the supplied fields and the tasks named
+     * in the patch are changed, so the client doesn't have to send the whole todo.
+     *
+     * @param id      - id number
+     * @param patch   - changes of the todo, tasks keyed by name with null removing a task
+     * @param ifMatch - ETag of the todo the patch is based on, the patch is rejected if the todo changed since
+     * @return - updated todos object
+     */
+    @Operation(summary = "Patches todo", description = "Updates the supplied fields and tasks of todo by ID")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Todo is successfully updated"),
+                    @ApiResponse(responseCode = "400", description = "Todo patch is invalid"),
+                    @ApiResponse(responseCode = "404", description = "Todo with this id doesn't exist"),
+                    @ApiResponse(responseCode = "409", description = "Todo with this name already exists"),
+                    @ApiResponse(responseCode = "412", description = "Todo was modified since the If-Match ETag")
+            })
+    @PatchMapping(value = "/{id}", consumes = {TodoPatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<TodoModel> patchTodo(
+            @PathVariable @Parameter(name = "id", description = "id of the task", example = "1") @Positive int id,
+            @Valid @RequestBody TodoPatch patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TodoModel todo = service.patchTodo(id, patch, ETags.parseVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(todo.getVersion())).body(todo);
     }
 
     /**
@@ -130,8 +434,9 @@ public class TodoController {
     /**
      * POST request that creates a new task for todos by its id. Creates a new task entity
      *
-     * @param newTask - new task object
-     * @param id      - todos object id
+     * @param newTask        - new task object
+     * @param id             - todos object id
+     * @param idempotencyKey - key chosen by the client, a retry with the same key gets the first response
      * @return - created task
      */
     @Operation(summary = "Creates task in todo", description = "Creates task in todo by ID")
@@ -139,12 +444,77 @@ public class TodoController {
             value = {
                     @ApiResponse(responseCode = "200", description = "Task is successfully created"),
                     @ApiResponse(responseCode = "400", description = "Bad request parameters"),
-                    @ApiResponse(responseCode = "404", description = "Todo with this id doesn't exist")
+                    @ApiResponse(responseCode = "404", description = "Todo with this id doesn't exist"),
+                    @ApiResponse(responseCode = "409", description = "Todo already has a task with this name"),
+                    @ApiResponse(responseCode = "422", description = "Idempotency key was used with another task")
             })
     @PostMapping("/{id}/tasks")
     @ResponseStatus(value = HttpStatus.CREATED)
-    public TaskModel createTask(@Valid @RequestBody TaskModel newTask, @PathVariable @Positive int id) {
-        return service.createTask(newTask, id);
+    public TaskModel createTask(
+            @Valid @RequestBody TaskModel newTask,
+            @PathVariable @Positive int id,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY, required = false)
+            @Parameter(name = IdempotencyService.IDEMPOTENCY_KEY, description = "key of the request and its retries")
+            @Size(min = 1, max = 255) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "createTask " + id, newTask, TaskModel.class,
+                () -> service.createTask(newTask, id));
+    }
+
+    /**
+     * Creates many tasks of the todo in one request
+     *
+     * @param newTasks       - new task objects
+     * @param id             - todos object id
+     * @param idempotencyKey - key chosen by the client, a retry with the same key gets the first response
+     * @return - per-task outcomes with 201 status
+     */
+    @Operation(
+            summary = "Creates many tasks in todo",
+            description = "Creates tasks in todo by ID in one transaction and returns the outcome of every task")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "201", description = "All the tasks are successfully created"),
+                    @ApiResponse(responseCode = "207", description = "Some task names are taken or repeated"),
+                    @ApiResponse(responseCode = "400", description = "Task body is invalid or there are too many tasks"),
+                    @ApiResponse(responseCode = "404", description = "Todo with this id doesn't exist"),
+                    @ApiResponse(responseCode = "422", description = "Idempotency key was used with other tasks")
+            })
+    @PostMapping("/{id}/tasks/batch")
+    public ResponseEntity<BulkResult> createTasks(
+            @RequestBody @NotEmpty List<@Valid TaskModel> newTasks,
+            @PathVariable @Positive int id,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY, required = false)
+            @Parameter(name = IdempotencyService.IDEMPOTENCY_KEY, description = "key of the request and its retries")
+            @Size(min = 1, max = 255) String idempotencyKey) {
+        BulkResult result = idempotency.execute(idempotencyKey, "createTasks " + id, newTasks, BulkResult.class,
+                () -> service.createTasks(newTasks, id));
+        return ResponseEntity.status(result.failed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(result);
+    }
+
+    /**
+     * Deletes the tasks with the given names from the todo in one request
+     *
+     * @param id    - todos object id
+     * @param names - names of the tasks, repeated "name" parameters
+     * @return - per-name outcomes, 200 status if all the tasks are deleted, 207 otherwise
+     */
+    @Operation(
+            summary = "Deletes many tasks from todo",
+            description = "Deletes tasks by name from todo by ID in one transaction and returns the outcome of every name")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "All the tasks are successfully deleted"),
+                    @ApiResponse(responseCode = "207", description = "Some tasks don't exist, see the items"),
+                    @ApiResponse(responseCode = "400", description = "Bad request parameters or too many names"),
+                    @ApiResponse(responseCode = "404", description = "Todo with this id doesn't exist")
+            })
+    @DeleteMapping("/{id}/tasks/batch")
+    public ResponseEntity<BulkDeleteResult> deleteTasks(
+            @PathVariable @Parameter(name = "id", description = "id of the todo", example = "1") @Positive int id,
+            @RequestParam(value = "name") @NotEmpty List<@NotBlank String> names) {
+        BulkDeleteResult result = service.deleteTasks(names, id);
+        return ResponseEntity.status(result.failed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(result);
     }
 
     @Operation(summary = "Deletes task from todo", description = "Deletes task from todo by ID")
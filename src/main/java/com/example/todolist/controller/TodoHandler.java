@@ -0,0 +1,277 @@
+package com.example.todolist.controller;
+
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.exceptions.InvalidRequestException;
+import com.example.todolist.service.ReactiveTodosService;
+import com.example.todolist.util.CursorCodec;
+import com.example.todolist.util.ETags;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handler functions of the todos API in the "reactive" profile, routed by {@link TodoRouter}. The
+ * paths, parameters, statuses, ETags and error bodies are the ones of {@link TodoController}.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TodoHandler {
+    private static final ParameterizedTypeReference<List<TodoModel>> TODO_LIST =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @NonNull ReactiveTodosService service;
+    @NonNull Validator validator;
+    @NonNull ProblemFactory problems;
+
+    /**
+     * GET request for getting a page of the todos, see {@link TodoController#getTodos}
+     */
+    public Mono<ServerResponse> getTodos(ServerRequest request) {
+        return Mono.defer(() -> {
+            Integer size = intParam(request, "size", 1);
+            Optional<String> after = request.queryParam("after");
+            if (after.isPresent()) {
+                return service.getTodosAfter(after.get(), size).flatMap(todos -> {
+                    String cursor = CursorCodec.next(todos);
+                    String next = null;
+                    if (cursor != null) {
+                        next = UriComponentsBuilder.fromUri(request.uri())
+                                .replaceQueryParam("after", cursor)
+                                .replaceQueryParam("size", todos.getSize())
+                                .toUriString();
+                    }
+                    String eTag = ETags.of(todos);
+                    Catalogue catalogue = new Catalogue(todos.getContent(), null, null, todos.getSize(), next, cursor);
+                    return request.checkNotModified(eTag)
+                            .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(eTag).bodyValue(catalogue)));
+                });
+            }
+            Integer pageParam = intParam(request, "page", 0);
+            int page = pageParam == null ? 0 : pageParam;
+            String sort = request.queryParam("sort").orElse(null);
+            // the tag of an offset page is checked against the todo versions, before the todos are loaded
+            Mono<ServerResponse> notModified = Mono.empty();
+            if (request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                notModified = service.getTodosVersions(page, size, sort)
+                        .flatMap(versions -> request.checkNotModified(ETags.of(versions)));
+            }
+            return notModified.switchIfEmpty(Mono.defer(() -> service.getTodos(page, size, sort).flatMap(todos -> {
+                String next = null;
+                if (todos.hasNext()) {
+                    next = UriComponentsBuilder.fromUri(request.uri())
+                            .replaceQueryParam("page", todos.getNumber() + 1)
+                            .replaceQueryParam("size", todos.getSize())
+                            .toUriString();
+                }
+                return ServerResponse.ok().eTag(ETags.of(todos))
+                        .bodyValue(new Catalogue(todos.getContent(), todos.getTotalElements(), todos.getNumber(),
+                                todos.getSize(), next, CursorCodec.next(todos)));
+            })));
+        });
+    }
+
+    /**
+     * GET request that streams all the todos with their tasks, one JSON document per line.
+     * Every todo is encoded and flushed as soon as it is read.
+     */
+    public Mono<ServerResponse> exportTodos(ServerRequest request) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(service.exportTodos(), TodoModel.class);
+    }
+
+    /**
+     * GET request that returns todos by id, or 304 status if the todo matches the If-None-Match ETag
+     */
+    public Mono<ServerResponse> getTodo(ServerRequest request) {
+        return Mono.defer(() -> {
+            int id = id(request);
+            // only the version column is read to check the tag, the todo is loaded if it changed
+            Mono<ServerResponse> notModified = Mono.empty();
+            if (request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                notModified = service.getTodoVersion(id)
+                        .flatMap(version -> request.checkNotModified(ETags.of(version)));
+            }
+            return notModified.switchIfEmpty(Mono.defer(() -> service.getTodo(id)
+                    .flatMap(todo -> ServerResponse.ok().eTag(ETags.of(todo.getVersion())).bodyValue(todo))));
+        });
+    }
+
+    /**
+     * Creates new todos entity, returns 201 status with the created todo
+     */
+    public Mono<ServerResponse> createTodo(ServerRequest request) {
+        return body(request, TodoModel.class)
+                .flatMap(service::createTodo)
+                .flatMap(todo -> ServerResponse.status(HttpStatus.CREATED).bodyValue(todo));
+    }
+
+    /**
+     * Creates many todos in one request, returns 201 status if all the todos are created, 207 otherwise.
+     * Invalid todos are reported among the items by the service.
+     */
+    public Mono<ServerResponse> createTodos(ServerRequest request) {
+        return request.bodyToMono(TODO_LIST)
+                .filter(todos -> !todos.isEmpty())
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(List.of("Todo list must not be empty"))))
+                .flatMap(service::createTodos)
+                .flatMap(result -> ServerResponse
+                        .status(result.failed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                        .bodyValue(result));
+    }
+
+    /**
+     * Updates existing todos, rejected with 412 status if the todo changed since the If-Match ETag
+     */
+    public Mono<ServerResponse> updateTodo(ServerRequest request) {
+        return Mono.defer(() -> {
+            int id = id(request);
+            Long expectedVersion = ETags.parseVersion(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+            return body(request, TodoModel.class)
+                    .flatMap(editTodo -> {
+                        editTodo.setId(id);
+                        return service.updateTodo(editTodo, expectedVersion);
+                    })
+                    .flatMap(todo -> ServerResponse.ok().eTag(ETags.of(todo.getVersion())).bodyValue(todo));
+        });
+    }
+
+    /**
+     * DELETE request that removes todos by id
+     */
+    public Mono<ServerResponse> deleteTodo(ServerRequest request) {
+        return Mono.defer(() -> service.deleteTodo(id(request)).then(ServerResponse.ok().build()));
+    }
+
+    /**
+     * POST request that creates a new task for todos by its id, returns 201 status with the created task
+     */
+    public Mono<ServerResponse> createTask(ServerRequest request) {
+        return Mono.defer(() -> {
+            int id = id(request);
+            return body(request, TaskModel.class)
+                    .flatMap(newTask -> service.createTask(newTask, id))
+                    .flatMap(task -> ServerResponse.status(HttpStatus.CREATED).bodyValue(task));
+        });
+    }
+
+    /**
+     * DELETE request that removes the task with the given name from todos by its id
+     */
+    public Mono<ServerResponse> deleteTask(ServerRequest request) {
+        return Mono.defer(() -> {
+            int id = id(request);
+            String name = request.queryParam("name")
+                    .filter(value -> !value.isBlank())
+                    .orElseThrow(() -> new InvalidRequestException(List.of("Task name must not be blank")));
+            return service.deleteTask(name, id).then(ServerResponse.ok().build());
+        });
+    }
+
+    /**
+     * Maps the errors to the responses of RestResponseEntityExceptionHandler: the status comes from
+     * the @ResponseStatus of the exception, 500 if there is none.
+     */
+    public Mono<ServerResponse> handleError(@NonNull Throwable exception, @NonNull ServerRequest request) {
+        HttpStatusCode status = HttpStatus.INTERNAL_SERVER_ERROR;
+        List<String> messages = List.of(String.valueOf(exception.getMessage()));
+        if (exception instanceof InvalidRequestException invalid) {
+            status = HttpStatus.BAD_REQUEST;
+            messages = invalid.getErrorsList();
+        } else if (exception instanceof ResponseStatusException statusException) {
+            // thrown by WebFlux itself, e.g. for a malformed body
+            status = statusException.getStatusCode();
+            messages = List.of(String.valueOf(statusException.getReason()));
+        } else {
+            ResponseStatus annotation =
+                    AnnotatedElementUtils.findMergedAnnotation(exception.getClass(), ResponseStatus.class);
+            if (annotation != null) {
+                status = annotation.code();
+            }
+        }
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(problems.problem(exception, status, messages, request.uri().getRawPath()));
+    }
+
+    private <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(List.of("Request body is missing"))))
+                .doOnNext(this::validate);
+    }
+
+    /**
+     * Applies the bean validation constraints of the model, the counterpart of @Valid
+     *
+     * @throws InvalidRequestException - with one message per violated constraint
+     */
+    private void validate(Object model) throws InvalidRequestException {
+        Set<ConstraintViolation<Object>> violations = validator.validate(model);
+        if (!violations.isEmpty()) {
+            String objectName = model.getClass().getSimpleName();
+            throw new InvalidRequestException(violations.stream()
+                    .map(violation -> "Field error in object '%s' on field '%s': rejected value [%s]; error: %s"
+                            .formatted(
+                                    Character.toLowerCase(objectName.charAt(0)) + objectName.substring(1),
+                                    violation.getPropertyPath(),
+                                    ObjectUtils.nullSafeToString(violation.getInvalidValue()),
+                                    violation.getMessage()))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private static int id(ServerRequest request) {
+        String value = request.pathVariable("id");
+        try {
+            int id = Integer.parseInt(value);
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the invalid id error below
+        }
+        throw new InvalidRequestException(List.of("Invalid todo id: " + value));
+    }
+
+    private static Integer intParam(ServerRequest request, String name, int min) {
+        Optional<String> value = request.queryParam(name);
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            int result = Integer.parseInt(value.get());
+            if (result >= min) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the invalid parameter error below
+        }
+        throw new InvalidRequestException(List.of("Invalid %s parameter: %s".formatted(name, value.get())));
+    }
+}
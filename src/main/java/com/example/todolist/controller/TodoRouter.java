@@ -0,0 +1,55 @@
+package com.example.todolist.controller;
+
+import java.util.List;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Routes of the todos API in the "reactive" profile, the functional counterpart of the request
+ * mappings of {@link TodoController}.
+ */
+@Configuration
+@Profile("reactive")
+public class TodoRouter {
+    public static final String TODOS_PATH = "/api/v1/todos";
+
+    @Bean
+    public RouterFunction<ServerResponse> todoRoutes(TodoHandler handler) {
+        return RouterFunctions.route()
+                .path(TODOS_PATH, todos -> todos
+                        .GET("", handler::getTodos)
+                        .GET("/export", handler::exportTodos)
+                        .GET("/{id}", handler::getTodo)
+                        .POST("", handler::createTodo)
+                        .POST("/bulk", handler::createTodos)
+                        .PUT("/{id}", handler::updateTodo)
+                        .DELETE("/{id}", handler::deleteTodo)
+                        .POST("/{id}/tasks", handler::createTask)
+                        .DELETE("/{id}/tasks", handler::deleteTask))
+                .onError(Throwable.class, handler::handleError)
+                .build();
+    }
+
+    /**
+     * Same origins as @CrossOrigin of TodoController
+     */
+    @Bean
+    public CorsWebFilter todosCorsFilter() {
+        CorsConfiguration configuration = new CorsConfiguration().applyPermitDefaultValues();
+        configuration.setAllowedOrigins(List.of("http://localhost:4200"));
+        configuration.setAllowedMethods(List.of(
+                HttpMethod.GET.name(), HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.DELETE.name()));
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration(TODOS_PATH, configuration);
+        source.registerCorsConfiguration(TODOS_PATH + "/**", configuration);
+        return new CorsWebFilter(source);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.todolist.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Response of a request sent with an Idempotency-Key header, returned to the retries of the
+ * request, see IdempotencyService.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyKeyEntity {
+    // the client key prefixed with the endpoint it was sent to
+    @Id
+    @Column(name = "idempotency_key", length = 320)
+    String key;
+
+    // SHA-256 of the request body, a retry must carry the same body
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    String fingerprint;
+
+    // JSON response body
+    @Lob
+    @Column(name = "response", nullable = false)
+    String response;
+
+    @Column(name = "created_at", nullable = false)
+    Instant createdAt;
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -15,10 +18,23 @@ import org.hibernate.annotations.OnDeleteAction;
 @NoArgsConstructor
 @EqualsAndHashCode
 @FieldDefaults(level = AccessLevel.PRIVATE)
-@Table(name = "tasks")
+// second-level cache region, sized in caffeine-jcache.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// updates write only the changed columns, see TodosService.patchTodo
+@DynamicUpdate
+@Table(name = "tasks", indexes = @Index(name = "idx_tasks_todo_id_name", columnList = "todo_id, name"))
 public class TaskEntity {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  // pooled like TodoEntity.id so that task inserts can be batched too
+  @GeneratedValue(strategy = GenerationType.TABLE, generator = "tasks_id")
+  @TableGenerator(
+      name = "tasks_id",
+      table = "id_sequences",
+      pkColumnName = "sequence_name",
+      valueColumnName = "next_val",
+      pkColumnValue = "tasks",
+      allocationSize = 50)
   @Column(name = "task_id")
   @EqualsAndHashCode.Exclude
   int id;
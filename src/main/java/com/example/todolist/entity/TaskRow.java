@@ -0,0 +1,33 @@
+package com.example.todolist.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/** Row of the tasks table as seen by the R2DBC repositories of the "reactive" profile. */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table("tasks")
+public class TaskRow {
+  @Id
+  @Column("task_id")
+  Integer id;
+
+  @Column("name")
+  String name;
+
+  @Column("description")
+  String description;
+
+  @Column("todo_id")
+  Integer todoId;
+}
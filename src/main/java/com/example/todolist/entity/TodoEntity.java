@@ -6,7 +6,12 @@ import java.util.List;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Cascade;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
 import org.hibernate.annotations.CascadeType;
 
 @Getter
@@ -17,10 +22,29 @@ import org.hibernate.annotations.CascadeType;
 @NoArgsConstructor
 @EqualsAndHashCode
 @FieldDefaults(level = AccessLevel.PRIVATE)
-@Table(name = "todos")
+// second-level cache region, sized in caffeine-jcache.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// updates write only the changed columns, so a patch of the description doesn't rewrite the name
+@DynamicUpdate
+@Table(name = "todos",
+        uniqueConstraints = @UniqueConstraint(name = TodoEntity.NAME_CONSTRAINT, columnNames = "name"),
+        indexes = @Index(name = "idx_todos_change_seq", columnList = "change_seq"))
 public class TodoEntity {
+    // duplicate names are rejected by the database, see TodosService.createTodo
+    public static final String NAME_CONSTRAINT = "uk_todos_name";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // ids are allocated in blocks from the id_sequences table: unlike IDENTITY this lets
+    // Hibernate know the id before the insert and group inserts into JDBC batches
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "todos_id")
+    @TableGenerator(
+            name = "todos_id",
+            table = "id_sequences",
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "todos",
+            allocationSize = 50)
     @Column(name = "todo_id")
     @EqualsAndHashCode.Exclude
     int id;
@@ -33,9 +57,26 @@ public class TodoEntity {
     @NotBlank(message = "Description must not be null or empty")
     String description;
 
+    // bumped on every change of the todo or its tasks, the source of the todo ETags
+    @Version
+    @Column(name = "version", nullable = false)
+    @EqualsAndHashCode.Exclude
+    long version;
+
+    // number of the last change of the todo or its tasks in the global change sequence, serves delta syncs.
+    // Written by the last statement of a change, left out of optimistic locking so that doesn't bump the version
+    @OptimisticLock(excluded = true)
+    @Column(name = "change_seq", nullable = false)
+    @EqualsAndHashCode.Exclude
+    long changeSeq;
+
+    // loaded on demand: list reads initialise a whole page of collections with one batch select,
+    // or from the second-level cache, detail reads fetch them with the todo via an entity graph
     @OneToMany(mappedBy = "todoEntity",
             orphanRemoval = true,
-            fetch = FetchType.EAGER)
+            fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Cascade(CascadeType.ALL)
     @Builder.Default
     List<TaskEntity> tasks = new ArrayList<>();
@@ -0,0 +1,44 @@
+package com.example.todolist.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Row of the todos table as seen by the R2DBC repositories of the "reactive" profile. Unlike
+ * {@link TodoEntity} it doesn't hold the tasks, they are queried separately.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table("todos")
+public class TodoRow {
+  // assigned from id_sequences before the insert, see IdSequencesR2DBC
+  @Id
+  @Column("todo_id")
+  Integer id;
+
+  @Column("name")
+  String name;
+
+  @Column("description")
+  String description;
+
+  // null until the row is inserted, checked and bumped by every update of the row
+  @Version
+  @Column("version")
+  Long version;
+
+  // number of the last change in the global change sequence, see TodoEntity.changeSeq
+  @Column("change_seq")
+  Long changeSeq;
+}
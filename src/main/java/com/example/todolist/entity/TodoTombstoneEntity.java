@@ -0,0 +1,29 @@
+package com.example.todolist.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Marks a deleted todo, so that delta syncs can tell clients to drop it. Tasks need no tombstones:
+ * a change of the tasks is a change of their todo, which is synced with its current tasks.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "todo_tombstones",
+        indexes = @Index(name = "idx_todo_tombstones_change_seq", columnList = "change_seq"))
+public class TodoTombstoneEntity {
+    // todo ids are never reused, a todo is deleted at most once
+    @Id
+    @Column(name = "todo_id")
+    int todoId;
+
+    @Column(name = "change_seq", nullable = false)
+    long changeSeq;
+}
@@ -0,0 +1,12 @@
+package com.example.todolist.model;
+
+import java.util.List;
+
+/**
+ * Result of a bulk deletion.
+ *
+ * @param deleted - number of deleted items
+ * @param failed - number of items that were not found
+ * @param items - per-item outcomes in request order
+ */
+public record BulkDeleteResult(int deleted, int failed, List<BulkItemResult> items) {}
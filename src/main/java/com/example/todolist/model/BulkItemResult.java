@@ -0,0 +1,15 @@
+package com.example.todolist.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a single item of a bulk request.
+ *
+ * @param index - position of the item in the request
+ * @param name - name of the item
+ * @param status - HTTP status code the item would have got if sent on its own
+ * @param id - id of the created todo, absent if it wasn't created and for tasks, which are addressed by name
+ * @param message - reason of the failure, absent if the item was created
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkItemResult(int index, String name, int status, Integer id, String message) {}
@@ -0,0 +1,12 @@
+package com.example.todolist.model;
+
+import java.util.List;
+
+/**
+ * Result of a bulk request.
+ *
+ * @param created - number of created items
+ * @param failed - number of rejected items
+ * @param items - per-item outcomes in request order
+ */
+public record BulkResult(int created, int failed, List<BulkItemResult> items) {}
@@ -1,5 +1,22 @@
 package com.example.todolist.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 
-public record Catalogue(List<TodoModel> todos) {}
+/**
+ * Page of todos returned by the listing endpoint.
+ *
+ * @param todos - todos of the current page
+ * @param total - total number of persisted todos, absent in cursor and search modes
+ * @param page - zero-based number of the current page, absent in cursor mode
+ * @param size - effective page size (after the server-side cap is applied)
+ * @param next - link to the next page, absent on the last page
+ * @param cursor - opaque keyset cursor of the next page, absent if the order can't be keyed
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Catalogue(
+    List<TodoModel> todos, Long total, Integer page, Integer size, String next, String cursor) {
+  public Catalogue(List<TodoModel> todos) {
+    this(todos, null, null, null, null, null);
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.todolist.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Todo of a sparse fieldset. It holds the columns read for the selection, which may be more than
+ * selected, but only the selected fields are written.
+ */
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@JsonSerialize(using = SparseTodoModel.Serializer.class)
+public class SparseTodoModel extends TodoModel {
+    @NonNull TodoFields fields;
+
+    public SparseTodoModel(int id, String name, String description, List<TaskModel> tasks, long version,
+                           @NonNull TodoFields fields) {
+        super(id, name, description, tasks, version);
+        this.fields = fields;
+    }
+
+    static final class Serializer extends StdSerializer<SparseTodoModel> {
+        Serializer() {
+            super(SparseTodoModel.class);
+        }
+
+        @Override
+        public void serialize(SparseTodoModel todo, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            TodoFields fields = todo.getFields();
+            generator.writeStartObject(todo);
+            if (fields.id()) {
+                generator.writeNumberField("id", todo.getId());
+            }
+            if (fields.name()) {
+                generator.writeStringField("name", todo.getName());
+            }
+            if (fields.description()) {
+                generator.writeStringField("description", todo.getDescription());
+            }
+            if (fields.tasks()) {
+                generator.writeArrayFieldStart("tasks");
+                for (TaskModel task : todo.getTasks()) {
+                    generator.writeStartObject(task);
+                    if (fields.taskName()) {
+                        generator.writeStringField("name", task.getName());
+                    }
+                    if (fields.taskDescription()) {
+                        generator.writeStringField("description", task.getDescription());
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.todolist.model;
+
+/** Task columns read for sparse fieldsets, the description only if it is selected. */
+public interface TaskSummary {
+  int getTodoId();
+
+  String getName();
+
+  interface WithDescription extends TaskSummary {
+    String getDescription();
+  }
+}
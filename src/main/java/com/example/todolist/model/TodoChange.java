@@ -0,0 +1,68 @@
+package com.example.todolist.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Change of a todo or of its tasks, sent by the changes feed as a server-sent event.
+ *
+ * @param id - sequence number assigned by the feed, the id of the event
+ * @param type - kind of the change, the name of the event
+ * @param todoId - id of the changed todo, absent in resync events
+ * @param version - version of the todo after the change, absent if it isn't known
+ * @param task - name of the created or deleted task, absent in todo events
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TodoChange(
+    @JsonIgnore long id, Type type, Integer todoId, Long version, String task) {
+
+  public enum Type {
+    TODO_CREATED("todo.created"),
+    TODO_UPDATED("todo.updated"),
+    TODO_DELETED("todo.deleted"),
+    TASK_CREATED("task.created"),
+    TASK_DELETED("task.deleted"),
+    // changes were lost for this subscriber, the client has to reload the todos
+    RESYNC("resync");
+
+    private final String eventName;
+
+    Type(String eventName) {
+      this.eventName = eventName;
+    }
+
+    @JsonValue
+    public String eventName() {
+      return eventName;
+    }
+  }
+
+  public static TodoChange todoCreated(int todoId, long version) {
+    return new TodoChange(0, Type.TODO_CREATED, todoId, version, null);
+  }
+
+  public static TodoChange todoUpdated(int todoId, long version) {
+    return new TodoChange(0, Type.TODO_UPDATED, todoId, version, null);
+  }
+
+  public static TodoChange todoDeleted(int todoId) {
+    return new TodoChange(0, Type.TODO_DELETED, todoId, null, null);
+  }
+
+  public static TodoChange taskCreated(int todoId, String task) {
+    return new TodoChange(0, Type.TASK_CREATED, todoId, null, task);
+  }
+
+  public static TodoChange taskDeleted(int todoId, String task) {
+    return new TodoChange(0, Type.TASK_DELETED, todoId, null, task);
+  }
+
+  public static TodoChange resync(long id) {
+    return new TodoChange(id, Type.RESYNC, null, null, null);
+  }
+
+  public TodoChange withId(long id) {
+    return new TodoChange(id, type, todoId, version, task);
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.todolist.model;
+
+import com.example.todolist.model.exceptions.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sparse fieldset of todos, parsed from a "fields" parameter such as "id,name,tasks.name". "tasks"
+ * selects all fields of the tasks. Tasks are read only if one of their fields is selected.
+ */
+public record TodoFields(boolean id, boolean name, boolean description, boolean taskName, boolean taskDescription) {
+
+    /**
+     * Parses the fieldset
+     *
+     * @param fields - comma separated field names
+     * @return - selected fields or null if the parameter is not set and todos are returned whole
+     * @throws InvalidRequestException - if a field is unknown or none is selected
+     */
+    public static TodoFields parse(String fields) throws InvalidRequestException {
+        if (fields == null) {
+            return null;
+        }
+        boolean id = false;
+        boolean name = false;
+        boolean description = false;
+        boolean taskName = false;
+        boolean taskDescription = false;
+        List<String> errors = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            switch (field.trim()) {
+                case "id" -> id = true;
+                case "name" -> name = true;
+                case "description" -> description = true;
+                case "tasks" -> {
+                    taskName = true;
+                    taskDescription = true;
+                }
+                case "tasks.name" -> taskName = true;
+                case "tasks.description" -> taskDescription = true;
+                case "" -> {
+                    // tolerates "id,,name" and trailing commas
+                }
+                default -> errors.add("Unknown field: " + field.trim());
+            }
+        }
+        if (errors.isEmpty() && !(id || name || description || taskName || taskDescription)) {
+            errors.add("No fields selected: " + fields);
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidRequestException(errors);
+        }
+        return new TodoFields(id, name, description, taskName, taskDescription);
+    }
+
+    public boolean tasks() {
+        return taskName || taskDescription;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.todolist.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -16,7 +17,7 @@ import java.util.List;
 @EqualsAndHashCode
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Schema(title = "Todo", description = "Todo model information")
-public class TodoModel {
+public class TodoModel implements TodoVersion {
     @Schema(title = "Todo id", example = "1",
             requiredMode = Schema.RequiredMode.REQUIRED)
     @EqualsAndHashCode.Exclude
@@ -38,4 +39,9 @@ public class TodoModel {
             requiredMode = Schema.RequiredMode.NOT_REQUIRED)
     @Valid
     List<TaskModel> tasks;
+
+    @Schema(hidden = true)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    long version;
 }
@@ -0,0 +1,57 @@
+package com.example.todolist.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Map;
+
+/**
+ * JSON Merge Patch (RFC 7396) of a todo: only the supplied members are changed. Name and description
+ * can't be removed, so absent and null values leave them unchanged. Tasks are keyed by name: a null
+ * value removes the tasks of that name, an object updates their description or adds the task.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Schema(title = "Todo patch", description = "Partial update of a todo")
+public class TodoPatch {
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+    private static final String NOT_BLANK = ".*\\S.*";
+
+    @Schema(title = "New todo name", example = "Make dinner",
+            requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    @Pattern(regexp = NOT_BLANK, message = "Name must not be empty")
+    @Size(min = 10, max = 255, message = "Name length must be of 10 - 255 characters")
+    String name;
+
+    @Schema(title = "New todo description", example = "Pasta with cevapcici",
+            requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    @Pattern(regexp = NOT_BLANK, message = "Description must not be empty")
+    @Size(min = 10, max = 255, message = "Description length must be of 10 - 255 characters")
+    String description;
+
+    @Schema(title = "Task changes by task name, null removes the task",
+            requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    Map<
+            @NotBlank(message = "Task name must not be null or empty")
+            @Size(min = 10, max = 255, message = "Task name length must be of 10 - 255 characters") String,
+            @Valid TaskPatch> tasks;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @Schema(title = "Task patch", description = "Partial update of a todo subtask")
+    public static class TaskPatch {
+        @Schema(title = "New task description, unchanged if null", example = "Rucola and tomatoes",
+                requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+        String description;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.todolist.model;
+
+/**
+ * Todo columns read for sparse fieldsets. Ids, versions and names are read for any of them, they
+ * key the tags and cursors; the description only if it is selected.
+ */
+public interface TodoSummary extends TodoVersion {
+  String getName();
+
+  interface WithDescription extends TodoSummary {
+    String getDescription();
+  }
+}
@@ -0,0 +1,13 @@
+package com.example.todolist.model;
+
+import java.util.List;
+
+/**
+ * Changes of the todos since the client's last sync.
+ *
+ * @param todos - created or changed todos with their current tasks, in change order
+ * @param deleted - ids of the deleted todos
+ * @param seq - change number to send as "since" with the next sync
+ * @param more - true if the changes didn't fit into the response, the next sync returns the rest
+ */
+public record TodoSync(List<TodoModel> todos, List<Integer> deleted, long seq, boolean more) {}
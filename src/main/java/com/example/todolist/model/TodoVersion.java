@@ -0,0 +1,8 @@
+package com.example.todolist.model;
+
+/** Id and version of a todo, enough to tell whether a client's copy of it is up to date. */
+public interface TodoVersion {
+  int getId();
+
+  long getVersion();
+}
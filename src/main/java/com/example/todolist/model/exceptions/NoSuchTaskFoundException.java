@@ -3,9 +3,10 @@ package com.example.todolist.model.exceptions;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/** Stackless like {@link NoSuchTodoFoundException}. */
 @ResponseStatus(value = HttpStatus.NOT_FOUND)
 public class NoSuchTaskFoundException extends RuntimeException {
     public NoSuchTaskFoundException(String name) {
-        super("Task name is not found: " + name);
+        super("Task name is not found: " + name, null, false, false);
     }
 }
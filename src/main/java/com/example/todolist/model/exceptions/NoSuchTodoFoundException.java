@@ -3,9 +3,13 @@ package com.example.todolist.model.exceptions;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Thrown for every request to a missing todo, so it is stackless: answering a 404 doesn't walk the
+ * call stack of the request, the message says all there is to know.
+ */
 @ResponseStatus(value = HttpStatus.NOT_FOUND)
 public class NoSuchTodoFoundException extends RuntimeException {
     public NoSuchTodoFoundException(int id) {
-        super("Todo ID is not found: " + id);
+        super("Todo ID is not found: " + id, null, false, false);
     }
 }
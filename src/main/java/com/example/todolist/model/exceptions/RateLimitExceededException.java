@@ -0,0 +1,16 @@
+package com.example.todolist.model.exceptions;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS)
+public class RateLimitExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Request rate limit exceeded, retry in %d s".formatted(retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
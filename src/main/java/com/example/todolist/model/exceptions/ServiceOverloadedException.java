@@ -0,0 +1,16 @@
+package com.example.todolist.model.exceptions;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(long retryAfterSeconds) {
+        super("Too many requests in progress, retry in %d s".formatted(retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.todolist.model.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Stackless like {@link NoSuchTodoFoundException}. */
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class TaskAlreadyExistsException extends RuntimeException {
+    public TaskAlreadyExistsException(String name) {
+        super("Task with this name already exists: " + name, null, false, false);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.todolist.model.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+public class TodoVersionMismatchException extends RuntimeException {
+    public TodoVersionMismatchException(int id) {
+        super("Todo was modified since it was read: " + id);
+    }
+
+    public TodoVersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.todolist.properties;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.Duration;
+import java.util.Set;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldDefaults;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 @Configuration
@@ -24,4 +29,94 @@ public class MainProperties {
   @NotBlank(
       message = "Main property \"errorInvalidName\" cannot be null or empty: check application.yml")
   String errorInvalidName;
+
+  @NotBlank(
+      message =
+          "Main property \"errorInvalidDescription\" cannot be null or empty: check application.yml")
+  String errorInvalidDescription =
+      "Invalid %s description: string shouldn't be null or empty";
+
+  @NotBlank(
+      message =
+          "Main property \"errorInvalidLength\" cannot be null or empty: check application.yml")
+  String errorInvalidLength = "Invalid %s length: must be of %d - %d characters";
+
+  @NotBlank(
+      message =
+          "Main property \"errorDuplicateTaskName\" cannot be null or empty: check application.yml")
+  String errorDuplicateTaskName = "Duplicate task name: %s";
+
+  @Positive(message = "Main property \"defaultPageSize\" must be positive: check application.yml")
+  int defaultPageSize = 20;
+
+  @Positive(message = "Main property \"maxPageSize\" must be positive: check application.yml")
+  int maxPageSize = 100;
+
+  @Positive(message = "Main property \"maxBulkSize\" must be positive: check application.yml")
+  int maxBulkSize = 5000;
+
+  boolean virtualThreads;
+
+  @Positive(
+      message = "Main property \"changeFeedBufferSize\" must be positive: check application.yml")
+  int changeFeedBufferSize = 256;
+
+  @Positive(
+      message = "Main property \"changeFeedHistorySize\" must be positive: check application.yml")
+  int changeFeedHistorySize = 1000;
+
+  // directory of the search index, kept in memory if blank
+  String searchIndexPath;
+
+  @Positive(
+      message = "Main property \"idempotencyCacheSize\" must be positive: check application.yml")
+  int idempotencyCacheSize = 10000;
+
+  @NotNull(message = "Main property \"idempotencyKeyTtl\" cannot be null: check application.yml")
+  Duration idempotencyKeyTtl = Duration.ofHours(24);
+
+  // keeps the responses of idempotent requests in the idempotency_keys table too
+  boolean idempotencyJdbc;
+
+  @Positive(
+      message = "Main property \"readRatePerSecond\" must be positive: check application.yml")
+  double readRatePerSecond = 100;
+
+  @Positive(message = "Main property \"readBurst\" must be positive: check application.yml")
+  int readBurst = 200;
+
+  @Positive(
+      message = "Main property \"writeRatePerSecond\" must be positive: check application.yml")
+  double writeRatePerSecond = 20;
+
+  @Positive(message = "Main property \"writeBurst\" must be positive: check application.yml")
+  int writeBurst = 50;
+
+  @Positive(
+      message = "Main property \"rateLimitClients\" must be positive: check application.yml")
+  int rateLimitClients = 100000;
+
+  // X-API-Key values with a rate budget of their own, requests with other keys count by address
+  @NotNull(message = "Main property \"apiKeys\" cannot be null: check application.yml")
+  Set<String> apiKeys = Set.of();
+
+  @Positive(
+      message =
+          "Main property \"minConcurrentRequests\" must be positive: check application.yml")
+  int minConcurrentRequests = 10;
+
+  @Positive(
+      message =
+          "Main property \"maxConcurrentRequests\" must be positive: check application.yml")
+  int maxConcurrentRequests = 200;
+
+  @NotNull(message = "Main property \"poolWaitThreshold\" cannot be null: check application.yml")
+  Duration poolWaitThreshold = Duration.ofMillis(100);
+
+  // keeps the encoded bytes of the cached todos and catalogues, see ResponseBodyCache
+  boolean responseBodyCache = true;
+
+  @NotNull(
+      message = "Main property \"responseBodyCacheSize\" cannot be null: check application.yml")
+  DataSize responseBodyCacheSize = DataSize.ofMegabytes(64);
 }
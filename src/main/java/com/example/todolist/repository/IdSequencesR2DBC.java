@@ -0,0 +1,140 @@
+package com.example.todolist.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+
+/**
+ * Allocates todo and task ids from the id_sequences table for the "reactive" profile. It follows
+ * the contract of the Hibernate pooled table generator of TodoEntity and TaskEntity: a block is
+ * taken by adding the block size to next_val, and the value read before the update is the last id
+ * of the block. So both profiles can work on the same database without handing out the same ids.
+ */
+@Repository
+@Profile("reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdSequencesR2DBC {
+  public static final String TODOS = "todos";
+  public static final String TASKS = "tasks";
+  // the global change sequence of delta syncs, shared with TombstoneRepositoryJPA
+  static final String CHANGES = "changes";
+  // must match allocationSize of the table generators of the entities
+  static final int BLOCK_SIZE = 50;
+
+  record Block(long next, long last) {}
+
+  DatabaseClient databaseClient;
+  // blocks are taken in their own transaction, like Hibernate does it, so the row lock of
+  // id_sequences is released at once and a rolled back request doesn't give its block back
+  TransactionalOperator requiresNew;
+  Map<String, Block> blocks = new HashMap<>();
+
+  public IdSequencesR2DBC(
+      @NonNull DatabaseClient databaseClient, @NonNull ReactiveTransactionManager transactionManager) {
+    this.databaseClient = databaseClient;
+    DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+    definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.requiresNew = TransactionalOperator.create(transactionManager, definition);
+  }
+
+  /**
+   * Returns the next id of the sequence, the database is queried only when the current block is
+   * used up
+   *
+   * @param sequence - sequence name, {@link #TODOS} or {@link #TASKS}
+   */
+  public Mono<Integer> nextId(@NonNull String sequence) {
+    return Mono.defer(
+        () -> {
+          Integer id = take(sequence);
+          if (id != null) {
+            return Mono.just(id);
+          }
+          return fetchBlock(sequence)
+              .doOnNext(last -> install(sequence, last))
+              .then(Mono.defer(() -> nextId(sequence)));
+        });
+  }
+
+  /**
+   * Reserves the next change numbers of delta syncs. Unlike ids they are taken in the caller's
+   * transaction: the row stays locked until it ends, so the numbers are committed in order. Callers
+   * reserve them last, once their rows are written: {@link #nextId(String)} may take a block on a
+   * second connection, which must not wait while this row is locked (see TombstoneRepositoryJPA).
+   *
+   * @param count - number of changes to be made
+   * @return - last reserved number, the reserved ones are the count numbers up to it
+   */
+  public Mono<Long> nextChangeSeq(int count) {
+    return databaseClient
+        .sql("UPDATE id_sequences SET next_val = next_val + :count WHERE sequence_name = :name")
+        .bind("count", count)
+        .bind("name", CHANGES)
+        .fetch()
+        .rowsUpdated()
+        .flatMap(
+            updated ->
+                updated > 0
+                    ? Mono.just(updated)
+                    // first change ever made in this database
+                    : databaseClient
+                        .sql("INSERT INTO id_sequences (sequence_name, next_val) VALUES (:name, :count)")
+                        .bind("name", CHANGES)
+                        .bind("count", count)
+                        .fetch()
+                        .rowsUpdated())
+        .then(
+            databaseClient
+                .sql("SELECT next_val FROM id_sequences WHERE sequence_name = :name")
+                .bind("name", CHANGES)
+                .map(row -> row.get("next_val", Long.class))
+                .one());
+  }
+
+  private synchronized Integer take(String sequence) {
+    Block block = blocks.get(sequence);
+    if (block == null || block.next() > block.last()) {
+      return null;
+    }
+    blocks.put(sequence, new Block(block.next() + 1, block.last()));
+    return Math.toIntExact(block.next());
+  }
+
+  private synchronized void install(String sequence, long last) {
+    Block block = blocks.get(sequence);
+    // a concurrent request may have installed a block first, the later one is dropped
+    if (block == null || block.next() > block.last()) {
+      blocks.put(sequence, new Block(last - BLOCK_SIZE + 1, last));
+    }
+  }
+
+  private Mono<Long> fetchBlock(String sequence) {
+    return databaseClient
+        .sql("UPDATE id_sequences SET next_val = next_val + :size WHERE sequence_name = :name")
+        .bind("size", BLOCK_SIZE)
+        .bind("name", sequence)
+        .fetch()
+        .rowsUpdated()
+        .filter(updated -> updated == 1)
+        .switchIfEmpty(
+            Mono.error(new IllegalStateException("Id sequence is not initialised: " + sequence)))
+        .then(
+            databaseClient
+                .sql("SELECT next_val FROM id_sequences WHERE sequence_name = :name")
+                .bind("name", sequence)
+                .map(row -> row.get("next_val", Long.class))
+                .one())
+        .map(next -> next - BLOCK_SIZE)
+        .as(requiresNew::transactional);
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.todolist.repository;
+
+import com.example.todolist.entity.IdempotencyKeyEntity;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.web.bind.annotation.CrossOrigin;
+
+@CrossOrigin(origins = "http://localhost:4200")
+public interface IdempotencyKeyRepositoryJPA extends JpaRepository<IdempotencyKeyEntity, String> {
+  /**
+   * Inserts the response without the select save() would issue first for an assigned id. The table
+   * is named as the query space, so the insert leaves the second-level cache alone.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+  @Modifying
+  @Query(
+      value =
+          "insert into idempotency_keys (idempotency_key, fingerprint, response, created_at)"
+              + " values (:key, :fingerprint, :response, :createdAt)",
+      nativeQuery = true)
+  int insertKey(
+      @Param("key") String key,
+      @Param("fingerprint") String fingerprint,
+      @Param("response") String response,
+      @Param("createdAt") Instant createdAt);
+
+  /** Deletes the responses stored before the given time. */
+  @Modifying
+  @Query("delete from IdempotencyKeyEntity k where k.createdAt < :before")
+  int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -1,12 +1,55 @@
 package com.example.todolist.repository;
 
 import com.example.todolist.entity.TaskEntity;
-import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.model.TaskSummary;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
-import java.util.Optional;
-
+/**
+ * Tasks are deleted by bulk statements, without loading them. Hibernate can't tell which rows such a
+ * statement removes, so each one evicts the tasks and task collections regions of the second-level
+ * cache as a whole; the todos region is kept.
+ */
 @CrossOrigin(origins = "http://localhost:4200")
 public interface TaskRepositoryJPA extends JpaRepository<TaskEntity, Integer> {
+  /** Deletes all tasks of the todo without loading them. */
+  @Modifying
+  @Query("delete from TaskEntity t where t.todoEntity.id = :todoId")
+  int deleteAllByTodoId(@Param("todoId") int todoId);
+
+  /** Deletes the tasks of the todo with the given name without loading them. */
+  @Modifying
+  @Query("delete from TaskEntity t where t.todoEntity.id = :todoId and t.name = :name")
+  int deleteByTodoIdAndName(@Param("todoId") int todoId, @Param("name") String name);
+
+  /** Returns those of the given names the todo has tasks of. */
+  @Query(
+      "select distinct t.name from TaskEntity t where t.todoEntity.id = :todoId"
+          + " and t.name in :names")
+  List<String> findExistingNames(
+      @Param("todoId") int todoId, @Param("names") Collection<String> names);
+
+  /** Deletes the tasks of the todo with any of the given names without loading them. */
+  @Modifying
+  @Query("delete from TaskEntity t where t.todoEntity.id = :todoId and t.name in :names")
+  int deleteByTodoIdAndNameIn(
+      @Param("todoId") int todoId, @Param("names") Collection<String> names);
+
+  /** Todo ids and names of the tasks of the todos, in task id order. */
+  @Query(
+      "select t.todoEntity.id as todoId, t.name as name from TaskEntity t"
+          + " where t.todoEntity.id in :todoIds order by t.id")
+  List<TaskSummary> findSummariesByTodoIds(@Param("todoIds") Collection<Integer> todoIds);
+
+  /** Todo ids, names and descriptions of the tasks of the todos, in task id order. */
+  @Query(
+      "select t.todoEntity.id as todoId, t.name as name, t.description as description"
+          + " from TaskEntity t where t.todoEntity.id in :todoIds order by t.id")
+  List<TaskSummary.WithDescription> findSummariesWithDescriptionByTodoIds(
+      @Param("todoIds") Collection<Integer> todoIds);
 }
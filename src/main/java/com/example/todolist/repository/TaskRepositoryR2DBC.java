@@ -0,0 +1,30 @@
+package com.example.todolist.repository;
+
+import com.example.todolist.entity.TaskRow;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** Reactive counterpart of {@link TaskRepositoryJPA}, used by the "reactive" profile. */
+@Repository
+public interface TaskRepositoryR2DBC extends R2dbcRepository<TaskRow, Integer> {
+  /** Tasks of all the given todos with one query, in creation order. */
+  @Query("SELECT * FROM tasks WHERE todo_id IN (:todoIds) ORDER BY task_id")
+  Flux<TaskRow> findByTodoIds(@Param("todoIds") Collection<Integer> todoIds);
+
+  @Query("SELECT COUNT(*) > 0 FROM tasks WHERE todo_id = :todoId AND name = :name")
+  Mono<Boolean> existsByTodoIdAndName(@Param("todoId") int todoId, @Param("name") String name);
+
+  @Modifying
+  @Query("DELETE FROM tasks WHERE todo_id = :todoId")
+  Mono<Integer> deleteAllByTodoId(@Param("todoId") int todoId);
+
+  @Modifying
+  @Query("DELETE FROM tasks WHERE todo_id = :todoId AND name = :name")
+  Mono<Integer> deleteByTodoIdAndName(@Param("todoId") int todoId, @Param("name") String name);
+}
@@ -1,11 +1,109 @@
 package com.example.todolist.repository;
 
 import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.model.TodoSummary;
+import com.example.todolist.model.TodoVersion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
 @CrossOrigin(origins = "http://localhost:4200")
 public interface TodoRepositoryJPA extends JpaRepository<TodoEntity, Integer> {
-  Optional<TodoEntity> findByName(String name);
+  /** Returns those of the given names that are already taken. */
+  @Query("select t.name from TodoEntity t where t.name in :names")
+  List<String> findExistingNames(@Param("names") Collection<String> names);
+
+  /**
+   * Current version of the todo, read by every conditional request. Results are kept in the query
+   * cache until the todos table changes.
+   */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+  @Query("select t.version from TodoEntity t where t.id = :id")
+  Optional<Long> findVersionById(@Param("id") int id);
+
+  /** Page of todo ids and versions, reads the todos table only. */
+  @Query(
+      value = "select t.id as id, t.version as version from TodoEntity t",
+      countQuery = "select count(t) from TodoEntity t")
+  Page<TodoVersion> findVersions(Pageable pageable);
+
+  /**
+   * Page of todo summaries: the todos table is read for the columns of the projection type only,
+   * tasks are not joined.
+   */
+  <T extends TodoSummary> Page<T> findSummariesBy(Pageable pageable, Class<T> type);
+
+  /** Summary of the todo, see {@link #findSummariesBy(Pageable, Class)}. */
+  <T extends TodoSummary> Optional<T> findSummaryById(int id, Class<T> type);
+
+  /**
+   * Loads the todo for a change of its tasks with select for update and bumps its version right
+   * away, the row stays locked until the transaction ends. Unlike a bulk update statement, writes
+   * through the entity keep the second-level cache entries of the other todos.
+   */
+  @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+  Optional<TodoEntity> findForUpdateById(int id);
+
+  /** Todos with change numbers in (since, until], in change order. */
+  @Query(
+      "select t from TodoEntity t where t.changeSeq > :since and t.changeSeq <= :until"
+          + " order by t.changeSeq")
+  List<TodoEntity> findChanged(
+      @Param("since") long since, @Param("until") long until, Pageable pageable);
+
+  /** Loads the todo together with its tasks in a single select. */
+  @EntityGraph(attributePaths = "tasks")
+  Optional<TodoEntity> findWithTasksById(int id);
+
+  /**
+   * Streams all todos with their tasks in id order. Rows are fetched from the database in chunks
+   * of the fetch size, the stream must be consumed and closed within a transaction. Callers turn
+   * the second-level cache off for the session, a full scan would only push out the entries in use.
+   */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("select t from TodoEntity t left join fetch t.tasks order by t.id")
+  Stream<TodoEntity> streamAllWithTasks();
+
+  /**
+   * Deletes the todo without loading it, tasks must be removed beforehand. Like every bulk statement
+   * it evicts the whole todos region of the second-level cache.
+   */
+  @Modifying
+  @Query("delete from TodoEntity t where t.id = :id")
+  int deleteTodoById(@Param("id") int id);
+
+  /** Keyset page ordered by id: todos following the todo with the given id. */
+  List<TodoEntity> findByIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+
+  /** Keyset page of todo summaries ordered by id, see {@link #findSummariesBy(Pageable, Class)}. */
+  <T extends TodoSummary> List<T> findSummariesByIdGreaterThanOrderByIdAsc(
+      int id, Pageable pageable, Class<T> type);
+
+  /** Keyset page ordered by name and id: todos following the given (name, id) pair. */
+  @Query(
+      "select t from TodoEntity t where t.name > :name or (t.name = :name and t.id > :id)"
+          + " order by t.name asc, t.id asc")
+  List<TodoEntity> findAfterName(
+      @Param("name") String name, @Param("id") int id, Pageable pageable);
+
+  /**
+   * Keyset page of todo summaries ordered by name and id, see {@link #findAfterName(String, int,
+   * Pageable)}. The name is passed twice, once per condition.
+   */
+  <T extends TodoSummary> List<T> findSummariesByNameGreaterThanOrNameAndIdGreaterThanOrderByNameAscIdAsc(
+      String name, String sameName, int id, Pageable pageable, Class<T> type);
 }
@@ -0,0 +1,61 @@
+package com.example.todolist.repository;
+
+import com.example.todolist.entity.TodoRow;
+import com.example.todolist.model.TodoVersion;
+import java.util.Collection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** Reactive counterpart of {@link TodoRepositoryJPA}, used by the "reactive" profile. */
+@Repository
+public interface TodoRepositoryR2DBC extends R2dbcRepository<TodoRow, Integer> {
+  Flux<TodoRow> findAllBy(Pageable pageable);
+
+  /** Ids and versions of the page, without the names and descriptions. */
+  Flux<TodoVersion> findVersionsBy(Pageable pageable);
+
+  @Query("SELECT version FROM todos WHERE todo_id = :id")
+  Mono<Long> findVersionById(@Param("id") int id);
+
+  /** Bumps the todo version when its tasks change, returns 0 if there is no such todo. */
+  @Modifying
+  @Query("UPDATE todos SET version = version + 1 WHERE todo_id = :id")
+  Mono<Integer> incrementVersion(@Param("id") int id);
+
+  /**
+   * Sets the change number of the todo, the last statement of a change: see {@link
+   * IdSequencesR2DBC#nextChangeSeq(int)}. The version is left alone.
+   */
+  @Modifying
+  @Query("UPDATE todos SET change_seq = :changeSeq WHERE todo_id = :id")
+  Mono<Integer> updateChangeSeq(@Param("id") int id, @Param("changeSeq") long changeSeq);
+
+  /** Marks the todo as deleted for delta syncs, see TodoTombstoneEntity. */
+  @Modifying
+  @Query("INSERT INTO todo_tombstones (todo_id, change_seq) VALUES (:id, :changeSeq)")
+  Mono<Integer> insertTombstone(@Param("id") int id, @Param("changeSeq") long changeSeq);
+
+  /** Names among the given ones that are already taken. */
+  @Query("SELECT name FROM todos WHERE name IN (:names)")
+  Flux<String> findExistingNames(@Param("names") Collection<String> names);
+
+  @Modifying
+  @Query("DELETE FROM todos WHERE todo_id = :id")
+  Mono<Integer> deleteTodoById(@Param("id") int id);
+
+  /** Keyset page ordered by id: todos following the todo with the given id. */
+  Flux<TodoRow> findByIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+
+  /** Keyset page ordered by name and id: todos following the given (name, id) pair. */
+  @Query(
+      "SELECT * FROM todos WHERE name > :name OR (name = :name AND todo_id > :id)"
+          + " ORDER BY name ASC, todo_id ASC LIMIT :limit")
+  Flux<TodoRow> findAfterName(
+      @Param("name") String name, @Param("id") int id, @Param("limit") int limit);
+}
@@ -0,0 +1,89 @@
+package com.example.todolist.repository;
+
+import com.example.todolist.entity.TodoTombstoneEntity;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.web.bind.annotation.CrossOrigin;
+
+/**
+ * Tombstones of deleted todos and the global change sequence of delta syncs. The sequence is the
+ * "changes" row of id_sequences, incremented by the writing transaction itself: the row stays
+ * locked until the transaction ends, so change numbers are committed in increasing order and a
+ * sync never misses a change committed late with a lower number.
+ *
+ * <p>The price of this global order is that all writes are serialized on that row, from the
+ * reservation to the commit. Writers therefore reserve their number as late as they can, once
+ * their other statements are flushed: the lock is then held for the stamp of the number and the
+ * commit only. Above all it is never held while the id generator, which shares id_sequences, takes
+ * a second pooled connection to allocate an id block, that would let writers exhaust the pool.
+ *
+ * <p>Native statements name the tables they touch (query spaces): Hibernate then flushes and
+ * invalidates only what depends on those tables, instead of flushing the session before and
+ * evicting every second-level cache region and cached query after each of them.
+ */
+@CrossOrigin(origins = "http://localhost:4200")
+public interface TombstoneRepositoryJPA extends JpaRepository<TodoTombstoneEntity, Integer> {
+  String CHANGES_SEQUENCE = "changes";
+
+  /**
+   * Reserves the next change numbers
+   *
+   * @param count - number of changes to be made
+   * @return - last reserved number, the reserved ones are the count numbers up to it
+   */
+  default long nextChangeSeq(int count) {
+    if (incrementChangeSeq(count) == 0) {
+      // first change ever made in this database
+      insertChangeSeq(count);
+    }
+    return findChangeSeq().orElseThrow();
+  }
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "id_sequences"))
+  @Modifying
+  @Query(
+      value =
+          "update id_sequences set next_val = next_val + :count"
+              + " where sequence_name = '" + CHANGES_SEQUENCE + "'",
+      nativeQuery = true)
+  int incrementChangeSeq(@Param("count") int count);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "id_sequences"))
+  @Modifying
+  @Query(
+      value =
+          "insert into id_sequences (sequence_name, next_val)"
+              + " values ('" + CHANGES_SEQUENCE + "', :count)",
+      nativeQuery = true)
+  int insertChangeSeq(@Param("count") int count);
+
+  /** Number of the last committed change, empty if nothing has changed yet. */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "id_sequences"))
+  @Query(
+      value = "select next_val from id_sequences where sequence_name = '" + CHANGES_SEQUENCE + "'",
+      nativeQuery = true)
+  Optional<Long> findChangeSeq();
+
+  /** Inserts the tombstone without the select save() would issue first for an assigned id. */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "todo_tombstones"))
+  @Modifying
+  @Query(
+      value = "insert into todo_tombstones (todo_id, change_seq) values (:todoId, :changeSeq)",
+      nativeQuery = true)
+  int insertTombstone(@Param("todoId") int todoId, @Param("changeSeq") long changeSeq);
+
+  /** Tombstones with change numbers in (since, until], in change order. */
+  @Query(
+      "select t from TodoTombstoneEntity t where t.changeSeq > :since and t.changeSeq <= :until"
+          + " order by t.changeSeq")
+  List<TodoTombstoneEntity> findChanged(
+      @Param("since") long since, @Param("until") long until, Pageable pageable);
+}
@@ -0,0 +1,116 @@
+package com.example.todolist.service;
+
+import com.example.todolist.properties.MainProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caps the number of requests served at once, so that requests are refused right away when the
+ * database can't keep up instead of queueing for a connection until they time out.
+ *
+ * <p>The cap adapts to the connection pool. The mean time connections were waited for since the
+ * previous check is read from the Hikari metrics every {@link #CHECK_INTERVAL}: while it exceeds
+ * "main.poolWaitThreshold" the cap is cut by a quarter, down to "main.minConcurrentRequests".
+ * Otherwise, if requests were refused, it grows by a tenth up to "main.maxConcurrentRequests".
+ */
+@Service
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ConcurrencyLimiter {
+  /** Gauge of the current cap. */
+  public static final String LIMIT_GAUGE = "todos.requests.limit";
+  /** Gauge of the requests being served. */
+  public static final String IN_FLIGHT_GAUGE = "todos.requests.in.flight";
+
+  static final String POOL_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+  static final Duration CHECK_INTERVAL = Duration.ofMillis(250);
+
+  private record PoolSample(long count, double totalNanos) {}
+
+  @NonNull MeterRegistry meterRegistry;
+  int minLimit;
+  int maxLimit;
+  long poolWaitThreshold;
+  AtomicInteger inFlight = new AtomicInteger();
+  AtomicInteger limit;
+  // set when a request is refused, cleared by every check
+  AtomicBoolean limitReached = new AtomicBoolean();
+  AtomicLong nextCheck;
+  AtomicReference<PoolSample> lastSample = new AtomicReference<>(new PoolSample(0, 0));
+
+  public ConcurrencyLimiter(
+      @NonNull MeterRegistry meterRegistry, @NonNull MainProperties properties) {
+    this.meterRegistry = meterRegistry;
+    minLimit = properties.getMinConcurrentRequests();
+    maxLimit = Math.max(minLimit, properties.getMaxConcurrentRequests());
+    poolWaitThreshold = properties.getPoolWaitThreshold().toNanos();
+    limit = new AtomicInteger(maxLimit);
+    nextCheck = new AtomicLong(System.nanoTime() + CHECK_INTERVAL.toNanos());
+    Gauge.builder(LIMIT_GAUGE, limit, AtomicInteger::get).register(meterRegistry);
+    Gauge.builder(IN_FLIGHT_GAUGE, inFlight, AtomicInteger::get).register(meterRegistry);
+  }
+
+  /** Admits a request unless the cap is reached, an admitted request must be released */
+  public boolean tryAcquire() {
+    return tryAcquire(System.nanoTime());
+  }
+
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return limit.get();
+  }
+
+  boolean tryAcquire(long now) {
+    long next = nextCheck.get();
+    if (now - next >= 0 && nextCheck.compareAndSet(next, now + CHECK_INTERVAL.toNanos())) {
+      adjustLimit();
+    }
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.get()) {
+        limitReached.set(true);
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void adjustLimit() {
+    boolean reached = limitReached.getAndSet(false);
+    if (poolWait() > poolWaitThreshold) {
+      limit.updateAndGet(current -> Math.max(minLimit, current - Math.max(1, current / 4)));
+    } else if (reached) {
+      limit.updateAndGet(current -> Math.min(maxLimit, current + Math.max(1, current / 10)));
+    }
+  }
+
+  /** Mean nanoseconds a connection was waited for since the previous check */
+  private double poolWait() {
+    long count = 0;
+    double totalNanos = 0;
+    for (Timer timer : meterRegistry.find(POOL_ACQUIRE_TIMER).timers()) {
+      count += timer.count();
+      totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+    }
+    PoolSample previous = lastSample.getAndSet(new PoolSample(count, totalNanos));
+    long acquired = count - previous.count();
+    return acquired > 0 ? (totalNanos - previous.totalNanos()) / acquired : 0;
+  }
+}
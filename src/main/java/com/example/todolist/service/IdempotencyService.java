@@ -0,0 +1,250 @@
+package com.example.todolist.service;
+
+import com.example.todolist.model.exceptions.IdempotencyKeyReusedException;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.IdempotencyKeyRepositoryJPA;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executes requests sent with an Idempotency-Key header once, so that a client can retry a
+ * request that timed out without creating the todo or the task twice.
+ *
+ * <p>The response of the first request with a key is returned to its retries for
+ * main.idempotencyKeyTtl. A retry arriving while the first request still runs waits for its
+ * outcome, errors included, instead of executing it again. Only responses are kept: a request
+ * that failed is executed again by its next retry. Responses are kept in a bounded cache and, if
+ * main.idempotencyJdbc is set, in the idempotency_keys table too, where they survive restarts and
+ * are found by the other instances. Duplicates running at the same time on different instances
+ * are both executed.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdempotencyService {
+  /** Header carrying the key the client chose for the request. */
+  public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+  // expired rows are ignored by lookups and deleted at most this often
+  private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+
+  @NonNull IdempotencyKeyRepositoryJPA repository;
+  @NonNull ObjectMapper objectMapper;
+  TransactionTemplate transaction;
+  Duration ttl;
+  boolean jdbc;
+  Cache<String, StoredResponse> responses;
+  // requests being executed, by key
+  Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+  AtomicLong nextPurge = new AtomicLong();
+
+  private record StoredResponse(String fingerprint, Object body, Instant createdAt) {}
+
+  public IdempotencyService(
+      @NonNull IdempotencyKeyRepositoryJPA repository,
+      @NonNull ObjectMapper objectMapper,
+      @NonNull PlatformTransactionManager transactionManager,
+      @NonNull MainProperties properties) {
+    this.repository = repository;
+    this.objectMapper = objectMapper;
+    transaction = new TransactionTemplate(transactionManager);
+    ttl = properties.getIdempotencyKeyTtl();
+    jdbc = properties.isIdempotencyJdbc();
+    responses =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getIdempotencyCacheSize())
+            .expireAfter(new ResponseExpiry(ttl))
+            .build();
+  }
+
+  /** Expires a response read from the table when it would have expired in the table */
+  private record ResponseExpiry(Duration ttl) implements Expiry<String, StoredResponse> {
+    @Override
+    public long expireAfterCreate(String key, StoredResponse stored, long currentTime) {
+      return Duration.between(Instant.now(), stored.createdAt().plus(ttl)).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, StoredResponse stored, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, stored, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String key, StoredResponse stored, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+  /**
+   * Executes the request unless a request with the same key was executed already
+   *
+   * @param key - Idempotency-Key of the request, the request is always executed if null
+   * @param scope - endpoint the request is sent to, the same key may be used for other endpoints
+   * @param request - request body, the retries must send the same one
+   * @param type - response type
+   * @param action - executes the request
+   * @return - response of the first request with the key
+   */
+  public <T> T execute(
+      String key,
+      @NonNull String scope,
+      @NonNull Object request,
+      @NonNull Class<T> type,
+      @NonNull Supplier<T> action) {
+    if (key == null) {
+      return action.get();
+    }
+    String scopedKey = scope + " " + key;
+    String fingerprint = fingerprint(request);
+    StoredResponse stored = lookup(scopedKey, type);
+    if (stored == null) {
+      CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+      CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, response);
+      stored =
+          running != null
+              ? await(running)
+              : executeOnce(scopedKey, fingerprint, type, action, response);
+    }
+    if (!stored.fingerprint().equals(fingerprint)) {
+      throw new IdempotencyKeyReusedException(key);
+    }
+    return type.cast(stored.body());
+  }
+
+  private <T> StoredResponse executeOnce(
+      String scopedKey,
+      String fingerprint,
+      Class<T> type,
+      Supplier<T> action,
+      CompletableFuture<StoredResponse> response) {
+    try {
+      // the first request may have been stored between the lookup and the registration
+      StoredResponse stored = lookup(scopedKey, type);
+      if (stored == null) {
+        stored = new StoredResponse(fingerprint, action.get(), Instant.now());
+        store(scopedKey, stored);
+      }
+      response.complete(stored);
+      return stored;
+    } catch (RuntimeException | Error e) {
+      response.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(scopedKey, response);
+    }
+  }
+
+  private StoredResponse lookup(String scopedKey, Class<?> type) {
+    StoredResponse stored = responses.getIfPresent(scopedKey);
+    if (stored == null && jdbc) {
+      Instant expired = Instant.now().minus(ttl);
+      stored =
+          repository
+              .findById(scopedKey)
+              .filter(entity -> entity.getCreatedAt().isAfter(expired))
+              .map(
+                  entity ->
+                      new StoredResponse(
+                          entity.getFingerprint(),
+                          read(entity.getResponse(), type),
+                          entity.getCreatedAt()))
+              .orElse(null);
+      if (stored != null) {
+        responses.put(scopedKey, stored);
+      }
+    }
+    return stored;
+  }
+
+  private void store(String scopedKey, StoredResponse stored) {
+    responses.put(scopedKey, stored);
+    if (!jdbc) {
+      return;
+    }
+    String response = write(stored.body());
+    try {
+      transaction.executeWithoutResult(
+          status -> {
+            purgeExpired(stored.createdAt());
+            repository.insertKey(scopedKey, stored.fingerprint(), response, stored.createdAt());
+          });
+    } catch (DataAccessException e) {
+      // the request is committed already, its retries are still answered by this instance
+      log.warn("Idempotency key is not stored: {}", scopedKey, e);
+    }
+  }
+
+  private void purgeExpired(Instant now) {
+    long next = nextPurge.get();
+    if (now.toEpochMilli() >= next
+        && nextPurge.compareAndSet(next, now.plus(PURGE_INTERVAL).toEpochMilli())) {
+      repository.deleteCreatedBefore(now.minus(ttl));
+    }
+  }
+
+  /** Waits for the request being executed, its error is thrown to the retry as well */
+  private static StoredResponse await(CompletableFuture<StoredResponse> response) {
+    try {
+      return response.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private String fingerprint(Object request) {
+    try {
+      return HexFormat.of()
+          .formatHex(
+              MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Request can't be fingerprinted", e);
+    }
+  }
+
+  private String write(Object body) {
+    try {
+      return objectMapper.writeValueAsString(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Response can't be stored", e);
+    }
+  }
+
+  private Object read(String response, Class<?> type) {
+    try {
+      return objectMapper.readValue(response, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Stored response can't be read", e);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.example.todolist.service;
+
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limits the request rate of every client with a token bucket per client and budget, so a single
+ * client sending too many requests can't take the database pool from the others. Reads and writes
+ * are charged to separate budgets, "main.readRatePerSecond" and "main.writeRatePerSecond".
+ *
+ * <p>A bucket left idle is full after its refill time, so it is dropped then and created full again
+ * on the next request. Buckets of at most "main.rateLimitClients" clients are kept.
+ */
+@Service
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RateLimiter {
+  /** Budget a request is charged to */
+  public enum Budget {
+    READ,
+    WRITE
+  }
+
+  private record BucketKey(String client, Budget budget) {}
+
+  @NonNull MainProperties properties;
+  Cache<BucketKey, TokenBucket> buckets;
+
+  public RateLimiter(@NonNull MainProperties properties) {
+    this.properties = properties;
+    long now = System.nanoTime();
+    Duration idle =
+        max(
+            newBucket(Budget.READ, now).refillTime(),
+            newBucket(Budget.WRITE, now).refillTime());
+    buckets =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getRateLimitClients())
+            .expireAfterAccess(idle)
+            .build();
+  }
+
+  /**
+   * Takes a token from the bucket of the client
+   *
+   * @param client - API key or address of the client
+   * @param budget - budget the request is charged to
+   * @return - 0 if the request is allowed, otherwise nanoseconds until the client may retry
+   */
+  public long tryAcquire(@NonNull String client, @NonNull Budget budget) {
+    long now = System.nanoTime();
+    return buckets
+        .get(new BucketKey(client, budget), key -> newBucket(key.budget(), now))
+        .tryAcquire(now);
+  }
+
+  private TokenBucket newBucket(Budget budget, long now) {
+    return budget == Budget.READ
+        ? new TokenBucket(properties.getReadRatePerSecond(), properties.getReadBurst(), now)
+        : new TokenBucket(properties.getWriteRatePerSecond(), properties.getWriteBurst(), now);
+  }
+
+  private static Duration max(Duration first, Duration second) {
+    return first.compareTo(second) >= 0 ? first : second;
+  }
+}
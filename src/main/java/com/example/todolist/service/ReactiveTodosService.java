@@ -0,0 +1,417 @@
+package com.example.todolist.service;
+
+import com.example.todolist.entity.TaskRow;
+import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.entity.TodoRow;
+import com.example.todolist.model.BulkItemResult;
+import com.example.todolist.model.BulkResult;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.TodoVersion;
+import com.example.todolist.model.exceptions.InvalidRequestException;
+import com.example.todolist.model.exceptions.NoSuchTaskFoundException;
+import com.example.todolist.model.exceptions.TaskAlreadyExistsException;
+import com.example.todolist.model.exceptions.NoSuchTodoFoundException;
+import com.example.todolist.model.exceptions.TodoAlreadyExistsException;
+import com.example.todolist.model.exceptions.TodoVersionMismatchException;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.IdSequencesR2DBC;
+import com.example.todolist.repository.TaskRepositoryR2DBC;
+import com.example.todolist.repository.TodoRepositoryR2DBC;
+import com.example.todolist.util.CursorCodec;
+import com.example.todolist.util.TodoRowMapper;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link TodosService} for the "reactive" profile: the same operations
+ * and errors, over R2DBC repositories. Tasks are not mapped as a relation, they are queried for a
+ * whole page of todos at once.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReactiveTodosService {
+  // keeps IN lists of the name check well below database parameter limits
+  private static final int NAME_CHECK_CHUNK = 1000;
+  // exported todos are completed with their tasks this many at a time
+  private static final int EXPORT_CHUNK = 100;
+
+  @NonNull TodoRepositoryR2DBC todoRepository;
+  @NonNull TaskRepositoryR2DBC taskRepository;
+  @NonNull IdSequencesR2DBC idSequences;
+  @NonNull R2dbcEntityTemplate template;
+  @NonNull ValidationService validation;
+  @NonNull MainProperties properties;
+
+  /**
+   * Returns one page of todos
+   *
+   * @see TodosService#getTodos(int, Integer, String)
+   */
+  @Transactional(readOnly = true)
+  public Mono<Page<TodoModel>> getTodos(int page, Integer size, String sort) {
+    return pageRequest(page, size, sort)
+        .flatMap(
+            pageable ->
+                todoRepository
+                    .findAllBy(pageable)
+                    .collectList()
+                    .flatMap(this::withTasks)
+                    .flatMap(todos -> todoRepository.count().map(total -> page(todos, pageable, total))));
+  }
+
+  /** @see TodosService#getTodosVersions(int, Integer, String) */
+  @Transactional(readOnly = true)
+  public Mono<Page<TodoVersion>> getTodosVersions(int page, Integer size, String sort) {
+    return pageRequest(page, size, sort)
+        .flatMap(
+            pageable ->
+                todoRepository
+                    .findVersionsBy(pageable)
+                    .collectList()
+                    .flatMap(todos -> todoRepository.count().map(total -> page(todos, pageable, total))));
+  }
+
+  /**
+   * Returns the slice of todos following the cursor
+   *
+   * @see TodosService#getTodosAfter(String, Integer)
+   */
+  @Transactional(readOnly = true)
+  public Mono<Slice<TodoModel>> getTodosAfter(@NonNull String after, Integer size) {
+    return Mono.fromCallable(() -> CursorCodec.decode(after))
+        .flatMap(
+            cursor -> {
+              int pageSize = pageSize(size);
+              // one extra row tells whether there is a next slice without a count query
+              Flux<TodoRow> rows =
+                  CursorCodec.NAME.equals(cursor.property())
+                      ? todoRepository.findAfterName(cursor.value(), cursor.id(), pageSize + 1)
+                      : todoRepository.findByIdGreaterThanOrderByIdAsc(
+                          cursor.id(), PageRequest.of(0, pageSize + 1));
+              return rows.collectList()
+                  .flatMap(
+                      found -> {
+                        boolean hasNext = found.size() > pageSize;
+                        return withTasks(hasNext ? found.subList(0, pageSize) : found)
+                            .map(
+                                todos -> {
+                                  Pageable pageable =
+                                      PageRequest.of(
+                                          0, pageSize, TodosService.toSort(cursor.property()));
+                                  Slice<TodoModel> slice = new SliceImpl<>(todos, pageable, hasNext);
+                                  return slice;
+                                });
+                      });
+            });
+  }
+
+  /**
+   * Streams every persisted todo in id order. The todos are read with one query and completed with
+   * their tasks chunk by chunk, only as fast as the client consumes them. It runs without a
+   * transaction: the task queries can't share the connection the todos are streamed from.
+   */
+  public Flux<TodoModel> exportTodos() {
+    return todoRepository
+        .findAll(Sort.by("id"))
+        .buffer(EXPORT_CHUNK)
+        .concatMap(this::withTasks)
+        .flatMapIterable(todos -> todos);
+  }
+
+  @Transactional(readOnly = true)
+  public Mono<TodoModel> getTodo(int id) {
+    return todoRepository
+        .findById(id)
+        .switchIfEmpty(Mono.error(() -> new NoSuchTodoFoundException(id)))
+        .flatMap(row -> withTasks(List.of(row)))
+        .map(todos -> todos.get(0));
+  }
+
+  @Transactional(readOnly = true)
+  public Mono<Long> getTodoVersion(int id) {
+    return todoRepository
+        .findVersionById(id)
+        .switchIfEmpty(Mono.error(() -> new NoSuchTodoFoundException(id)));
+  }
+
+  /**
+   * Creates the todo
+   *
+   * @see TodosService#createTodo(TodoModel)
+   */
+  @Transactional
+  public Mono<TodoModel> createTodo(@NonNull TodoModel newTodo) {
+    return Mono.fromRunnable(() -> validation.validateTodo(newTodo))
+        .then(Mono.defer(() -> insertTodo(newTodo)))
+        .flatMap(todo -> stampChange(todo.getId()).thenReturn(todo))
+        .onErrorMap(
+            DataIntegrityViolationException.class,
+            e -> translateNameViolation(e, newTodo.getName()));
+  }
+
+  /**
+   * Creates all the todos of the request in one transaction
+   *
+   * @see TodosService#createTodos(List)
+   */
+  @Transactional
+  public Mono<BulkResult> createTodos(@NonNull List<TodoModel> newTodos) {
+    if (newTodos.size() > properties.getMaxBulkSize()) {
+      return Mono.error(
+          new InvalidRequestException(
+              List.of("Too many todos in bulk request, max is " + properties.getMaxBulkSize())));
+    }
+    List<String> names = newTodos.stream().map(TodoModel::getName).distinct().toList();
+    return Flux.fromIterable(names)
+        .buffer(NAME_CHECK_CHUNK)
+        .concatMap(todoRepository::findExistingNames)
+        .collect(HashSet<String>::new, Set::add)
+        .flatMap(
+            takenNames ->
+                Flux.range(0, newTodos.size())
+                    .concatMap(index -> createItem(index, newTodos.get(index), takenNames))
+                    .collectList())
+        .flatMap(
+            items -> {
+              List<Integer> createdIds =
+                  items.stream().map(BulkItemResult::id).filter(Objects::nonNull).toList();
+              int created = createdIds.size();
+              return stampCreated(createdIds)
+                  .thenReturn(new BulkResult(created, newTodos.size() - created, items));
+            });
+  }
+
+  /**
+   * Replaces the todo and its tasks
+   *
+   * @see TodosService#updateTodo(TodoModel, Long)
+   */
+  @Transactional
+  public Mono<TodoModel> updateTodo(@NonNull TodoModel newTodo, Long expectedVersion) {
+    int id = newTodo.getId();
+    return todoRepository
+        .findVersionById(id)
+        .switchIfEmpty(Mono.error(() -> new NoSuchTodoFoundException(id)))
+        .flatMap(
+            version -> {
+              if (expectedVersion != null && !expectedVersion.equals(version)) {
+                return Mono.error(new TodoVersionMismatchException(id));
+              }
+              validation.validateTodo(newTodo);
+              // the change number is set by stampChange below. The update is conditional on the
+              // version, so a concurrent change fails it
+              TodoRow row =
+                  TodoRowMapper.toRow(newTodo.toBuilder().version(version).build()).toBuilder()
+                      .changeSeq(0L)
+                      .build();
+              return template.update(row);
+            })
+        .flatMap(
+            row ->
+                taskRepository
+                    .deleteAllByTodoId(id)
+                    .then(insertTasks(tasksOf(newTodo), id))
+                    .flatMap(tasks -> stampChange(id).thenReturn(TodoRowMapper.toModel(row, tasks))))
+        .onErrorMap(
+            OptimisticLockingFailureException.class, e -> new TodoVersionMismatchException(id))
+        .onErrorMap(
+            DataIntegrityViolationException.class,
+            e -> translateNameViolation(e, newTodo.getName()));
+  }
+
+  @Transactional
+  public Mono<Void> deleteTodo(int id) {
+    return taskRepository
+        .deleteAllByTodoId(id)
+        .then(todoRepository.deleteTodoById(id))
+        // nothing is deleted for a missing todo, the row count doubles as the existence check
+        .filter(deleted -> deleted > 0)
+        .switchIfEmpty(Mono.error(() -> new NoSuchTodoFoundException(id)))
+        // the change number is taken last, see IdSequencesR2DBC.nextChangeSeq
+        .then(idSequences.nextChangeSeq(1))
+        .flatMap(changeSeq -> todoRepository.insertTombstone(id, changeSeq))
+        .then();
+  }
+
+  @Transactional
+  public Mono<TaskModel> createTask(@NonNull TaskModel newTask, int id) {
+    return todoRepository
+        .incrementVersion(id)
+        .filter(updated -> updated > 0)
+        .switchIfEmpty(Mono.error(() -> new NoSuchTodoFoundException(id)))
+        // checked once the version bump has locked the todo row
+        .then(taskRepository.existsByTodoIdAndName(id, newTask.getName()))
+        .filter(exists -> !exists)
+        .switchIfEmpty(Mono.error(() -> new TaskAlreadyExistsException(newTask.getName())))
+        .then(idSequences.nextId(IdSequencesR2DBC.TASKS))
+        .flatMap(taskId -> template.insert(TodoRowMapper.toTaskRow(newTask, taskId, id)))
+        .flatMap(task -> stampChange(id).thenReturn(TodoRowMapper.toTaskModel(task)));
+  }
+
+  @Transactional
+  public Mono<Void> deleteTask(String taskName, int id) {
+    return todoRepository
+        .incrementVersion(id)
+        .filter(updated -> updated > 0)
+        .switchIfEmpty(Mono.error(() -> new NoSuchTodoFoundException(id)))
+        .then(taskRepository.deleteByTodoIdAndName(id, taskName))
+        .filter(deleted -> deleted > 0)
+        .switchIfEmpty(Mono.error(() -> new NoSuchTaskFoundException(taskName)))
+        .then(stampChange(id));
+  }
+
+  private Mono<BulkItemResult> createItem(int index, TodoModel newTodo, Set<String> takenNames) {
+    ValidationService.Result validity = validation.check(newTodo);
+    if (!validity.isValid()) {
+      return Mono.just(
+          new BulkItemResult(
+              index,
+              newTodo.getName(),
+              HttpStatus.BAD_REQUEST.value(),
+              null,
+              new InvalidRequestException(validity.errors()).getMessage()));
+    }
+    if (!takenNames.add(newTodo.getName())) {
+      return Mono.just(
+          new BulkItemResult(
+              index,
+              newTodo.getName(),
+              HttpStatus.CONFLICT.value(),
+              null,
+              new TodoAlreadyExistsException(newTodo.getName()).getMessage()));
+    }
+    return insertTodo(newTodo)
+        .map(
+            todo ->
+                new BulkItemResult(
+                    index, todo.getName(), HttpStatus.CREATED.value(), todo.getId(), null));
+  }
+
+  /** Inserts the todo and its tasks, the change number is set afterwards by the caller */
+  private Mono<TodoModel> insertTodo(TodoModel newTodo) {
+    return idSequences
+        .nextId(IdSequencesR2DBC.TODOS)
+        .flatMap(
+            id ->
+                template.insert(
+                    TodoRowMapper.toRow(newTodo.toBuilder().id(id).build()).toBuilder()
+                        .changeSeq(0L)
+                        .build()))
+        .flatMap(
+            row ->
+                insertTasks(tasksOf(newTodo), row.getId())
+                    .map(tasks -> TodoRowMapper.toModel(row, tasks)));
+  }
+
+  /**
+   * Gives the changed todo the next change number, as the last statement of the change: the
+   * change sequence row stays locked from the reservation to the commit, see {@link
+   * IdSequencesR2DBC#nextChangeSeq(int)}
+   */
+  private Mono<Void> stampChange(int id) {
+    return idSequences
+        .nextChangeSeq(1)
+        .flatMap(changeSeq -> todoRepository.updateChangeSeq(id, changeSeq))
+        .then();
+  }
+
+  /**
+   * Gives the todos created by createTodos consecutive change numbers up to the last reserved one,
+   * in creation order, with one reservation for all of them
+   */
+  private Mono<Void> stampCreated(List<Integer> ids) {
+    if (ids.isEmpty()) {
+      return Mono.empty();
+    }
+    return idSequences
+        .nextChangeSeq(ids.size())
+        .flatMapMany(
+            last ->
+                Flux.range(0, ids.size())
+                    .concatMap(
+                        i -> todoRepository.updateChangeSeq(ids.get(i), last - ids.size() + i + 1)))
+        .then();
+  }
+
+  private Mono<List<TaskRow>> insertTasks(List<TaskModel> tasks, int todoId) {
+    return Flux.fromIterable(tasks)
+        .concatMap(
+            task ->
+                idSequences
+                    .nextId(IdSequencesR2DBC.TASKS)
+                    .flatMap(id -> template.insert(TodoRowMapper.toTaskRow(task, id, todoId))))
+        .collectList();
+  }
+
+  /** Completes the todos with their tasks, loaded with one query for all of them */
+  private Mono<List<TodoModel>> withTasks(List<TodoRow> rows) {
+    if (rows.isEmpty()) {
+      return Mono.just(List.of());
+    }
+    return taskRepository
+        .findByTodoIds(rows.stream().map(TodoRow::getId).toList())
+        .collectMultimap(TaskRow::getTodoId)
+        .map(
+            tasks ->
+                rows.stream()
+                    .map(row -> TodoRowMapper.toModel(row, tasks.getOrDefault(row.getId(), List.of())))
+                    .toList());
+  }
+
+  private static List<TaskModel> tasksOf(TodoModel todo) {
+    return todo.getTasks() == null ? List.of() : todo.getTasks();
+  }
+
+  /**
+   * Maps the violation of the todo name constraint to TodoAlreadyExistsException. R2DBC drivers
+   * don't report the constraint name separately, it is looked up in the driver message.
+   */
+  private static Throwable translateNameViolation(DataIntegrityViolationException e, String name) {
+    String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+    if (message != null && message.toLowerCase().contains(TodoEntity.NAME_CONSTRAINT)) {
+      return new TodoAlreadyExistsException(name);
+    }
+    return e;
+  }
+
+  private Mono<Pageable> pageRequest(int page, Integer size, String sort) {
+    return Mono.fromCallable(() -> PageRequest.of(page, pageSize(size), TodosService.toSort(sort)));
+  }
+
+  private static <T> Page<T> page(List<T> content, Pageable pageable, long total) {
+    return new PageImpl<>(content, pageable, total);
+  }
+
+  private int pageSize(Integer size) {
+    if (size == null) {
+      return properties.getDefaultPageSize();
+    }
+    return Math.min(size, properties.getMaxPageSize());
+  }
+}
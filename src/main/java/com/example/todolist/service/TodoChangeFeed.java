@@ -0,0 +1,163 @@
+package com.example.todolist.service;
+
+import com.example.todolist.model.TodoChange;
+import com.example.todolist.properties.MainProperties;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Fans the committed changes of {@link TodosService} out to the subscribers of the changes feed.
+ *
+ * <p>Every subscriber has its own bounded queue drained by its own virtual thread, so a slow
+ * client never holds up the request that made the change or the other subscribers. When the queue
+ * of a subscriber overflows, its backlog is replaced by a single resync event: the client reloads
+ * the todos instead of receiving every missed change. The most recent changes are kept in memory,
+ * so a client that reconnects with Last-Event-ID gets the ones it missed, or a resync if they are
+ * no longer kept.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TodoChangeFeed implements DisposableBean {
+  /** Receiver of the changes of one subscription, called from the delivery thread. */
+  @FunctionalInterface
+  public interface ChangeListener {
+    void onChange(TodoChange change) throws IOException;
+  }
+
+  public interface Subscription {
+    void cancel();
+  }
+
+  @NonNull MainProperties properties;
+  // guarded by this, like lastId
+  Deque<TodoChange> history = new ArrayDeque<>();
+  Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  ExecutorService executor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-feed-", 0).factory());
+  @NonFinal long lastId;
+
+  /** Numbers the change and queues it for every subscriber, once the transaction is committed */
+  @TransactionalEventListener
+  public synchronized void publish(@NonNull TodoChange change) {
+    TodoChange numbered = change.withId(++lastId);
+    history.addLast(numbered);
+    if (history.size() > properties.getChangeFeedHistorySize()) {
+      history.removeFirst();
+    }
+    subscribers.forEach(subscriber -> subscriber.offer(numbered));
+  }
+
+  /**
+   * Subscribes to the changes
+   *
+   * @param lastEventId - id of the last change the client has received, null for a new client
+   * @param listener - receiver of the changes
+   * @return - subscription to cancel when the client goes away
+   */
+  public synchronized Subscription subscribe(Long lastEventId, @NonNull ChangeListener listener) {
+    Subscriber subscriber = new Subscriber(listener);
+    if (lastEventId != null) {
+      long oldest = history.isEmpty() ? lastId + 1 : history.getFirst().id();
+      if (lastEventId >= oldest - 1 && lastEventId <= lastId) {
+        history.stream().filter(change -> change.id() > lastEventId).forEach(subscriber::offer);
+      } else {
+        // the missed changes are gone, or the id comes from before a restart
+        subscriber.offer(TodoChange.resync(lastId));
+      }
+    }
+    subscribers.add(subscriber);
+    return subscriber;
+  }
+
+  public int getSubscribersCount() {
+    return subscribers.size();
+  }
+
+  @Override
+  public void destroy() {
+    subscribers.forEach(Subscriber::cancel);
+    executor.shutdownNow();
+  }
+
+  @RequiredArgsConstructor
+  @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+  private class Subscriber implements Subscription {
+    ChangeListener listener;
+    // guarded by itself
+    Deque<TodoChange> queue = new ArrayDeque<>();
+    AtomicBoolean draining = new AtomicBoolean();
+    AtomicBoolean cancelled = new AtomicBoolean();
+
+    void offer(TodoChange change) {
+      synchronized (queue) {
+        if (queue.size() < properties.getChangeFeedBufferSize()) {
+          queue.addLast(change);
+        } else {
+          // the client doesn't keep up: the backlog is dropped and it is told to reload
+          queue.clear();
+          queue.addLast(TodoChange.resync(change.id()));
+        }
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled.set(true);
+      subscribers.remove(this);
+    }
+
+    private void schedule() {
+      if (!cancelled.get() && draining.compareAndSet(false, true)) {
+        executor.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      try {
+        TodoChange next;
+        while (!cancelled.get() && (next = poll()) != null) {
+          listener.onChange(next);
+        }
+      } catch (Exception e) {
+        // the client is gone or its connection is broken
+        cancel();
+      } finally {
+        draining.set(false);
+      }
+      // a change offered after the last poll but before the reset isn't left behind
+      if (!isEmpty()) {
+        schedule();
+      }
+    }
+
+    private TodoChange poll() {
+      synchronized (queue) {
+        return queue.pollFirst();
+      }
+    }
+
+    private boolean isEmpty() {
+      synchronized (queue) {
+        return queue.isEmpty();
+      }
+    }
+  }
+}
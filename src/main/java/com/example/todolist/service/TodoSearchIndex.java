@@ -0,0 +1,291 @@
+package com.example.todolist.service;
+
+import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.TodoRepositoryJPA;
+import com.example.todolist.util.TodoMapper;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Embedded Lucene index of todo and task names and descriptions, searched instead of scanning the
+ * todos with LIKE.
+ *
+ * <p>Every todo is one document and every task another one carrying the id of its todo, so a task
+ * is added or removed without re-reading the todo. A todo ranks by its best matching document.
+ * Updates are applied once the transaction commits and become searchable right away; the index is
+ * rebuilt from the database when the application starts, so it is never committed on every change.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TodoSearchIndex implements DisposableBean {
+  private static final String TODO_ID = "todo_id";
+  // todo documents are keyed by todo id, task documents by todo id and task name
+  private static final String KEY = "key";
+  private static final String NAME = "name";
+  private static final String DESCRIPTION = "description";
+  private static final String TASK_NAME = "task_name";
+  private static final String TASK_DESCRIPTION = "task_description";
+  // todo fields weigh more than task fields and names more than descriptions
+  private static final Map<String, Float> FIELD_WEIGHTS =
+      Map.of(NAME, 4f, DESCRIPTION, 2f, TASK_NAME, 2f, TASK_DESCRIPTION, 1f);
+  // a todo and its tasks are separate documents, so required and excluded terms, which hold per
+  // document, are not offered
+  private static final int QUERY_SYNTAX =
+      SimpleQueryParser.PHRASE_OPERATOR
+          | SimpleQueryParser.PREFIX_OPERATOR
+          | SimpleQueryParser.WHITESPACE_OPERATOR
+          | SimpleQueryParser.ESCAPE_OPERATOR;
+  // hits read per round while collecting distinct todos of a page
+  private static final int HITS_PER_ROUND = 100;
+
+  @NonNull TodoRepositoryJPA todoRepository;
+  @NonNull EntityManager entityManager;
+  TransactionTemplate readOnlyTransaction;
+  StandardAnalyzer analyzer = new StandardAnalyzer();
+  Directory directory;
+  IndexWriter writer;
+  SearcherManager searcherManager;
+
+  public TodoSearchIndex(
+      @NonNull TodoRepositoryJPA todoRepository,
+      @NonNull EntityManager entityManager,
+      @NonNull PlatformTransactionManager transactionManager,
+      @NonNull MainProperties properties)
+      throws IOException {
+    this.todoRepository = todoRepository;
+    this.entityManager = entityManager;
+    readOnlyTransaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction.setReadOnly(true);
+    String path = properties.getSearchIndexPath();
+    directory =
+        path == null || path.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(path));
+    writer =
+        new IndexWriter(
+            directory,
+            new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+    searcherManager = new SearcherManager(writer, null);
+  }
+
+  /**
+   * Returns the ids of the todos matching any of the query terms, best matches first. Terms are
+   * matched in any of the todo and task fields, "*" ends a prefix and quotes enclose a phrase.
+   *
+   * @param query - search terms
+   * @param offset - number of matching todos to skip
+   * @param limit - max number of ids to return
+   */
+  public List<Integer> search(@NonNull String query, int offset, int limit) {
+    Query parsed = new SimpleQueryParser(analyzer, FIELD_WEIGHTS, QUERY_SYNTAX).parse(query);
+    Set<Integer> ids = new LinkedHashSet<>();
+    try {
+      IndexSearcher searcher = searcherManager.acquire();
+      try {
+        TopDocs hits = searcher.search(parsed, HITS_PER_ROUND);
+        while (ids.size() < offset + limit && hits.scoreDocs.length > 0) {
+          for (ScoreDoc hit : hits.scoreDocs) {
+            // hits come best first, so a todo ranks by its best matching document
+            ids.add(Integer.parseInt(searcher.storedFields().document(hit.doc).get(TODO_ID)));
+          }
+          ScoreDoc last = hits.scoreDocs[hits.scoreDocs.length - 1];
+          hits = searcher.searchAfter(last, parsed, HITS_PER_ROUND);
+        }
+      } finally {
+        searcherManager.release(searcher);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return ids.stream().skip(offset).limit(limit).toList();
+  }
+
+  /** Indexes the todo and its tasks, replacing the previous state of the todo */
+  public void indexTodo(@NonNull TodoModel todo) {
+    List<Document> documents = documents(todo);
+    afterCommit(
+        writer -> writer.updateDocuments(new Term(TODO_ID, String.valueOf(todo.getId())), documents));
+  }
+
+  public void indexTask(int todoId, @NonNull TaskModel task) {
+    Document document = document(todoId, task);
+    afterCommit(writer -> writer.addDocument(document));
+  }
+
+  /** Removes all the tasks of the todo with the given name */
+  public void removeTask(int todoId, @NonNull String name) {
+    afterCommit(writer -> writer.deleteDocuments(new Term(KEY, taskKey(todoId, name))));
+  }
+
+  public void removeTodo(int todoId) {
+    afterCommit(writer -> writer.deleteDocuments(new Term(TODO_ID, String.valueOf(todoId))));
+  }
+
+  /**
+   * Rebuilds the index from the persisted todos. Todos are streamed and detached once indexed, like
+   * in TodosService.exportTodos, so the memory footprint doesn't depend on the number of todos.
+   */
+  public void rebuild() throws IOException {
+    writer.deleteAll();
+    readOnlyTransaction.executeWithoutResult(
+        status -> {
+          // the streamed todos are not put in the second-level cache
+          entityManager.setProperty(AvailableHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+          try (Stream<TodoEntity> todos = todoRepository.streamAllWithTasks()) {
+            Iterator<TodoEntity> iterator = todos.iterator();
+            while (iterator.hasNext()) {
+              TodoEntity todo = iterator.next();
+              writer.addDocuments(documents(TodoMapper.toModel(todo)));
+              entityManager.detach(todo);
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+    writer.commit();
+    searcherManager.maybeRefresh();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOnStartup() throws IOException {
+    try {
+      rebuild();
+    } catch (DataAccessException | PersistenceException e) {
+      // the rows are streamed lazily, so errors are not always translated by the repository. The
+      // application still serves the todos, searches find the ones changed from now on
+      log.warn("Search index is not rebuilt", e);
+    }
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    searcherManager.close();
+    writer.close();
+    directory.close();
+  }
+
+  @FunctionalInterface
+  private interface IndexUpdate {
+    void apply(IndexWriter writer) throws IOException;
+  }
+
+  /**
+   * Applies the update once the current transaction commits, the updates of one transaction are
+   * made searchable together. Without a transaction the update is applied at once.
+   */
+  private void afterCommit(IndexUpdate update) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      apply(List.of(update));
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    List<IndexUpdate> pending = (List<IndexUpdate>) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      List<IndexUpdate> updates = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, updates);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              apply(updates);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResource(TodoSearchIndex.this);
+            }
+          });
+      pending = updates;
+    }
+    pending.add(update);
+  }
+
+  private void apply(List<IndexUpdate> updates) {
+    try {
+      for (IndexUpdate update : updates) {
+        update.apply(writer);
+      }
+      searcherManager.maybeRefresh();
+    } catch (IOException e) {
+      // the change is committed already, the index catches up on the next rebuild
+      log.warn("Search index update failed", e);
+    }
+  }
+
+  private static List<Document> documents(TodoModel todo) {
+    List<Document> documents = new ArrayList<>();
+    Document document = new Document();
+    document.add(new StringField(TODO_ID, String.valueOf(todo.getId()), Field.Store.YES));
+    document.add(new StringField(KEY, String.valueOf(todo.getId()), Field.Store.NO));
+    document.add(new TextField(NAME, todo.getName(), Field.Store.NO));
+    if (todo.getDescription() != null) {
+      document.add(new TextField(DESCRIPTION, todo.getDescription(), Field.Store.NO));
+    }
+    documents.add(document);
+    if (todo.getTasks() != null) {
+      todo.getTasks().forEach(task -> documents.add(document(todo.getId(), task)));
+    }
+    return documents;
+  }
+
+  private static Document document(int todoId, TaskModel task) {
+    Document document = new Document();
+    document.add(new StringField(TODO_ID, String.valueOf(todoId), Field.Store.YES));
+    document.add(new StringField(KEY, taskKey(todoId, task.getName()), Field.Store.NO));
+    document.add(new TextField(TASK_NAME, task.getName(), Field.Store.NO));
+    if (task.getDescription() != null) {
+      document.add(new TextField(TASK_DESCRIPTION, task.getDescription(), Field.Store.NO));
+    }
+    return document;
+  }
+
+  private static String taskKey(int todoId, String name) {
+    return todoId + "\n" + name;
+  }
+}
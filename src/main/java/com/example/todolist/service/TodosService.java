@@ -1,92 +1,835 @@
 package com.example.todolist.service;
 
+import static com.example.todolist.config.CacheConfig.TODOS_CACHE;
+import static com.example.todolist.config.CacheConfig.TODO_CACHE;
+import static com.example.todolist.config.MetricsConfig.SERVICE_TIMER;
+
 import com.example.todolist.entity.TaskEntity;
 import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.entity.TodoTombstoneEntity;
+import com.example.todolist.model.BulkDeleteResult;
+import com.example.todolist.model.BulkItemResult;
+import com.example.todolist.model.BulkResult;
 import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TaskSummary;
+import com.example.todolist.model.TodoChange;
+import com.example.todolist.model.TodoFields;
 import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.TodoPatch;
+import com.example.todolist.model.TodoSummary;
+import com.example.todolist.model.TodoSync;
+import com.example.todolist.model.TodoVersion;
+import com.example.todolist.model.exceptions.InvalidRequestException;
 import com.example.todolist.model.exceptions.NoSuchTaskFoundException;
 import com.example.todolist.model.exceptions.NoSuchTodoFoundException;
+import com.example.todolist.model.exceptions.TaskAlreadyExistsException;
 import com.example.todolist.model.exceptions.TodoAlreadyExistsException;
+import com.example.todolist.model.exceptions.TodoVersionMismatchException;
 import com.example.todolist.repository.TaskRepositoryJPA;
+import com.example.todolist.properties.MainProperties;
 import com.example.todolist.repository.TodoRepositoryJPA;
+import com.example.todolist.repository.TombstoneRepositoryJPA;
+import com.example.todolist.util.CursorCodec;
 import com.example.todolist.util.TaskMapper;
 import com.example.todolist.util.TodoMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import lombok.AccessLevel;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Profile("!reactive")
+@Timed(SERVICE_TIMER)
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class TodosService {
+  private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "name", "description");
+  // keeps IN lists of the name check well below database parameter limits
+  private static final int NAME_CHECK_CHUNK = 1000;
+  // persisted todos are flushed and detached every this many items, a multiple of the JDBC batch
+  private static final int BULK_FLUSH_SIZE = 500;
+  private static final String STAMP_CREATED_SQL =
+      "update todos set change_seq = ? where todo_id = ?";
+
   @NonNull TodoRepositoryJPA todoRepository;
   @NonNull TaskRepositoryJPA taskRepository;
+  @NonNull TombstoneRepositoryJPA tombstoneRepository;
   @NonNull ValidationService validation;
+  @NonNull MainProperties properties;
+  @NonNull EntityManager entityManager;
+  // changes are delivered to TodoChangeFeed once the transaction commits
+  @NonNull ApplicationEventPublisher eventPublisher;
+  @NonNull TodoSearchIndex searchIndex;
+
+  /**
+   * Returns one page of todos
+   *
+   * @param page - zero-based page number
+   * @param size - requested page size, default one is used if null; capped by maxPageSize
+   * @param sort - sort expression in "property[,asc|desc]" format, sorted by id if null
+   * @throws InvalidRequestException - if the sort expression is not supported
+   */
+  @Transactional(readOnly = true)
+  @Cacheable(cacheNames = TODOS_CACHE, key = "{#page, #size, #sort}")
+  public Page<TodoModel> getTodos(int page, Integer size, String sort) {
+    return todoRepository
+        .findAll(PageRequest.of(page, pageSize(size), toSort(sort)))
+        .map(TodoMapper::toModel);
+  }
+
+  /**
+   * Returns one page of todos with the selected fields only. Only the needed columns are read and
+   * tasks are read by a second select if any of their fields is selected.
+   *
+   * @param fields - selected fields
+   * @see #getTodos(int, Integer, String)
+   */
+  @Transactional(readOnly = true)
+  @Cacheable(cacheNames = TODOS_CACHE, key = "{#page, #size, #sort, #fields}")
+  public Page<TodoModel> getTodos(int page, Integer size, String sort, @NonNull TodoFields fields) {
+    Page<? extends TodoSummary> summaries =
+        todoRepository.findSummariesBy(
+            PageRequest.of(page, pageSize(size), toSort(sort)), summaryType(fields));
+    return new PageImpl<>(
+        toSparseModels(summaries.getContent(), fields),
+        summaries.getPageable(),
+        summaries.getTotalElements());
+  }
+
+  /**
+   * Returns ids and versions of the todos of the page, without loading the todos themselves
+   *
+   * @see #getTodos(int, Integer, String)
+   */
+  @Transactional(readOnly = true)
+  public Page<TodoVersion> getTodosVersions(int page, Integer size, String sort) {
+    return todoRepository.findVersions(PageRequest.of(page, pageSize(size), toSort(sort)));
+  }
+
+  /**
+   * Returns the slice of todos following the cursor. Unlike offset pages it seeks by index, so
+   * the cost doesn't grow with the depth of the slice.
+   *
+   * @param after - cursor token returned with the previous page or slice
+   * @param size - requested slice size, default one is used if null; capped by maxPageSize
+   * @throws InvalidRequestException - if the cursor is malformed
+   */
+  @Transactional(readOnly = true)
+  @Cacheable(cacheNames = TODOS_CACHE, key = "{#after, #size}")
+  public Slice<TodoModel> getTodosAfter(@NonNull String after, Integer size) {
+    CursorCodec.Cursor cursor = CursorCodec.decode(after);
+    int pageSize = pageSize(size);
+    // one extra row tells whether there is a next slice without a count query
+    Pageable limit = PageRequest.of(0, pageSize + 1);
+    List<TodoEntity> entities =
+        CursorCodec.NAME.equals(cursor.property())
+            ? todoRepository.findAfterName(cursor.value(), cursor.id(), limit)
+            : todoRepository.findByIdGreaterThanOrderByIdAsc(cursor.id(), limit);
+    boolean hasNext = entities.size() > pageSize;
+    List<TodoModel> todos =
+        TodoMapper.toModels(hasNext ? entities.subList(0, pageSize) : entities);
+    return new SliceImpl<>(todos, PageRequest.of(0, pageSize, toSort(cursor.property())), hasNext);
+  }
+
+  /**
+   * Returns the slice of todos following the cursor with the selected fields only
+   *
+   * @see #getTodosAfter(String, Integer)
+   * @see #getTodos(int, Integer, String, TodoFields)
+   */
+  @Transactional(readOnly = true)
+  @Cacheable(cacheNames = TODOS_CACHE, key = "{#after, #size, #fields}")
+  public Slice<TodoModel> getTodosAfter(@NonNull String after, Integer size, @NonNull TodoFields fields) {
+    CursorCodec.Cursor cursor = CursorCodec.decode(after);
+    int pageSize = pageSize(size);
+    Pageable limit = PageRequest.of(0, pageSize + 1);
+    Class<? extends TodoSummary> type = summaryType(fields);
+    List<? extends TodoSummary> summaries =
+        CursorCodec.NAME.equals(cursor.property())
+            ? todoRepository.findSummariesByNameGreaterThanOrNameAndIdGreaterThanOrderByNameAscIdAsc(
+                cursor.value(), cursor.value(), cursor.id(), limit, type)
+            : todoRepository.findSummariesByIdGreaterThanOrderByIdAsc(cursor.id(), limit, type);
+    boolean hasNext = summaries.size() > pageSize;
+    List<TodoModel> todos =
+        toSparseModels(hasNext ? summaries.subList(0, pageSize) : summaries, fields);
+    return new SliceImpl<>(todos, PageRequest.of(0, pageSize, toSort(cursor.property())), hasNext);
+  }
+
+  /**
+   * Passes every persisted todo to the consumer one by one, in id order. Each todo is detached
+   * once consumed, so the memory footprint doesn't depend on the number of todos.
+   *
+   * @param consumer - receiver of the todos
+   */
+  @Transactional(readOnly = true)
+  public void exportTodos(@NonNull Consumer<TodoModel> consumer) {
+    // the streamed todos are not put in the second-level cache
+    entityManager.setProperty(AvailableHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+    try (Stream<TodoEntity> entities = todoRepository.streamAllWithTasks()) {
+      entities.forEach(
+          entity -> {
+            consumer.accept(TodoMapper.toModel(entity));
+            entityManager.detach(entity);
+          });
+    }
+  }
 
-  public List<TodoModel> getTodos() {
-    return TodoMapper.toModels(todoRepository.findAll());
+  /**
+   * Returns one page of the todos matching the search query, best matches first
+   *
+   * @param query - search terms matched in todo and task names and descriptions
+   * @param page - zero-based page number
+   * @param size - requested page size, default one is used if null; capped by maxPageSize
+   * @throws InvalidRequestException - if the page starts past the largest int offset
+   */
+  @Transactional(readOnly = true)
+  public Slice<TodoModel> searchTodos(@NonNull String query, int page, Integer size) {
+    int pageSize = pageSize(size);
+    int offset;
+    try {
+      offset = Math.multiplyExact(page, pageSize);
+    } catch (ArithmeticException e) {
+      throw new InvalidRequestException(List.of("Page number is too large: " + page));
+    }
+    // one extra id tells whether there is a next page without counting the matches
+    List<Integer> ids = searchIndex.search(query, offset, pageSize + 1);
+    boolean hasNext = ids.size() > pageSize;
+    List<Integer> pageIds = hasNext ? ids.subList(0, pageSize) : ids;
+    Map<Integer, TodoEntity> entities = new HashMap<>();
+    todoRepository.findAllById(pageIds).forEach(entity -> entities.put(entity.getId(), entity));
+    // todos deleted since they were found are left out
+    List<TodoEntity> ranked = pageIds.stream().map(entities::get).filter(Objects::nonNull).toList();
+    return new SliceImpl<>(TodoMapper.toModels(ranked), PageRequest.of(page, pageSize), hasNext);
+  }
+
+  /**
+   * Returns the todos changed and deleted since the given change number, oldest changes first
+   *
+   * @param since - change number returned by the previous sync, null for the first sync
+   * @param size - max number of changes, default page size is used if null; capped by maxPageSize
+   */
+  @Transactional(readOnly = true)
+  public TodoSync getChanges(Long since, Integer size) {
+    // read before the changes: whatever is committed up to this number is visible to the
+    // selects below, later changes get higher numbers and are left to the next sync
+    long until = tombstoneRepository.findChangeSeq().orElse(0L);
+    long from = since == null ? -1 : since;
+    int limit = pageSize(size);
+    // one extra row of each kind tells whether there are more changes
+    Pageable page = PageRequest.of(0, limit + 1);
+    List<TodoEntity> todos = todoRepository.findChanged(from, until, page);
+    List<TodoTombstoneEntity> tombstones = tombstoneRepository.findChanged(from, until, page);
+    List<TodoEntity> changed = new ArrayList<>();
+    List<Integer> deleted = new ArrayList<>();
+    long last = from;
+    int t = 0;
+    int d = 0;
+    while (changed.size() + deleted.size() < limit && (t < todos.size() || d < tombstones.size())) {
+      if (d == tombstones.size()
+          || (t < todos.size() && todos.get(t).getChangeSeq() < tombstones.get(d).getChangeSeq())) {
+        changed.add(todos.get(t));
+        last = todos.get(t++).getChangeSeq();
+      } else {
+        deleted.add(tombstones.get(d).getTodoId());
+        last = tombstones.get(d++).getChangeSeq();
+      }
+    }
+    boolean more = t < todos.size() || d < tombstones.size();
+    return new TodoSync(TodoMapper.toModels(changed), deleted, more ? last : until, more);
   }
 
+  @Transactional(readOnly = true)
+  @Cacheable(cacheNames = TODO_CACHE, key = "#id")
   public TodoModel getTodo(int id) {
     return TodoMapper.toModel(
-        todoRepository.findById(id).orElseThrow(() -> new NoSuchTodoFoundException(id)));
+        todoRepository.findWithTasksById(id).orElseThrow(() -> new NoSuchTodoFoundException(id)));
   }
 
+  /**
+   * Returns the todo with the selected fields only, see {@link #getTodos(int, Integer, String,
+   * TodoFields)}. It is not cached, entries of the todo cache are evicted by todo id only.
+   */
+  @Transactional(readOnly = true)
+  public TodoModel getTodo(int id, @NonNull TodoFields fields) {
+    TodoSummary summary =
+        todoRepository
+            .findSummaryById(id, summaryType(fields))
+            .orElseThrow(() -> new NoSuchTodoFoundException(id));
+    return toSparseModels(List.of(summary), fields).get(0);
+  }
+
+  @Transactional(readOnly = true)
+  public long getTodoVersion(int id) {
+    return todoRepository.findVersionById(id).orElseThrow(() -> new NoSuchTodoFoundException(id));
+  }
+
+  /**
+   * Creates the todo. Name uniqueness is enforced by the unique constraint on todos.name, so two
+   * concurrent requests with the same name can't both succeed.
+   *
+   * @throws TodoAlreadyExistsException - if a todo with this name already exists
+   */
   @Transactional
+  @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
   public TodoModel createTodo(TodoModel newTodo) {
     validation.validateTodo(newTodo);
-    if (todoRepository.findByName(newTodo.getName()).isPresent()) {
-      throw new TodoAlreadyExistsException(newTodo.getName());
-    }
     newTodo.setId(0);
-    return TodoMapper.toModel(todoRepository.save(TodoMapper.toEntity(newTodo)));
+    TodoEntity entity;
+    try {
+      entity = todoRepository.saveAndFlush(TodoMapper.toEntity(newTodo));
+    } catch (DataIntegrityViolationException e) {
+      throw translateNameViolation(e, newTodo.getName());
+    }
+    stampChange(entity);
+    TodoModel todo = TodoMapper.toModel(entity);
+    eventPublisher.publishEvent(TodoChange.todoCreated(todo.getId(), todo.getVersion()));
+    searchIndex.indexTodo(todo);
+    return todo;
   }
 
+  /**
+   * Creates all the todos of the request in one transaction. Names are checked with one query
+   * per thousand todos, rows are inserted in JDBC batches and the change numbers written by batched
+   * updates afterwards. The created todos are not put in the second-level cache.
+   *
+   * @param newTodos - todos to create
+   * @return - per-item outcomes, invalid todos (400) and todos whose name is taken or repeated in
+   *     the request (409) are skipped
+   * @throws InvalidRequestException - if the request is too large
+   */
   @Transactional
-  public TodoModel updateTodo(@NonNull TodoModel newTodo) {
-    todoRepository
-        .findById(newTodo.getId())
-        .orElseThrow(() -> new NoSuchTodoFoundException(newTodo.getId()));
+  @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+  public BulkResult createTodos(@NonNull List<TodoModel> newTodos) {
+    checkBulkSize(newTodos.size(), "todos");
+    Set<String> takenNames = new HashSet<>();
+    List<String> names = newTodos.stream().map(TodoModel::getName).distinct().toList();
+    for (int from = 0; from < names.size(); from += NAME_CHECK_CHUNK) {
+      takenNames.addAll(
+          todoRepository.findExistingNames(
+              names.subList(from, Math.min(from + NAME_CHECK_CHUNK, names.size()))));
+    }
+    // a bulk request would only push out the cached entries in use, and the change numbers are
+    // written past Hibernate below
+    entityManager.setProperty(AvailableHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+    List<BulkItemResult> items = new ArrayList<>(newTodos.size());
+    List<Integer> createdIds = new ArrayList<>();
+    int created = 0;
+    for (int i = 0; i < newTodos.size(); i++) {
+      TodoModel newTodo = newTodos.get(i);
+      ValidationService.Result validity = validation.check(newTodo);
+      if (!validity.isValid()) {
+        items.add(
+            new BulkItemResult(
+                i,
+                newTodo.getName(),
+                HttpStatus.BAD_REQUEST.value(),
+                null,
+                new InvalidRequestException(validity.errors()).getMessage()));
+        continue;
+      }
+      if (!takenNames.add(newTodo.getName())) {
+        items.add(
+            new BulkItemResult(
+                i,
+                newTodo.getName(),
+                HttpStatus.CONFLICT.value(),
+                null,
+                new TodoAlreadyExistsException(newTodo.getName()).getMessage()));
+        continue;
+      }
+      newTodo.setId(0);
+      TodoEntity entity = todoRepository.save(TodoMapper.toEntity(newTodo));
+      createdIds.add(entity.getId());
+      items.add(
+          new BulkItemResult(
+              i, entity.getName(), HttpStatus.CREATED.value(), entity.getId(), null));
+      eventPublisher.publishEvent(TodoChange.todoCreated(entity.getId(), entity.getVersion()));
+      searchIndex.indexTodo(TodoMapper.toModel(entity));
+      if (++created % BULK_FLUSH_SIZE == 0) {
+        todoRepository.flush();
+        entityManager.clear();
+      }
+    }
+    if (created > 0) {
+      todoRepository.flush();
+      // one reservation of change numbers for all the created todos, once they are inserted
+      stampCreated(createdIds, tombstoneRepository.nextChangeSeq(created));
+    }
+    return new BulkResult(created, newTodos.size() - created, items);
+  }
+
+  /**
+   * Replaces the todo and its tasks
+   *
+   * @param newTodo - new state of the todo
+   * @param expectedVersion - version the client has read, not checked if null
+   * @throws NoSuchTodoFoundException - if the todo doesn't exist
+   * @throws TodoVersionMismatchException - if the todo version differs from the expected one
+   */
+  @Transactional
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = TODO_CACHE, key = "#newTodo.id"),
+        @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+      })
+  public TodoModel updateTodo(@NonNull TodoModel newTodo, Long expectedVersion) {
+    long version =
+        todoRepository
+            .findVersionById(newTodo.getId())
+            .orElseThrow(() -> new NoSuchTodoFoundException(newTodo.getId()));
+    if (expectedVersion != null && expectedVersion != version) {
+      throw new TodoVersionMismatchException(newTodo.getId());
+    }
     validation.validateTodo(newTodo);
-    return TodoMapper.toModel(todoRepository.save(TodoMapper.toEntity(newTodo)));
+    newTodo.setVersion(version);
+    TodoEntity newEntity = TodoMapper.toEntity(newTodo);
+    try {
+      TodoEntity entity = todoRepository.saveAndFlush(newEntity);
+      if (entity.getVersion() == version) {
+        // changes of the tasks only don't touch the todo row, the version is bumped explicitly
+        entityManager.lock(entity, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+      }
+      stampChange(entity);
+      TodoModel todo = TodoMapper.toModel(entity);
+      eventPublisher.publishEvent(TodoChange.todoUpdated(todo.getId(), todo.getVersion()));
+      searchIndex.indexTodo(todo);
+      return todo;
+    } catch (ObjectOptimisticLockingFailureException e) {
+      throw new TodoVersionMismatchException(newTodo.getId());
+    } catch (DataIntegrityViolationException e) {
+      throw translateNameViolation(e, newTodo.getName());
+    }
+  }
+
+  /**
+   * Applies the merge patch to the todo. Unlike updateTodo, the tasks are not replaced: only the
+   * tasks named in the patch are added, updated or removed, and dynamic updates write only the
+   * changed columns.
+   *
+   * @param id - id of the todo
+   * @param patch - changes of the todo
+   * @param expectedVersion - version the client has read, not checked if null
+   * @throws NoSuchTodoFoundException - if the todo doesn't exist
+   * @throws TodoVersionMismatchException - if the todo version differs from the expected one
+   * @throws InvalidRequestException - if the patched todo is invalid
+   */
+  @Transactional
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = TODO_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+      })
+  public TodoModel patchTodo(int id, @NonNull TodoPatch patch, Long expectedVersion) {
+    TodoEntity entity =
+        todoRepository.findById(id).orElseThrow(() -> new NoSuchTodoFoundException(id));
+    if (expectedVersion != null && expectedVersion != entity.getVersion()) {
+      throw new TodoVersionMismatchException(id);
+    }
+    boolean nameChanged = patch.getName() != null && !patch.getName().equals(entity.getName());
+    boolean descriptionChanged =
+        patch.getDescription() != null && !patch.getDescription().equals(entity.getDescription());
+    boolean tasksChanged =
+        patch.getTasks() != null
+            && patch.getTasks().entrySet().stream()
+                .anyMatch(task -> changesTask(entity, task.getKey(), task.getValue()));
+    if (!nameChanged && !descriptionChanged && !tasksChanged) {
+      return TodoMapper.toModel(entity);
+    }
+    long version = entity.getVersion();
+    if (nameChanged) {
+      entity.setName(patch.getName());
+    }
+    if (descriptionChanged) {
+      entity.setDescription(patch.getDescription());
+    }
+    if (tasksChanged) {
+      patch.getTasks().forEach((name, task) -> patchTask(entity, name, task));
+    }
+    // the merged todo is held to the rules of a whole one before anything is written, the
+    // rollback discards the changes of the entity
+    validation.validateTodo(TodoMapper.toModel(entity));
+    try {
+      todoRepository.flush();
+      if (entity.getVersion() == version) {
+        // changes of existing tasks only don't touch the todo row, the version is bumped explicitly
+        entityManager.lock(entity, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+      }
+    } catch (ObjectOptimisticLockingFailureException e) {
+      throw new TodoVersionMismatchException(id);
+    } catch (DataIntegrityViolationException e) {
+      throw translateNameViolation(e, entity.getName());
+    }
+    stampChange(entity);
+    TodoModel todo = TodoMapper.toModel(entity);
+    eventPublisher.publishEvent(TodoChange.todoUpdated(todo.getId(), todo.getVersion()));
+    searchIndex.indexTodo(todo);
+    return todo;
   }
 
   @Transactional
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = TODO_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+      })
   public void deleteTodo(int id) {
-    todoRepository.findById(id).orElseThrow(() -> new NoSuchTodoFoundException(id));
-    todoRepository.deleteById(id);
+    taskRepository.deleteAllByTodoId(id);
+    // nothing is deleted for a missing todo, the row count doubles as the existence check
+    if (todoRepository.deleteTodoById(id) == 0) {
+      throw new NoSuchTodoFoundException(id);
+    }
+    // the change number is taken last, see TombstoneRepositoryJPA
+    tombstoneRepository.insertTombstone(id, tombstoneRepository.nextChangeSeq(1));
+    eventPublisher.publishEvent(TodoChange.todoDeleted(id));
+    searchIndex.removeTodo(id);
   }
 
   @Transactional
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = TODO_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+      })
   public TaskModel createTask(@NonNull TaskModel newTask, int id) {
-    TodoEntity entity =
-        todoRepository.findById(id).orElseThrow(() -> new NoSuchTodoFoundException(id));
+    TodoEntity todo = lockForTaskChange(id);
+    // checked once the todo row is locked, so concurrent requests can't both add the name
+    if (!taskRepository.findExistingNames(id, List.of(newTask.getName())).isEmpty()) {
+      throw new TaskAlreadyExistsException(newTask.getName());
+    }
     TaskEntity taskEntity = TaskMapper.toTaskEntity(newTask);
-    taskEntity.setTodoEntity(entity);
-    return TaskMapper.toTaskModel(taskRepository.save(taskEntity));
+    taskEntity.setTodoEntity(todo);
+    TaskModel task = TaskMapper.toTaskModel(taskRepository.save(taskEntity));
+    stampChange(todo);
+    eventPublisher.publishEvent(TodoChange.taskCreated(id, task.getName()));
+    searchIndex.indexTask(id, task);
+    return task;
   }
 
   @Transactional
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = TODO_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+      })
   public void deleteTask(String taskName, int id) {
-    TodoEntity todoEntity =
-        todoRepository.findById(id).orElseThrow(() -> new NoSuchTodoFoundException(id));
-    TaskEntity taskEntity = null;
-    for (TaskEntity entity : todoEntity.getTasks()) {
-      if (entity.getName().equals(taskName)) {
-        taskEntity = entity;
-        todoEntity.getTasks().remove(taskEntity);
-        break;
+    TodoEntity todo = lockForTaskChange(id);
+    if (taskRepository.deleteByTodoIdAndName(id, taskName) == 0) {
+      throw new NoSuchTaskFoundException(taskName);
+    }
+    stampChange(todo);
+    eventPublisher.publishEvent(TodoChange.taskDeleted(id, taskName));
+    searchIndex.removeTask(id, taskName);
+  }
+
+  /**
+   * Adds all the tasks of the request to the todo in one transaction. The todo is locked and its
+   * version bumped once for the whole request, without loading its tasks, and the tasks are
+   * inserted in JDBC batches.
+   *
+   * @param newTasks - tasks to create
+   * @param id - id of the todo
+   * @return - per-item outcomes, tasks whose name the todo already has or repeated in the request
+   *     are skipped
+   * @throws InvalidRequestException - if the request is too large
+   * @throws NoSuchTodoFoundException - if the todo doesn't exist
+   */
+  @Transactional
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = TODO_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+      })
+  public BulkResult createTasks(@NonNull List<TaskModel> newTasks, int id) {
+    checkBulkSize(newTasks.size(), "tasks");
+    TodoEntity todo = lockForTaskChange(id);
+    // names are checked once the todo row is locked, like in createTask
+    Set<String> takenNames = new HashSet<>();
+    List<String> names = newTasks.stream().map(TaskModel::getName).distinct().toList();
+    for (int from = 0; from < names.size(); from += NAME_CHECK_CHUNK) {
+      takenNames.addAll(
+          taskRepository.findExistingNames(
+              id, names.subList(from, Math.min(from + NAME_CHECK_CHUNK, names.size()))));
+    }
+    List<BulkItemResult> items = new ArrayList<>(newTasks.size());
+    List<TaskEntity> saved = new ArrayList<>();
+    int created = 0;
+    for (int i = 0; i < newTasks.size(); i++) {
+      TaskModel newTask = newTasks.get(i);
+      if (!takenNames.add(newTask.getName())) {
+        items.add(
+            new BulkItemResult(
+                i,
+                newTask.getName(),
+                HttpStatus.CONFLICT.value(),
+                null,
+                new TaskAlreadyExistsException(newTask.getName()).getMessage()));
+        continue;
+      }
+      TaskEntity taskEntity = TaskMapper.toTaskEntity(newTask);
+      taskEntity.setTodoEntity(todo);
+      saved.add(taskRepository.save(taskEntity));
+      TaskModel task = TaskMapper.toTaskModel(taskEntity);
+      items.add(new BulkItemResult(i, task.getName(), HttpStatus.CREATED.value(), null, null));
+      eventPublisher.publishEvent(TodoChange.taskCreated(id, task.getName()));
+      searchIndex.indexTask(id, task);
+      if (++created % BULK_FLUSH_SIZE == 0) {
+        taskRepository.flush();
+        // the tasks only, the todo stays managed for its change number
+        saved.forEach(entityManager::detach);
+        saved.clear();
       }
     }
-    if (taskEntity != null) {
-      taskRepository.deleteById(taskEntity.getId());
+    stampChange(todo);
+    return new BulkResult(created, newTasks.size() - created, items);
+  }
+
+  /**
+   * Removes the tasks with the given names from the todo in one transaction. Names are checked with
+   * one select and the tasks deleted with one statement per thousand names, the todo version is
+   * bumped once and not at all if there is nothing to delete.
+   *
+   * @param taskNames - names of the tasks to delete, all the tasks with a name are deleted
+   * @param id - id of the todo
+   * @return - per-item outcomes, names the todo has no tasks of or repeated in the request are
+   *     reported as not found
+   * @throws InvalidRequestException - if the request is too large
+   * @throws NoSuchTodoFoundException - if the todo doesn't exist
+   */
+  @Transactional
+  @Caching(
+      evict = {
+        @CacheEvict(cacheNames = TODO_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = TODOS_CACHE, allEntries = true)
+      })
+  public BulkDeleteResult deleteTasks(@NonNull List<String> taskNames, int id) {
+    checkBulkSize(taskNames.size(), "tasks");
+    List<String> names = taskNames.stream().distinct().toList();
+    List<String> existingNames = new ArrayList<>();
+    for (int from = 0; from < names.size(); from += NAME_CHECK_CHUNK) {
+      existingNames.addAll(
+          taskRepository.findExistingNames(
+              id, names.subList(from, Math.min(from + NAME_CHECK_CHUNK, names.size()))));
+    }
+    if (existingNames.isEmpty()) {
+      if (!todoRepository.existsById(id)) {
+        throw new NoSuchTodoFoundException(id);
+      }
     } else {
-      throw new NoSuchTaskFoundException(taskName);
+      // tasks deleted by another request after the check are reported as deleted here too, they
+      // are gone either way. Tasks added after the check are left to the next request
+      TodoEntity todo = lockForTaskChange(id);
+      for (int from = 0; from < existingNames.size(); from += NAME_CHECK_CHUNK) {
+        int to = Math.min(from + NAME_CHECK_CHUNK, existingNames.size());
+        taskRepository.deleteByTodoIdAndNameIn(id, existingNames.subList(from, to));
+      }
+      stampChange(todo);
+    }
+    Set<String> toDelete = new HashSet<>(existingNames);
+    List<BulkItemResult> items = new ArrayList<>(taskNames.size());
+    for (int i = 0; i < taskNames.size(); i++) {
+      String name = taskNames.get(i);
+      if (!toDelete.remove(name)) {
+        items.add(
+            new BulkItemResult(
+                i,
+                name,
+                HttpStatus.NOT_FOUND.value(),
+                null,
+                new NoSuchTaskFoundException(name).getMessage()));
+        continue;
+      }
+      items.add(new BulkItemResult(i, name, HttpStatus.OK.value(), null, null));
+      eventPublisher.publishEvent(TodoChange.taskDeleted(id, name));
+      searchIndex.removeTask(id, name);
+    }
+    return new BulkDeleteResult(
+        existingNames.size(), taskNames.size() - existingNames.size(), items);
+  }
+
+  /**
+   * Loads and locks the todo for a change of its tasks and bumps its version. Later writes of the
+   * todo go through the entity and refresh the second-level cache entry of this todo only.
+   *
+   * @throws NoSuchTodoFoundException - if the todo doesn't exist
+   */
+  private TodoEntity lockForTaskChange(int id) {
+    return todoRepository.findForUpdateById(id).orElseThrow(() -> new NoSuchTodoFoundException(id));
+  }
+
+  /**
+   * Gives the changed todo the next change number, as the last statement of the change: the rest
+   * is flushed first, as the change sequence row stays locked from the reservation to the commit
+   * (see TombstoneRepositoryJPA). The number isn't versioned, its update leaves the version alone.
+   */
+  private void stampChange(TodoEntity todo) {
+    todoRepository.flush();
+    todo.setChangeSeq(tombstoneRepository.nextChangeSeq(1));
+    todoRepository.flush();
+  }
+
+  /**
+   * Gives the todos created by createTodos consecutive change numbers up to the last reserved one,
+   * in creation order. The updates bypass Hibernate to be sent in JDBC batches; the todos were not
+   * put in the second-level cache, so no cached copy is left with the old number.
+   */
+  private void stampCreated(List<Integer> ids, long lastChangeSeq) {
+    entityManager
+        .unwrap(Session.class)
+        .doWork(
+            connection -> {
+              try (PreparedStatement statement = connection.prepareStatement(STAMP_CREATED_SQL)) {
+                long changeSeq = lastChangeSeq - ids.size();
+                for (int i = 0; i < ids.size(); i++) {
+                  statement.setLong(1, ++changeSeq);
+                  statement.setInt(2, ids.get(i));
+                  statement.addBatch();
+                  if ((i + 1) % BULK_FLUSH_SIZE == 0) {
+                    statement.executeBatch();
+                  }
+                }
+                statement.executeBatch();
+              }
+            });
+  }
+
+  /** Tells whether the patch of one task name changes the loaded tasks of the todo */
+  private static boolean changesTask(TodoEntity entity, String name, TodoPatch.TaskPatch patch) {
+    List<TaskEntity> named =
+        entity.getTasks().stream().filter(task -> name.equals(task.getName())).toList();
+    if (patch == null) {
+      return !named.isEmpty();
+    }
+    return named.isEmpty()
+        || patch.getDescription() != null
+        && named.stream().anyMatch(task -> !patch.getDescription().equals(task.getDescription()));
+  }
+
+  /** Applies the patch of one task name to the loaded tasks of the todo */
+  private static void patchTask(TodoEntity entity, String name, TodoPatch.TaskPatch patch) {
+    if (patch == null) {
+      // orphan removal deletes the rows of the removed tasks
+      entity.getTasks().removeIf(task -> name.equals(task.getName()));
+    } else if (entity.getTasks().stream().noneMatch(task -> name.equals(task.getName()))) {
+      entity.addTask(TaskEntity.builder().name(name).description(patch.getDescription()).build());
+    } else if (patch.getDescription() != null) {
+      // tasks whose description is already equal stay clean and are not updated
+      entity.getTasks().stream()
+          .filter(task -> name.equals(task.getName()))
+          .forEach(task -> task.setDescription(patch.getDescription()));
+    }
+  }
+
+  /**
+   * Maps the violation of the todo name constraint to TodoAlreadyExistsException, other violations
+   * are returned unchanged
+   */
+  private static RuntimeException translateNameViolation(
+      DataIntegrityViolationException e, String name) {
+    if (e.getCause() instanceof ConstraintViolationException violation
+        && violation.getConstraintName() != null
+        && violation.getConstraintName().toLowerCase().contains(TodoEntity.NAME_CONSTRAINT)) {
+      return new TodoAlreadyExistsException(name);
+    }
+    return e;
+  }
+
+  private void checkBulkSize(int size, String items) {
+    if (size > properties.getMaxBulkSize()) {
+      throw new InvalidRequestException(
+          List.of(
+              "Too many %s in bulk request, max is %d"
+                  .formatted(items, properties.getMaxBulkSize())));
+    }
+  }
+
+  private static Class<? extends TodoSummary> summaryType(TodoFields fields) {
+    return fields.description() ? TodoSummary.WithDescription.class : TodoSummary.class;
+  }
+
+  /** Maps the summaries, reading the tasks of all of them with one select if they are selected */
+  private List<TodoModel> toSparseModels(List<? extends TodoSummary> summaries, TodoFields fields) {
+    Map<Integer, List<TaskModel>> tasks = new HashMap<>();
+    if (fields.tasks() && !summaries.isEmpty()) {
+      List<Integer> todoIds = summaries.stream().map(TodoSummary::getId).toList();
+      List<? extends TaskSummary> taskSummaries =
+          fields.taskDescription()
+              ? taskRepository.findSummariesWithDescriptionByTodoIds(todoIds)
+              : taskRepository.findSummariesByTodoIds(todoIds);
+      for (TaskSummary task : taskSummaries) {
+        tasks.computeIfAbsent(task.getTodoId(), todoId -> new ArrayList<>())
+            .add(TaskMapper.toTaskModel(task));
+      }
+    }
+    return summaries.stream()
+        .map(
+            summary ->
+                TodoMapper.toModel(
+                    summary,
+                    fields.tasks() ? tasks.getOrDefault(summary.getId(), List.of()) : null,
+                    fields))
+        .toList();
+  }
+
+  private int pageSize(Integer size) {
+    if (size == null) {
+      return properties.getDefaultPageSize();
+    }
+    return Math.min(size, properties.getMaxPageSize());
+  }
+
+  static Sort toSort(String sort) {
+    if (sort == null || sort.isBlank()) {
+      return Sort.by("id");
+    }
+    String[] parts = sort.split(",");
+    String property = parts[0].trim();
+    if (parts.length > 2 || !SORTABLE_PROPERTIES.contains(property)) {
+      throw new InvalidRequestException(List.of("Unsupported sort expression: " + sort));
+    }
+    Sort.Direction direction = Sort.Direction.ASC;
+    if (parts.length == 2) {
+      direction =
+          Sort.Direction.fromOptionalString(parts[1].trim())
+              .orElseThrow(
+                  () -> new InvalidRequestException(List.of("Unsupported sort direction: " + sort)));
     }
+    Sort result = Sort.by(direction, property);
+    // id as a tie-breaker keeps pages stable when the sort key is not unique
+    return "id".equals(property) ? result : result.and(Sort.by("id"));
   }
 }
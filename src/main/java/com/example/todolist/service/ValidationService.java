@@ -1,23 +1,79 @@
 package com.example.todolist.service;
 
+import com.example.todolist.model.TaskModel;
 import com.example.todolist.model.TodoModel;
 import com.example.todolist.model.exceptions.InvalidRequestException;
 import com.example.todolist.properties.MainProperties;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import lombok.AccessLevel;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.stereotype.Service;
 
+/**
+ * Validates todos before they are written. The rules and their messages are built once from
+ * MainProperties; every call gets its own result, so concurrent requests never see each other's
+ * errors. A valid todo allocates nothing: the result is a shared constant and the tasks are
+ * compared pairwise unless the todo has more than {@link #PAIRWISE_DUPLICATE_CHECK} of them.
+ */
 @Service
-@RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ValidationService {
-  @NonNull MainProperties properties;
-  List<String> errors = new ArrayList<>();
+  // same bounds as the @Size constraints of the models and the columns
+  static final int MIN_LENGTH = 10;
+  static final int MAX_LENGTH = 255;
+  // above this many tasks duplicates are looked up in a set instead of comparing every pair, the
+  // break-even point measured by ValidationBenchmark
+  static final int PAIRWISE_DUPLICATE_CHECK = 16;
+
+  TextRule todoName;
+  TextRule todoDescription;
+  TextRule taskName;
+  String duplicateTaskName;
+
+  /**
+   * Outcome of one validation
+   *
+   * @param errors - error messages, empty if the todo is valid
+   */
+  public record Result(List<String> errors) {
+    public static final Result VALID = new Result(List.of());
+
+    public boolean isValid() {
+      return errors.isEmpty();
+    }
+  }
+
+  /** Precompiled check of a required text field, messages are formatted once */
+  private record TextRule(String blankMessage, String lengthMessage) {
+    static TextRule of(String blankTemplate, String lengthTemplate, String subject, String field) {
+      return new TextRule(
+          blankTemplate.formatted(subject),
+          lengthTemplate.formatted(subject + " " + field, MIN_LENGTH, MAX_LENGTH));
+    }
+
+    /** Returns the error of the value, null if it is valid */
+    String check(String value) {
+      if (value == null || value.isBlank()) {
+        return blankMessage;
+      }
+      return value.length() < MIN_LENGTH || value.length() > MAX_LENGTH ? lengthMessage : null;
+    }
+  }
+
+  public ValidationService(@NonNull MainProperties properties) {
+    String blankName = properties.getErrorInvalidName();
+    String blankDescription = properties.getErrorInvalidDescription();
+    String length = properties.getErrorInvalidLength();
+    todoName = TextRule.of(blankName, length, "todo", "name");
+    todoDescription = TextRule.of(blankDescription, length, "todo", "description");
+    taskName = TextRule.of(blankName, length, "task", "name");
+    duplicateTaskName = properties.getErrorDuplicateTaskName();
+  }
 
   /**
    * Validates todomodel fields
@@ -25,12 +81,72 @@ public class ValidationService {
    * @param todoModel - model for checking
    * @throws InvalidRequestException - contains list of errors found in the model
    */
-  public void validateTodo(TodoModel todoModel) throws InvalidRequestException {
-    errors.clear();
-    if (!errors.isEmpty()) throw new InvalidRequestException(errors);
+  public void validateTodo(@NonNull TodoModel todoModel) throws InvalidRequestException {
+    Result result = check(todoModel);
+    if (!result.isValid()) {
+      throw new InvalidRequestException(result.errors());
+    }
   }
 
-  public List<String> getErrorMessages() {
+  /**
+   * Checks the todo name and description, the task names and that no task name is repeated
+   *
+   * @param todoModel - model for checking
+   * @return - errors found in the model, {@link Result#VALID} if there are none
+   */
+  public Result check(@NonNull TodoModel todoModel) {
+    List<String> errors = add(null, todoName.check(todoModel.getName()));
+    errors = add(errors, todoDescription.check(todoModel.getDescription()));
+    List<TaskModel> tasks = todoModel.getTasks();
+    if (tasks != null) {
+      // indexed loops, an iterator would be allocated for every todo
+      for (int i = 0; i < tasks.size(); i++) {
+        errors = add(errors, taskName.check(tasks.get(i).getName()));
+      }
+      errors =
+          tasks.size() > PAIRWISE_DUPLICATE_CHECK
+              ? addDuplicatesFromSet(errors, tasks)
+              : addDuplicatesPairwise(errors, tasks);
+    }
+    return errors == null ? Result.VALID : new Result(errors);
+  }
+
+  private List<String> addDuplicatesPairwise(List<String> errors, List<TaskModel> tasks) {
+    for (int i = 1; i < tasks.size(); i++) {
+      String name = tasks.get(i).getName();
+      if (name == null) {
+        continue;
+      }
+      for (int j = 0; j < i; j++) {
+        String other = tasks.get(j).getName();
+        // the hash is cached by the string, most pairs are told apart without comparing chars
+        if (other != null && other.hashCode() == name.hashCode() && other.equals(name)) {
+          errors = add(errors, duplicateTaskName.formatted(name));
+          break;
+        }
+      }
+    }
     return errors;
   }
+
+  private List<String> addDuplicatesFromSet(List<String> errors, List<TaskModel> tasks) {
+    Set<String> names = new HashSet<>(tasks.size() * 2);
+    for (int i = 0; i < tasks.size(); i++) {
+      String name = tasks.get(i).getName();
+      if (name != null && !names.add(name)) {
+        errors = add(errors, duplicateTaskName.formatted(name));
+      }
+    }
+    return errors;
+  }
+
+  /** Adds the error, the list is created with the first one */
+  private static List<String> add(List<String> errors, String error) {
+    if (error == null) {
+      return errors;
+    }
+    List<String> result = errors == null ? new ArrayList<>() : errors;
+    result.add(error);
+    return result;
+  }
 }
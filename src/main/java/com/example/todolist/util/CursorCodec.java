@@ -0,0 +1,73 @@
+package com.example.todolist.util;
+
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.exceptions.InvalidRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Encodes and decodes opaque keyset cursors of the todos listing. A cursor holds the sort
+ * property, the id of the last returned todo and, for non-id sorts, its sort key value.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CursorCodec {
+  public static final String ID = "id";
+  public static final String NAME = "name";
+  private static final String SEPARATOR = "\n";
+
+  public record Cursor(String property, int id, String value) {}
+
+  /**
+   * Returns the cursor pointing after the last element of the slice
+   *
+   * @param slice - current slice of todos
+   * @return - cursor token or null if there is no next slice or the slice order can't be keyed
+   */
+  public static String next(@NonNull Slice<TodoModel> slice) {
+    if (!slice.hasNext() || slice.getContent().isEmpty()) {
+      return null;
+    }
+    Sort.Order order = slice.getSort().stream().findFirst().orElse(null);
+    if (order == null || order.isDescending()) {
+      return null;
+    }
+    TodoModel last = slice.getContent().get(slice.getContent().size() - 1);
+    return switch (order.getProperty()) {
+      case ID -> encode(new Cursor(ID, last.getId(), ""));
+      case NAME -> encode(new Cursor(NAME, last.getId(), last.getName()));
+      default -> null;
+    };
+  }
+
+  public static String encode(@NonNull Cursor cursor) {
+    String raw = cursor.property() + SEPARATOR + cursor.id() + SEPARATOR + cursor.value();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes cursor token
+   *
+   * @param token - cursor token returned by the listing endpoint
+   * @throws InvalidRequestException - if the token is malformed
+   */
+  public static Cursor decode(@NonNull String token) throws InvalidRequestException {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] parts = raw.split(SEPARATOR, 3);
+      if (parts.length == 3 && (ID.equals(parts[0]) || NAME.equals(parts[0]))) {
+        return new Cursor(parts[0], Integer.parseInt(parts[1]), parts[2]);
+      }
+    } catch (IllegalArgumentException e) {
+      // falls through to the invalid cursor error below
+    }
+    throw new InvalidRequestException(List.of("Invalid cursor: " + token));
+  }
+}
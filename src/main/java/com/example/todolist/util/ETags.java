@@ -0,0 +1,74 @@
+package com.example.todolist.util;
+
+import com.example.todolist.model.TodoVersion;
+import com.example.todolist.model.exceptions.InvalidRequestException;
+import com.example.todolist.model.exceptions.TodoVersionMismatchException;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Builds strong ETags of todo resources from todo versions. The tag of a page depends only on the
+ * ids and versions of its todos and on the page metadata, so it can be computed from a version
+ * projection without loading the todos.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ETags {
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  public static String of(long version) {
+    return "\"" + version + "\"";
+  }
+
+  public static String of(@NonNull Slice<? extends TodoVersion> slice) {
+    long hash = FNV_OFFSET;
+    for (TodoVersion todo : slice.getContent()) {
+      hash = mix(hash, todo.getId());
+      hash = mix(hash, todo.getVersion());
+    }
+    hash = mix(hash, slice instanceof Page<?> page ? page.getTotalElements() : -1);
+    hash = mix(hash, slice.hasNext() ? 1 : 0);
+    return "\"" + Long.toHexString(hash) + "\"";
+  }
+
+  /**
+   * Parses the todo version out of an If-Match header. If-Match compares strongly (RFC 9110), so
+   * the weak tag of a gzipped response never matches, whatever version it holds.
+   *
+   * @param ifMatch - header value, may be null
+   * @return - expected version, null if the header is absent or matches any version
+   * @throws InvalidRequestException - if the header doesn't hold a todo ETag
+   * @throws TodoVersionMismatchException - if the header holds a weak ETag
+   */
+  public static Long parseVersion(String ifMatch)
+      throws InvalidRequestException, TodoVersionMismatchException {
+    if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.startsWith("W/\"")) {
+      throw new TodoVersionMismatchException(
+          "Weak ETag doesn't match, If-Match takes the strong ETag of the todo: " + tag);
+    }
+    if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      try {
+        return Long.parseLong(tag.substring(1, tag.length() - 1));
+      } catch (NumberFormatException e) {
+        // falls through to the invalid header error below
+      }
+    }
+    throw new InvalidRequestException(List.of("Invalid If-Match header: " + ifMatch));
+  }
+
+  private static long mix(long hash, long value) {
+    for (int i = 0; i < Long.BYTES; i++) {
+      hash ^= (value >>> (i * 8)) & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+}
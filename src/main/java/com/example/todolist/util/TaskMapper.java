@@ -2,6 +2,7 @@ package com.example.todolist.util;
 
 import com.example.todolist.entity.TaskEntity;
 import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TaskSummary;
 import java.util.List;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -13,6 +14,14 @@ public class TaskMapper {
     return TaskModel.builder().name(entity.getName()).description(entity.getDescription()).build();
   }
 
+  public static TaskModel toTaskModel(@NonNull TaskSummary summary) {
+    String description =
+        summary instanceof TaskSummary.WithDescription withDescription
+            ? withDescription.getDescription()
+            : null;
+    return TaskModel.builder().name(summary.getName()).description(description).build();
+  }
+
   public static List<TaskModel> toTaskModels(@NonNull List<TaskEntity> entities) {
     return entities.stream().map(TaskMapper::toTaskModel).toList();
   }
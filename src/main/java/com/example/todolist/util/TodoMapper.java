@@ -2,7 +2,11 @@ package com.example.todolist.util;
 
 import com.example.todolist.entity.TaskEntity;
 import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.model.SparseTodoModel;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoFields;
 import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.TodoSummary;
 import java.util.List;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -16,10 +20,26 @@ public class TodoMapper {
         .id(entity.getId())
         .name(entity.getName())
         .description(entity.getDescription())
+        .version(entity.getVersion())
         .tasks(TaskMapper.toTaskModels(entity.getTasks()))
         .build();
   }
 
+  /**
+   * Maps the summary of a sparse fieldset
+   *
+   * @param tasks - tasks of the todo, null if none of their fields is selected
+   */
+  public static TodoModel toModel(
+      @NonNull TodoSummary summary, List<TaskModel> tasks, @NonNull TodoFields fields) {
+    String description =
+        summary instanceof TodoSummary.WithDescription withDescription
+            ? withDescription.getDescription()
+            : null;
+    return new SparseTodoModel(
+        summary.getId(), summary.getName(), description, tasks, summary.getVersion(), fields);
+  }
+
   public static List<TodoModel> toModels(@NonNull List<TodoEntity> entities) {
     return entities.stream().map(TodoMapper::toModel).toList();
   }
@@ -30,6 +50,7 @@ public class TodoMapper {
             .id(model.getId())
             .name(model.getName())
             .description(model.getDescription())
+            .version(model.getVersion())
             .build();
     for (TaskEntity taskEntity : TaskMapper.toTaskEntities(model.getTasks())) {
       entity.addTask(taskEntity);
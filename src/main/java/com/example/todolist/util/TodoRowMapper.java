@@ -0,0 +1,47 @@
+package com.example.todolist.util;
+
+import com.example.todolist.entity.TaskRow;
+import com.example.todolist.entity.TodoRow;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import java.util.Collection;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+/** Maps the R2DBC rows of the "reactive" profile, the counterpart of TodoMapper and TaskMapper. */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TodoRowMapper {
+
+  public static TodoModel toModel(@NonNull TodoRow row, @NonNull Collection<TaskRow> tasks) {
+    return TodoModel.builder()
+        .id(row.getId())
+        .name(row.getName())
+        .description(row.getDescription())
+        .version(row.getVersion())
+        .tasks(tasks.stream().map(TodoRowMapper::toTaskModel).toList())
+        .build();
+  }
+
+  public static TodoRow toRow(@NonNull TodoModel model) {
+    return TodoRow.builder()
+        .id(model.getId())
+        .name(model.getName())
+        .description(model.getDescription())
+        .version(model.getVersion())
+        .build();
+  }
+
+  public static TaskModel toTaskModel(@NonNull TaskRow row) {
+    return TaskModel.builder().name(row.getName()).description(row.getDescription()).build();
+  }
+
+  public static TaskRow toTaskRow(@NonNull TaskModel model, int id, int todoId) {
+    return TaskRow.builder()
+        .id(id)
+        .name(model.getName())
+        .description(model.getDescription())
+        .todoId(todoId)
+        .build();
+  }
+}
@@ -0,0 +1,58 @@
+package com.example.todolist.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket safe for concurrent use without locks. It holds up to burst tokens and gains one
+ * every 1/rate seconds, every request takes one.
+ *
+ * <p>Instead of a token count and the time of the last refill, the bucket keeps the single time at
+ * which it will be full again (the virtual scheduling form of the token bucket, GCRA), so a token
+ * is taken by one compare-and-set.
+ */
+public class TokenBucket {
+  private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+  // time a token takes to refill and time the whole bucket takes to refill, in nanoseconds
+  private final long interval;
+  private final long capacity;
+  private final AtomicLong fullAt;
+
+  /**
+   * @param ratePerSecond - tokens gained per second
+   * @param burst - max number of tokens, taken at once by a burst of requests
+   * @param now - current System.nanoTime(), the bucket starts full
+   */
+  public TokenBucket(double ratePerSecond, int burst, long now) {
+    interval = Math.max(1, (long) (NANOS_PER_SECOND / ratePerSecond));
+    capacity = interval * burst;
+    fullAt = new AtomicLong(now);
+  }
+
+  /**
+   * Takes a token
+   *
+   * @param now - current System.nanoTime()
+   * @return - 0 if the token is taken, otherwise nanoseconds until the next token is gained
+   */
+  public long tryAcquire(long now) {
+    while (true) {
+      long full = fullAt.get();
+      // an idle bucket is full, not fuller
+      long next = (full - now > 0 ? full : now) + interval;
+      long wait = next - now - capacity;
+      if (wait > 0) {
+        return wait;
+      }
+      if (fullAt.compareAndSet(full, next)) {
+        return 0;
+      }
+    }
+  }
+
+  /** Time an empty bucket takes to fill up */
+  public Duration refillTime() {
+    return Duration.ofNanos(capacity);
+  }
+}
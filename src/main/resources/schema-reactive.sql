@@ -0,0 +1,40 @@
+-- Tables of the "reactive" profile, the same ones Hibernate generates for the entities.
+-- The script is idempotent: it runs on every start (spring.sql.init.mode: always).
+-- It is written for H2, a MySQL database is set up by sql/schema.sql and sql/migrations.
+CREATE TABLE IF NOT EXISTS todos (
+  todo_id INT NOT NULL PRIMARY KEY,
+  name VARCHAR(255),
+  description VARCHAR(255),
+  version BIGINT NOT NULL DEFAULT 0,
+  change_seq BIGINT NOT NULL DEFAULT 0,
+  CONSTRAINT uk_todos_name UNIQUE (name)
+);
+CREATE INDEX IF NOT EXISTS idx_todos_change_seq ON todos (change_seq);
+CREATE TABLE IF NOT EXISTS tasks (
+  task_id INT NOT NULL PRIMARY KEY,
+  name VARCHAR(255),
+  description VARCHAR(255),
+  todo_id INT NOT NULL,
+  FOREIGN KEY (todo_id) REFERENCES todos(todo_id)
+);
+CREATE INDEX IF NOT EXISTS idx_tasks_todo_id_name ON tasks (todo_id, name);
+CREATE TABLE IF NOT EXISTS todo_tombstones (
+  todo_id INT NOT NULL PRIMARY KEY,
+  change_seq BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_todo_tombstones_change_seq ON todo_tombstones (change_seq);
+-- ids are allocated in blocks of 50 like Hibernate does it, see IdSequencesR2DBC
+CREATE TABLE IF NOT EXISTS id_sequences (
+  sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+  next_val BIGINT
+);
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'todos', COALESCE(MAX(todo_id), 0) + 50 FROM todos
+  WHERE NOT EXISTS (SELECT 1 FROM id_sequences WHERE sequence_name = 'todos');
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'tasks', COALESCE(MAX(task_id), 0) + 50 FROM tasks
+  WHERE NOT EXISTS (SELECT 1 FROM id_sequences WHERE sequence_name = 'tasks');
+-- the change sequence of delta syncs, incremented by the writing transactions
+INSERT INTO id_sequences (sequence_name, next_val)
+  SELECT 'changes', COALESCE(MAX(change_seq), 0) FROM todos
+  WHERE NOT EXISTS (SELECT 1 FROM id_sequences WHERE sequence_name = 'changes');
@@ -0,0 +1,156 @@
+package com.example.todolist.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.todolist.TodolistApplication;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.service.TodosService;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Reports the throughput and the p99 latency of by-id reads served on Tomcat's platform threads and
+ * on virtual threads, against in-memory H2 with latency added to every SQL statement. The numbers
+ * depend on the machine, so they are logged for comparison rather than asserted; only errors fail
+ * the run. Skipped by default, run with:
+ * mvn test -Dtest=VirtualThreadsLoadTest -Dbenchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadsLoadTest {
+  private static final long QUERY_LATENCY_MS = 100;
+  // above Tomcat's 200 platform threads, so that the pool doesn't cap the virtual threads mode
+  private static final int POOL_SIZE = 400;
+  private static final int[] CONCURRENCY = {100, 200, 400};
+  private static final Duration WARMUP = Duration.ofSeconds(5);
+  private static final Duration DURATION = Duration.ofSeconds(10);
+  private static final int UNLIMITED = 1_000_000;
+
+  /** Simulates a slow database: delays every statement on the calling thread. */
+  public static class LatencyStatementInspector implements StatementInspector {
+    @Override
+    public String inspect(String sql) {
+      try {
+        Thread.sleep(QUERY_LATENCY_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return sql;
+    }
+  }
+
+  private record Result(int concurrency, long requests, long errors, double rps, double p99Millis) {}
+
+  @Test
+  @DisplayName("Reports throughput and p99 latency of slow requests on platform and virtual threads")
+  void platformAndVirtualThreadsReport() throws Exception {
+    for (boolean virtualThreads : new boolean[] {false, true}) {
+      try (ConfigurableApplicationContext context = start(virtualThreads)) {
+        TodoModel todo =
+            context
+                .getBean(TodosService.class)
+                .createTodo(
+                    TodoModel.builder()
+                        .name("load todo name")
+                        .description("load todo description")
+                        .tasks(List.of())
+                        .build());
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        URI uri = URI.create("http://localhost:%d/api/v1/todos/%d".formatted(port, todo.getId()));
+
+        load(uri, CONCURRENCY[0], WARMUP);
+        for (int concurrency : CONCURRENCY) {
+          Result result = load(uri, concurrency, DURATION);
+          log.info(
+              "{} threads, {} clients: {} req/s, p99 {} ms, {} requests, {} errors",
+              virtualThreads ? "virtual" : "platform",
+              concurrency,
+              Math.round(result.rps()),
+              Math.round(result.p99Millis()),
+              result.requests(),
+              result.errors());
+          assertEquals(0, result.errors());
+        }
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext start(boolean virtualThreads) {
+    return new SpringApplicationBuilder(TodolistApplication.class)
+        .run(
+            "--server.port=0",
+            "--main.virtualThreads=" + virtualThreads,
+            "--spring.datasource.url=jdbc:h2:mem:load-%s;DB_CLOSE_DELAY=-1".formatted(virtualThreads),
+            "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+            // the request limits would refuse the load with 429 and 503, the thread modes are measured
+            "--main.readRatePerSecond=" + UNLIMITED,
+            "--main.readBurst=" + UNLIMITED,
+            "--main.minConcurrentRequests=" + UNLIMITED,
+            "--main.maxConcurrentRequests=" + UNLIMITED,
+            "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + LatencyStatementInspector.class.getName(),
+            "--spring.cache.type=none",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.org.hibernate.SQL=INFO",
+            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO");
+  }
+
+  /** Closed loop load: every client sends the next request as soon as the previous one completes. */
+  private static Result load(URI uri, int concurrency, Duration duration) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+    long deadline = System.nanoTime() + duration.toNanos();
+    List<Future<long[]>> clients = new ArrayList<>(concurrency);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client =
+            HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build()) {
+      for (int i = 0; i < concurrency; i++) {
+        clients.add(
+            executor.submit(
+                () -> {
+                  // latencies in nanos, the last element counts the errors
+                  List<Long> latencies = new ArrayList<>();
+                  long errors = 0;
+                  while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    latencies.add(System.nanoTime() - start);
+                    if (response.statusCode() != 200) {
+                      errors++;
+                    }
+                  }
+                  latencies.add(errors);
+                  return latencies.stream().mapToLong(Long::longValue).toArray();
+                }));
+      }
+      List<Long> latencies = new ArrayList<>();
+      long errors = 0;
+      for (Future<long[]> future : clients) {
+        long[] values = future.get();
+        for (int i = 0; i < values.length - 1; i++) {
+          latencies.add(values[i]);
+        }
+        errors += values[values.length - 1];
+      }
+      latencies.sort(null);
+      double p99 = latencies.isEmpty() ? 0 : latencies.get((int) (latencies.size() * 0.99)) / 1e6;
+      return new Result(
+          concurrency, latencies.size(), errors, latencies.size() / (double) duration.toSeconds(), p99);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.example.todolist.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/** Checks that the todo operations are exported on the Prometheus scrape endpoint. */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1")
+class PrometheusEndpointTest {
+  @Autowired private MockMvc mvc;
+
+  @Test
+  @DisplayName("Endpoint, service, error, pool and Hibernate metrics are scraped")
+  void prometheusTest() throws Exception {
+    mvc.perform(get("/api/v1/todos")).andExpect(status().isOk());
+    mvc.perform(get("/api/v1/todos/999999")).andExpect(status().isNotFound());
+
+    mvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+        .andExpect(content().string(containsString("quantile=\"0.99\"")))
+        .andExpect(content().string(containsString("method=\"getTodos\"")))
+        .andExpect(content().string(containsString("todos_service_seconds_bucket{")))
+        .andExpect(content().string(
+            containsString("todos_errors_total{exception=\"NoSuchTodoFoundException\",status=\"404\",}")))
+        .andExpect(content().string(containsString("hikaricp_connections_active")))
+        .andExpect(content().string(containsString("hibernate_query_executions_total")))
+        .andExpect(content().string(containsString("hibernate_entities_loads_total")));
+  }
+}
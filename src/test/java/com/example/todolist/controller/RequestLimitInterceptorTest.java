@@ -0,0 +1,109 @@
+package com.example.todolist.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.IdempotencyKeyRepositoryJPA;
+import com.example.todolist.service.ConcurrencyLimiter;
+import com.example.todolist.service.IdempotencyService;
+import com.example.todolist.service.RateLimiter;
+import com.example.todolist.service.TodoChangeFeed;
+import com.example.todolist.service.TodosService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class RequestLimitInterceptorTest {
+  private final TodosService service = mock(TodosService.class);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final MainProperties properties = new MainProperties();
+  private ConcurrencyLimiter concurrencyLimiter;
+  private MockMvc mvc;
+
+  @BeforeEach
+  void setUp() {
+    properties.setExceptionDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+    // a token every 100 s, so no token is gained while the test runs
+    properties.setReadRatePerSecond(0.01);
+    properties.setReadBurst(3);
+    properties.setWriteRatePerSecond(0.01);
+    properties.setWriteBurst(2);
+    properties.setMinConcurrentRequests(1);
+    properties.setMaxConcurrentRequests(1);
+    properties.setApiKeys(Set.of("other client"));
+    concurrencyLimiter = new ConcurrencyLimiter(meterRegistry, properties);
+    ObjectMapper objectMapper = new ObjectMapper();
+    TodoController controller =
+        new TodoController(
+            service,
+            mock(TodoChangeFeed.class),
+            objectMapper,
+            new IdempotencyService(
+                mock(IdempotencyKeyRepositoryJPA.class),
+                objectMapper,
+                mock(PlatformTransactionManager.class),
+                properties),
+            new ResponseBodyCache(properties));
+    mvc =
+        MockMvcBuilders.standaloneSetup(controller)
+            .addInterceptors(new RequestLimitInterceptor(new RateLimiter(properties), concurrencyLimiter, properties))
+            .setControllerAdvice(
+                new RestResponseEntityExceptionHandler(new ProblemFactory(properties, meterRegistry)))
+            .build();
+    when(service.getTodo(1))
+        .thenReturn(TodoModel.builder().id(1).name("some todo name").tasks(List.<TaskModel>of()).build());
+  }
+
+  @Test
+  @DisplayName("Client over its write rate gets 429 with Retry-After, its reads and configured keys are served")
+  void rateLimitTest() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      mvc.perform(delete("/api/v1/todos/1")).andExpect(status().isOk());
+    }
+
+    mvc.perform(delete("/api/v1/todos/1"))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"))
+        .andExpect(jsonPath("$.status", is(429)))
+        .andExpect(jsonPath("$.messages[0]", is("Request rate limit exceeded, retry in 100 s")));
+    mvc.perform(get("/api/v1/todos/1")).andExpect(status().isOk());
+    mvc.perform(delete("/api/v1/todos/1").header(RequestLimitInterceptor.API_KEY, "other client"))
+        .andExpect(status().isOk());
+    // an unknown key counts against its address
+    mvc.perform(delete("/api/v1/todos/1").header(RequestLimitInterceptor.API_KEY, "random key"))
+        .andExpect(status().isTooManyRequests());
+  }
+
+  @Test
+  @DisplayName("Requests over the concurrency limit are shed with 503 and Retry-After")
+  void concurrencyLimitTest() throws Exception {
+    mvc.perform(get("/api/v1/todos/1")).andExpect(status().isOk());
+    concurrencyLimiter.tryAcquire();
+
+    mvc.perform(get("/api/v1/todos/1"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+        .andExpect(jsonPath("$.status", is(503)));
+
+    concurrencyLimiter.release();
+    mvc.perform(get("/api/v1/todos/1")).andExpect(status().isOk());
+  }
+}
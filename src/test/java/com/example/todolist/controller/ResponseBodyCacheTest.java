@@ -0,0 +1,182 @@
+package com.example.todolist.controller;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.IdempotencyKeyRepositoryJPA;
+import com.example.todolist.service.IdempotencyService;
+import com.example.todolist.service.TodoChangeFeed;
+import com.example.todolist.service.TodosService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ResponseBodyCacheTest {
+  private static final int TODOS = 50;
+
+  private final TodosService service = mock(TodosService.class);
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final MappingJackson2HttpMessageConverter json =
+      spy(new MappingJackson2HttpMessageConverter(objectMapper));
+  private MockMvc mvc;
+
+  @BeforeEach
+  void setUp() {
+    MainProperties properties = new MainProperties();
+    ResponseBodyCache cache = new ResponseBodyCache(properties);
+    IdempotencyService idempotency =
+        new IdempotencyService(
+            mock(IdempotencyKeyRepositoryJPA.class),
+            objectMapper,
+            mock(PlatformTransactionManager.class),
+            properties);
+    TodoController controller =
+        new TodoController(service, mock(TodoChangeFeed.class), objectMapper, idempotency, cache);
+    Compression compression = new Compression();
+    compression.setEnabled(true);
+    List<HttpMessageConverter<?>> converters = List.of(json);
+    mvc =
+        MockMvcBuilders.standaloneSetup(controller)
+            .setMessageConverters(new CachedBodyConverter(cache, converters, compression), json)
+            .build();
+  }
+
+  @Test
+  @DisplayName("Cached catalogue is encoded and gzipped once, until the service returns a new page")
+  void catalogueBytesTest() throws Exception {
+    Page<TodoModel> page = page("todo description");
+    when(service.getTodos(0, null, null)).thenReturn(page);
+
+    MockHttpServletResponse first = getTodos("gzip, deflate");
+    MockHttpServletResponse second = getTodos("gzip");
+    MockHttpServletResponse identity = getTodos("gzip;q=0");
+
+    verify(json, times(1)).write(any(), any(), any());
+    assertEquals("gzip", second.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("W/\"" + second.getHeader(HttpHeaders.ETAG).substring(3), second.getHeader(HttpHeaders.ETAG));
+    assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+    assertNull(identity.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertArrayEquals(identity.getContentAsByteArray(), gunzip(second.getContentAsByteArray()));
+    assertEquals(page.getContent(), read(identity.getContentAsByteArray()).todos());
+
+    // a mutation evicts the page from the service cache, the next request gets a new one
+    Page<TodoModel> changed = page("changed description");
+    when(service.getTodos(0, null, null)).thenReturn(changed);
+    MockHttpServletResponse updated = getTodos("identity");
+
+    verify(json, times(2)).write(any(), any(), any());
+    assertEquals(changed.getContent(), read(updated.getContentAsByteArray()).todos());
+  }
+
+  @Test
+  @DisplayName("Weak ETag of a gzipped todo gets 412 on PUT, the strong one of the identity response updates it")
+  void gzippedTodoIfMatchTest() throws Exception {
+    TodoModel todo = page("todo description").getContent().get(0).toBuilder().version(3L).build();
+    todo.setTasks(
+        IntStream.range(0, TODOS)
+            .mapToObj(i -> TaskModel.builder().name("task name " + i).description("ripe").build())
+            .toList());
+    when(service.getTodo(1)).thenReturn(todo);
+    when(service.updateTodo(any(), eq(3L))).thenReturn(todo);
+
+    String weak = getTodo("gzip").getHeader(HttpHeaders.ETAG);
+    String strong = getTodo("identity").getHeader(HttpHeaders.ETAG);
+
+    assertEquals("W/\"3\"", weak);
+    assertEquals("\"3\"", strong);
+    mvc.perform(updateTodo(todo).header(HttpHeaders.IF_MATCH, weak)).andExpect(status().isPreconditionFailed());
+    verify(service, never()).updateTodo(any(), any());
+    mvc.perform(updateTodo(todo).header(HttpHeaders.IF_MATCH, strong))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, strong));
+  }
+
+  private MockHttpServletResponse getTodo(String acceptEncoding) throws Exception {
+    return mvc.perform(
+            get("/api/v1/todos/1")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+  }
+
+  private MockHttpServletRequestBuilder updateTodo(TodoModel todo) throws IOException {
+    return put("/api/v1/todos/1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsBytes(todo));
+  }
+
+  private MockHttpServletResponse getTodos(String acceptEncoding) throws Exception {
+    return mvc.perform(
+            get("/api/v1/todos")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+        .andExpect(status().isOk())
+        .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+        .andReturn()
+        .getResponse();
+  }
+
+  private Catalogue read(byte[] body) throws IOException {
+    return objectMapper.readValue(body, Catalogue.class);
+  }
+
+  private static Page<TodoModel> page(String description) {
+    List<TodoModel> todos = new ArrayList<>();
+    for (int i = 1; i <= TODOS; i++) {
+      todos.add(
+          TodoModel.builder()
+              .id(i)
+              .name("todo name " + i)
+              .description(description)
+              .tasks(List.of(TaskModel.builder().name("task name " + i).description("ripe").build()))
+              .build());
+    }
+    return new PageImpl<>(todos, PageRequest.of(0, 20), TODOS);
+  }
+
+  private static byte[] gunzip(byte[] body) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      return in.readAllBytes();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.todolist.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.example.todolist.model.TodoModel;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+/** Streams the changes feed over HTTP while todos are changed through the API. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:changes;DB_CLOSE_DELAY=-1")
+class TodoChangesEndpointTest {
+  private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT =
+      new ParameterizedTypeReference<>() {};
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  @Autowired private WebTestClient client;
+
+  @Test
+  @DisplayName("Committed changes are streamed and replayed after Last-Event-ID")
+  void changesTest() {
+    Flux<ServerSentEvent<String>> events = changes(null);
+    int id = create("todo name 1");
+
+    ServerSentEvent<String> created = events.blockFirst(TIMEOUT);
+    assertNotNull(created);
+    assertEquals("todo.created", created.event());
+    assertEquals("{\"type\":\"todo.created\",\"todoId\":%d,\"version\":0}".formatted(id), created.data());
+
+    int missedId = create("todo name 2");
+    client.post().uri("/api/v1/todos").bodyValue(todo("todo name 2")).exchange().expectStatus().isEqualTo(409);
+    ServerSentEvent<String> missed = changes(Long.parseLong(created.id())).blockFirst(TIMEOUT);
+    assertNotNull(missed);
+    assertEquals("todo.created", missed.event());
+    assertEquals(Long.parseLong(created.id()) + 1, Long.parseLong(missed.id()));
+    assertEquals("{\"type\":\"todo.created\",\"todoId\":%d,\"version\":0}".formatted(missedId), missed.data());
+  }
+
+  private Flux<ServerSentEvent<String>> changes(Long lastEventId) {
+    return client.get().uri("/api/v1/todos/changes")
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .headers(headers -> {
+          if (lastEventId != null) {
+            headers.set("Last-Event-ID", String.valueOf(lastEventId));
+          }
+        })
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(EVENT)
+        .getResponseBody()
+        // skips the reconnection delay sent when the stream opens
+        .filter(event -> event.event() != null);
+  }
+
+  private int create(String name) {
+    return client.post().uri("/api/v1/todos").bodyValue(todo(name))
+        .exchange()
+        .expectStatus().isCreated()
+        .expectBody(TodoModel.class)
+        .returnResult()
+        .getResponseBody()
+        .getId();
+  }
+
+  private static TodoModel todo(String name) {
+    return TodoModel.builder().name(name).description("todo description").tasks(List.of()).build();
+  }
+}
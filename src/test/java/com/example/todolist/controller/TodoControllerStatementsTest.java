@@ -0,0 +1,602 @@
+package com.example.todolist.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.todolist.entity.TaskEntity;
+import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.TodoPatch;
+import com.example.todolist.repository.IdempotencyKeyRepositoryJPA;
+import com.example.todolist.repository.TaskRepositoryJPA;
+import com.example.todolist.repository.TodoRepositoryJPA;
+import com.example.todolist.repository.TombstoneRepositoryJPA;
+import com.example.todolist.service.IdempotencyService;
+import com.example.todolist.service.TodoSearchIndex;
+import com.example.todolist.util.ControllerUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Asserts the number of JDBC statements each endpoint issues against an in-memory database. */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1",
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "main.idempotencyJdbc=true"
+    })
+class TodoControllerStatementsTest {
+  private static final int TODOS = 5;
+  private static final int TASKS_PER_TODO = 4;
+
+  @Autowired private MockMvc mvc;
+  @Autowired private TodoRepositoryJPA todoRepository;
+  @Autowired private TaskRepositoryJPA taskRepository;
+  @Autowired private TombstoneRepositoryJPA tombstoneRepository;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+  @Autowired private CacheManager cacheManager;
+  @Autowired private MeterRegistry meterRegistry;
+  @Autowired private TransactionTemplate transactionTemplate;
+  @Autowired private TodoSearchIndex searchIndex;
+  @Autowired private IdempotencyKeyRepositoryJPA idempotencyKeyRepository;
+  private Statistics statistics;
+  private final List<Integer> ids = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    for (int i = 0; i < TODOS; i++) {
+      TodoEntity todo =
+          TodoEntity.builder().name("todo name %d".formatted(i)).description("todo description").build();
+      for (int j = 0; j < TASKS_PER_TODO; j++) {
+        todo.addTask(
+            TaskEntity.builder().name("task name %d".formatted(j)).description("task description").build());
+      }
+      ids.add(todoRepository.save(todo).getId());
+    }
+    // the first change ever inserts the change sequence row, counted statements assume it exists
+    transactionTemplate.executeWithoutResult(status -> tombstoneRepository.nextChangeSeq(1));
+    // rows are inserted bypassing the service, so cached reads of previous tests are dropped here
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    taskRepository.deleteAll();
+    todoRepository.deleteAll();
+    tombstoneRepository.deleteAll();
+    idempotencyKeyRepository.deleteAll();
+    ids.clear();
+  }
+
+  @Test
+  @DisplayName("Todo page loads todos and all their tasks with two selects")
+  void getTodosStatementsTest() throws Exception {
+    mvc.perform(get("/api/v1/todos").accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("Todo slice after a cursor loads todos and all their tasks with two selects")
+  void getTodosAfterStatementsTest() throws Exception {
+    String cursor =
+        mvc.perform(get("/api/v1/todos").queryParam("size", "2").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .replaceAll(".*\"cursor\":\"([^\"]+)\".*", "$1");
+    statistics.clear();
+
+    mvc.perform(get("/api/v1/todos").queryParam("after", cursor).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("Todo page of selected fields reads the todos table only, tasks with one more select")
+  void getTodosSparseFieldsStatementsTest() throws Exception {
+    String body =
+        mvc.perform(get("/api/v1/todos").queryParam("fields", "id,name").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertTrue(body.contains("\"name\":\"todo name 0\""));
+    assertFalse(body.contains("description"));
+    assertFalse(body.contains("tasks"));
+
+    statistics.clear();
+    body =
+        mvc.perform(get("/api/v1/todos").queryParam("fields", "tasks.name").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(TODOS * TASKS_PER_TODO, body.split("task name").length - 1);
+    assertFalse(body.contains("description"));
+  }
+
+  @Test
+  @DisplayName("Export streams all todos with their tasks from a single select")
+  void exportTodosStatementsTest() throws Exception {
+    MvcResult result =
+        mvc.perform(get("/api/v1/todos/export").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    String body =
+        mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    assertEquals(TODOS, body.lines().count());
+    assertEquals(TASKS_PER_TODO, body.lines().findFirst().orElseThrow().split("task name").length - 1);
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("Bulk creation checks names with one select and batches the inserts")
+  void createTodosStatementsTest() throws Exception {
+    List<TodoModel> newTodos = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      List<TaskModel> tasks = new ArrayList<>();
+      for (int j = 0; j < TASKS_PER_TODO; j++) {
+        tasks.add(TaskModel.builder().name("task name %d".formatted(j)).description("task description").build());
+      }
+      newTodos.add(TodoModel.builder().name("bulk todo %d".formatted(i)).description("todo description")
+          .tasks(tasks).build());
+    }
+
+    mvc.perform(post("/api/v1/todos/bulk")
+            .content(ControllerUtil.toJsonString(newTodos))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+
+    assertEquals(20 * (TASKS_PER_TODO + 1), statistics.getEntityInsertCount());
+    // name check, one batched insert per table and at most two id block allocations per table
+    assertTrue(statistics.getPrepareStatementCount() <= 7);
+    // the change numbers are written once the todos are inserted, one per todo
+    List<Long> changeSeqs = transactionTemplate.execute(status -> todoRepository.findAll().stream()
+        .filter(todo -> todo.getName().startsWith("bulk todo")).map(TodoEntity::getChangeSeq).distinct().toList());
+    assertEquals(20, changeSeqs.size());
+  }
+
+  @Test
+  @DisplayName("Todo is loaded with its tasks by a single select")
+  void getTodoStatementsTest() throws Exception {
+    mvc.perform(get("/api/v1/todos/%d".formatted(ids.get(0))).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getCollectionLoadCount());
+  }
+
+  @Test
+  @DisplayName("Repeated loads of a todo are served from the second-level cache")
+  void secondLevelCacheStatementsTest() {
+    int id = ids.get(0);
+    loadTasks(id);
+    statistics.clear();
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(TASKS_PER_TODO, loadTasks(id));
+    }
+
+    assertEquals(0, statistics.getPrepareStatementCount());
+    // the todo, its tasks collection and every task
+    assertEquals(3 * (TASKS_PER_TODO + 2), statistics.getSecondLevelCacheHitCount());
+  }
+
+  @Test
+  @DisplayName("Task mutations evict the cached tasks collection of the todo")
+  void secondLevelCacheEvictionTest() throws Exception {
+    int id = ids.get(0);
+    loadTasks(id);
+
+    mvc.perform(post("/api/v1/todos/%d/tasks".formatted(id))
+            .content(ControllerUtil.toJsonString(
+                TaskModel.builder().name("new task name").description("task description").build()))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    statistics.clear();
+
+    assertEquals(TASKS_PER_TODO + 1, loadTasks(id));
+    assertEquals(1, statistics.getCollectionLoadCount());
+    statistics.clear();
+    assertEquals(TASKS_PER_TODO + 1, loadTasks(id));
+    assertEquals(0, statistics.getCollectionLoadCount());
+
+    mvc.perform(delete("/api/v1/todos/%d/tasks".formatted(id)).queryParam("name", "new task name"))
+        .andExpect(status().isOk());
+    statistics.clear();
+
+    assertEquals(TASKS_PER_TODO, loadTasks(id));
+    assertEquals(1, statistics.getCollectionLoadCount());
+  }
+
+  @Test
+  @DisplayName("Changes of a todo keep the other todos in the second-level cache")
+  void secondLevelCacheOtherTodosTest() throws Exception {
+    int id = ids.get(0);
+    loadTasks(id);
+
+    mvc.perform(post("/api/v1/todos/%d/tasks".formatted(ids.get(1)))
+            .content(ControllerUtil.toJsonString(
+                TaskModel.builder().name("new task name").description("task description").build()))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    mvc.perform(patch("/api/v1/todos/%d".formatted(ids.get(2)))
+            .content("{\"description\": \"new todo description\"}")
+            .contentType(TodoPatch.MEDIA_TYPE))
+        .andExpect(status().isOk());
+    statistics.clear();
+
+    assertEquals(TASKS_PER_TODO, loadTasks(id));
+    assertEquals(0, statistics.getPrepareStatementCount());
+    // the todo, its tasks collection and every task
+    assertEquals(TASKS_PER_TODO + 2, statistics.getSecondLevelCacheHitCount());
+  }
+
+  @Test
+  @DisplayName("Repeated reads of todo and todo page are served from cache")
+  void cachedReadsStatementsTest() throws Exception {
+    double hits = todoCacheHits();
+    for (int i = 0; i < 3; i++) {
+      mvc.perform(get("/api/v1/todos/%d".formatted(ids.get(0))).accept(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk());
+      mvc.perform(get("/api/v1/todos").accept(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk());
+    }
+
+    assertEquals(3, statistics.getPrepareStatementCount());
+    assertEquals(hits + 2, todoCacheHits());
+  }
+
+  @Test
+  @DisplayName("Task mutations evict the cached todo and todo pages")
+  void cacheEvictionTest() throws Exception {
+    String todoUrl = "/api/v1/todos/%d".formatted(ids.get(0));
+    TaskModel taskModel = TaskModel.builder().name("new task name").description("task description").build();
+    mvc.perform(get(todoUrl).accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.tasks.size()", is(TASKS_PER_TODO)));
+    mvc.perform(get("/api/v1/todos").accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.todos[0].tasks.size()", is(TASKS_PER_TODO)));
+
+    mvc.perform(post(todoUrl + "/tasks")
+            .content(ControllerUtil.toJsonString(taskModel))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+
+    mvc.perform(get(todoUrl).accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.tasks.size()", is(TASKS_PER_TODO + 1)));
+    mvc.perform(get("/api/v1/todos").accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.todos[0].tasks.size()", is(TASKS_PER_TODO + 1)));
+
+    mvc.perform(delete(todoUrl + "/tasks").queryParam("name", taskModel.getName()))
+        .andExpect(status().isOk());
+
+    mvc.perform(get(todoUrl).accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.tasks.size()", is(TASKS_PER_TODO)));
+  }
+
+  @Test
+  @DisplayName("Unchanged todo page is checked by a single select of versions")
+  void getTodosNotModifiedStatementsTest() throws Exception {
+    String eTag =
+        mvc.perform(get("/api/v1/todos").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    statistics.clear();
+
+    mvc.perform(get("/api/v1/todos").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified());
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  @DisplayName("Todo and task mutations change the todo ETag")
+  void todoVersionTest() throws Exception {
+    String todoUrl = "/api/v1/todos/%d".formatted(ids.get(0));
+    TodoModel todo =
+        TodoModel.builder()
+            .name("todo name 0")
+            .description("new todo description")
+            .tasks(List.of(TaskModel.builder().name("task name 0").description("task description").build()))
+            .build();
+    String eTag = mvc.perform(get(todoUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    mvc.perform(get(todoUrl).header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isNotModified());
+
+    mvc.perform(post(todoUrl + "/tasks")
+            .content(ControllerUtil.toJsonString(
+                TaskModel.builder().name("new task name").description("task description").build()))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    mvc.perform(get(todoUrl).header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isOk());
+    eTag = mvc.perform(get(todoUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    mvc.perform(delete(todoUrl + "/tasks").queryParam("name", "new task name")).andExpect(status().isOk());
+    mvc.perform(get(todoUrl).header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isOk());
+    eTag = mvc.perform(get(todoUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    String updatedETag =
+        mvc.perform(put(todoUrl)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .content(ControllerUtil.toJsonString(todo))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    mvc.perform(get(todoUrl).header(HttpHeaders.IF_NONE_MATCH, updatedETag))
+        .andExpect(status().isNotModified());
+    mvc.perform(put(todoUrl)
+            .header(HttpHeaders.IF_MATCH, eTag)
+            .content(ControllerUtil.toJsonString(todo))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  @DisplayName("Duplicate todo name is rejected by the unique constraint")
+  void createTodoDuplicateNameTest() throws Exception {
+    TodoModel todo = TodoModel.builder().name("todo name 0").description("todo description").tasks(List.of()).build();
+
+    mvc.perform(post("/api/v1/todos")
+            .content(ControllerUtil.toJsonString(todo))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isConflict());
+
+    assertEquals(TODOS, todoRepository.count());
+  }
+
+  @Test
+  @DisplayName("Todo is deleted without loading it or its tasks")
+  void deleteTodoStatementsTest() throws Exception {
+    mvc.perform(delete("/api/v1/todos/%d".formatted(ids.get(0)))).andExpect(status().isOk());
+
+    // change number increment and read, tasks and todo deletes, tombstone insert
+    assertEquals(5, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  @DisplayName("Task is created without loading the todo tasks")
+  void createTaskStatementsTest() throws Exception {
+    TaskModel taskModel = TaskModel.builder().name("new task name").description("task description").build();
+
+    mvc.perform(post("/api/v1/todos/%d/tasks".formatted(ids.get(0)))
+            .content(ControllerUtil.toJsonString(taskModel))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+
+    // todo select for update and version increment, task name check, task insert, change number
+    // increment and read and update
+    assertEquals(7, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  @DisplayName("Retried task creation is answered from the stored response without statements")
+  void createTaskIdempotencyKeyStatementsTest() throws Exception {
+    String content = ControllerUtil.toJsonString(
+        TaskModel.builder().name("new task name").description("task description").build());
+
+    mvc.perform(post("/api/v1/todos/%d/tasks".formatted(ids.get(0)))
+            .header(IdempotencyService.IDEMPOTENCY_KEY, "b1946ac9")
+            .content(content)
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    statistics.clear();
+    mvc.perform(post("/api/v1/todos/%d/tasks".formatted(ids.get(0)))
+            .header(IdempotencyService.IDEMPOTENCY_KEY, "b1946ac9")
+            .content(content)
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.name", is("new task name")));
+
+    assertEquals(0, statistics.getPrepareStatementCount());
+    assertEquals(1, idempotencyKeyRepository.count());
+    assertEquals(TASKS_PER_TODO + 1, loadTasks(ids.get(0)));
+  }
+
+  @Test
+  @DisplayName("Task is deleted by name without loading the todo tasks")
+  void deleteTaskStatementsTest() throws Exception {
+    mvc.perform(delete("/api/v1/todos/%d/tasks".formatted(ids.get(0))).queryParam("name", "task name 0"))
+        .andExpect(status().isOk());
+
+    // todo select for update and version increment, task delete, change number increment and read
+    // and update
+    assertEquals(6, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getEntityLoadCount());
+    mvc.perform(delete("/api/v1/todos/%d/tasks".formatted(ids.get(0))).queryParam("name", "task name 0"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("Batch task creation bumps the todo once and batches the inserts")
+  void createTasksStatementsTest() throws Exception {
+    List<TaskModel> newTasks = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      newTasks.add(TaskModel.builder().name("new task name %d".formatted(i)).description("task description").build());
+    }
+
+    mvc.perform(post("/api/v1/todos/%d/tasks/batch".formatted(ids.get(0)))
+            .content(ControllerUtil.toJsonString(newTasks))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.created", is(20)));
+
+    assertEquals(20, statistics.getEntityInsertCount());
+    assertEquals(1, statistics.getEntityLoadCount());
+    // todo select for update and version increment, task name check, one batched insert, at most
+    // two id block allocations, change number increment and read and update
+    assertTrue(statistics.getPrepareStatementCount() <= 9);
+    assertEquals(TASKS_PER_TODO + 20, loadTasks(ids.get(0)));
+  }
+
+  @Test
+  @DisplayName("Batch task deletion checks the names once and deletes them with one statement")
+  void deleteTasksStatementsTest() throws Exception {
+    mvc.perform(delete("/api/v1/todos/%d/tasks/batch".formatted(ids.get(0)))
+            .queryParam("name", "task name 0", "task name 1", "missing task name"))
+        .andExpect(status().isMultiStatus())
+        .andExpect(jsonPath("$.deleted", is(2)))
+        .andExpect(jsonPath("$.items[2].status", is(404)));
+
+    // name check, todo select for update and version increment, task delete, change number
+    // increment and read and update
+    assertEquals(7, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getEntityLoadCount());
+    assertEquals(TASKS_PER_TODO - 2, loadTasks(ids.get(0)));
+  }
+
+  @Test
+  @DisplayName("Sync returns the changes since the previous sync with four selects")
+  void syncStatementsTest() throws Exception {
+    String seq =
+        mvc.perform(get("/api/v1/todos/sync").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.todos.length()", is(TODOS)))
+            .andExpect(jsonPath("$.todos[0].tasks.length()", is(TASKS_PER_TODO)))
+            .andExpect(jsonPath("$.more", is(false)))
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .replaceAll(".*\"seq\":(\\d+).*", "$1");
+    // change number read, changed todos, tombstones and one batch of tasks
+    assertEquals(4, statistics.getPrepareStatementCount());
+    mvc.perform(delete("/api/v1/todos/%d".formatted(ids.get(0)))).andExpect(status().isOk());
+    mvc.perform(delete("/api/v1/todos/%d/tasks".formatted(ids.get(1))).queryParam("name", "task name 0"))
+        .andExpect(status().isOk());
+
+    mvc.perform(get("/api/v1/todos/sync").queryParam("since", seq).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.todos.length()", is(1)))
+        .andExpect(jsonPath("$.todos[0].id", is(ids.get(1))))
+        .andExpect(jsonPath("$.todos[0].tasks.length()", is(TASKS_PER_TODO - 1)))
+        .andExpect(jsonPath("$.deleted[0]", is(ids.get(0))))
+        .andExpect(jsonPath("$.seq", is(Integer.parseInt(seq) + 2)));
+  }
+
+  @Test
+  @DisplayName("Todo patch updates only the supplied fields and tasks")
+  void patchTodoStatementsTest() throws Exception {
+    String todoUrl = "/api/v1/todos/%d".formatted(ids.get(0));
+
+    mvc.perform(patch(todoUrl)
+            .content("{\"description\": \"new todo description\"}")
+            .contentType(TodoPatch.MEDIA_TYPE))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.description", is("new todo description")))
+        .andExpect(jsonPath("$.tasks.length()", is(TASKS_PER_TODO)));
+
+    // todo from the second-level cache, todo update, change number increment and read and update,
+    // tasks select of the response
+    assertEquals(5, statistics.getPrepareStatementCount());
+    assertEquals(2, statistics.getEntityUpdateCount());
+    statistics.clear();
+
+    mvc.perform(patch(todoUrl)
+            .content("{\"tasks\": {\"task name 0\": {\"description\": \"new task description\"},"
+                + " \"task name 1\": null, \"new task name\": {\"description\": \"task description\"}}}")
+            .contentType(TodoPatch.MEDIA_TYPE))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.tasks.length()", is(TASKS_PER_TODO)))
+        .andExpect(jsonPath("$.tasks[0].description", is("new task description")));
+
+    // the untouched tasks are neither deleted nor rewritten: one task update and the change number
+    // of the todo, whose version is bumped by a lock
+    assertEquals(2, statistics.getEntityUpdateCount());
+    assertEquals(1, statistics.getEntityInsertCount());
+    assertEquals(1, statistics.getEntityDeleteCount());
+    mvc.perform(patch(todoUrl)
+            .content("{\"name\": \"todo name 1\"}")
+            .contentType(TodoPatch.MEDIA_TYPE))
+        .andExpect(status().isConflict());
+    mvc.perform(patch(todoUrl)
+            .content("{\"name\": \"short\"}")
+            .contentType(TodoPatch.MEDIA_TYPE))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Search finds todos in the index and loads them with two selects")
+  void searchStatementsTest() throws Exception {
+    // rows are inserted bypassing the service, the index is rebuilt from them
+    searchIndex.rebuild();
+    statistics.clear();
+
+    mvc.perform(get("/api/v1/todos/search").queryParam("q", "todo name").queryParam("size", "2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.todos.length()", is(2)))
+        .andExpect(jsonPath("$.todos[0].tasks.length()", is(TASKS_PER_TODO)))
+        .andExpect(jsonPath("$.page", is(0)))
+        .andExpect(jsonPath("$.next").exists());
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+    mvc.perform(post("/api/v1/todos/%d/tasks".formatted(ids.get(3)))
+            .content(ControllerUtil.toJsonString(
+                TaskModel.builder().name("Buy detergent").description("task description").build()))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated());
+    mvc.perform(get("/api/v1/todos/search").queryParam("q", "detergent").accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.todos.length()", is(1)))
+        .andExpect(jsonPath("$.todos[0].id", is(ids.get(3))));
+  }
+
+  /** Loads the todo and its tasks in a transaction of its own, returns the number of tasks */
+  private int loadTasks(int id) {
+    return transactionTemplate.execute(status -> todoRepository.findById(id).orElseThrow().getTasks().size());
+  }
+
+  private double todoCacheHits() {
+    return meterRegistry.get("cache.gets").tag("cache", "todo").tag("result", "hit")
+        .functionCounter().count();
+  }
+}
@@ -1,13 +1,29 @@
 package com.example.todolist.controller;
 
+import com.example.todolist.model.BulkDeleteResult;
+import com.example.todolist.model.BulkItemResult;
+import com.example.todolist.model.BulkResult;
+import com.example.todolist.model.SparseTodoModel;
 import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoFields;
 import com.example.todolist.model.TodoModel;
 import com.example.todolist.model.exceptions.NoSuchTaskFoundException;
 import com.example.todolist.model.exceptions.NoSuchTodoFoundException;
+import com.example.todolist.model.TodoVersion;
+import com.example.todolist.model.exceptions.TaskAlreadyExistsException;
 import com.example.todolist.model.exceptions.TodoAlreadyExistsException;
+import com.example.todolist.model.exceptions.TodoVersionMismatchException;
 import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.IdempotencyKeyRepositoryJPA;
+import com.example.todolist.service.IdempotencyService;
+import com.example.todolist.service.TodoChangeFeed;
 import com.example.todolist.service.TodosService;
 import com.example.todolist.util.ControllerUtil;
+import com.example.todolist.util.CursorCodec;
+import com.example.todolist.util.ETags;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,18 +31,28 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -36,16 +62,29 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class TodoControllerTest {
   private MockMvc mvc;
   private final TodosService service = mock(TodosService.class);
+  private final TodoChangeFeed changeFeed = mock(TodoChangeFeed.class);
   private final MainProperties properties = mock(MainProperties.class);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
   private List<TodoModel> todos;
   private TodoModel todoModel;
 
   @BeforeEach
   void setUp() {
-    TodoController controller = new TodoController(service);
+    when(properties.getExceptionDateFormat()).thenReturn("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+    ObjectMapper objectMapper = new ObjectMapper();
+    IdempotencyService idempotency =
+        new IdempotencyService(
+            mock(IdempotencyKeyRepositoryJPA.class),
+            objectMapper,
+            mock(PlatformTransactionManager.class),
+            new MainProperties());
+    TodoController controller =
+        new TodoController(
+            service, changeFeed, objectMapper, idempotency, new ResponseBodyCache(new MainProperties()));
     mvc =
         MockMvcBuilders.standaloneSetup(controller)
-            .setControllerAdvice(new RestResponseEntityExceptionHandler(properties))
+            .setControllerAdvice(
+                new RestResponseEntityExceptionHandler(new ProblemFactory(properties, meterRegistry)))
             .build();
 
     todos = new ArrayList<>();
@@ -81,7 +120,7 @@ class TodoControllerTest {
   @DisplayName("Should fetch all todos")
   @WithMockUser
   void getAllTodosTest() throws Exception {
-    when(service.getTodos()).thenReturn(todos);
+    when(service.getTodos(0, null, null)).thenReturn(new PageImpl<>(todos, PageRequest.of(0, 20), 2));
 
     mvc.perform(get("/api/v1/todos").accept(MediaType.APPLICATION_JSON))
         .andDo(print())
@@ -93,8 +132,119 @@ class TodoControllerTest {
         .andExpect(jsonPath("$.todos[0].tasks[0].name", is(todos.get(0).getTasks().get(0).getName())))
         .andExpect(jsonPath("$.todos[1].name", is(todos.get(1).getName())))
         .andExpect(jsonPath("$.todos[1].description", is(todos.get(1).getDescription())))
-        .andExpect(jsonPath("$.todos[1].tasks[0].name", is(todos.get(1).getTasks().get(0).getName())));
-    verify(service, times(1)).getTodos();
+        .andExpect(jsonPath("$.todos[1].tasks[0].name", is(todos.get(1).getTasks().get(0).getName())))
+        .andExpect(jsonPath("$.total", is(2)))
+        .andExpect(jsonPath("$.page", is(0)))
+        .andExpect(jsonPath("$.size", is(20)))
+        .andExpect(jsonPath("$.next").doesNotExist());
+    verify(service, times(1)).getTodos(0, null, null);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should return link to the next page")
+  @WithMockUser
+  void getTodosNextPageTest() throws Exception {
+    when(service.getTodos(0, 1, "name,desc"))
+        .thenReturn(new PageImpl<>(todos.subList(0, 1), PageRequest.of(0, 1), 2));
+
+    mvc.perform(get("/api/v1/todos")
+                    .queryParam("size", "1")
+                    .queryParam("sort", "name,desc")
+                    .accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.todos.size()", is(1)))
+        .andExpect(jsonPath("$.total", is(2)))
+        .andExpect(jsonPath("$.next", is("http://localhost/api/v1/todos?sort=name,desc&page=1&size=1")))
+        .andExpect(jsonPath("$.cursor").doesNotExist());
+    verify(service, times(1)).getTodos(0, 1, "name,desc");
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should fetch todos after the cursor and return the next cursor")
+  @WithMockUser
+  void getTodosAfterCursorTest() throws Exception {
+    String after = CursorCodec.encode(new CursorCodec.Cursor("id", 0, ""));
+    String next = CursorCodec.encode(new CursorCodec.Cursor("id", 1, ""));
+    when(service.getTodosAfter(after, 1))
+        .thenReturn(new SliceImpl<>(todos.subList(0, 1), PageRequest.of(0, 1, Sort.by("id")), true));
+
+    mvc.perform(get("/api/v1/todos")
+                    .queryParam("after", after)
+                    .queryParam("size", "1")
+                    .accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.todos.size()", is(1)))
+        .andExpect(jsonPath("$.total").doesNotExist())
+        .andExpect(jsonPath("$.page").doesNotExist())
+        .andExpect(jsonPath("$.cursor", is(next)))
+        .andExpect(jsonPath("$.next", is("http://localhost/api/v1/todos?after=" + next + "&size=1")));
+    verify(service, times(1)).getTodosAfter(after, 1);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should write only the selected fields of the todos")
+  @WithMockUser
+  void getTodosSparseFieldsTest() throws Exception {
+    TodoFields fields = TodoFields.parse("id,tasks.name");
+    List<TodoModel> sparse =
+        todos.stream()
+            .<TodoModel>map(todo -> new SparseTodoModel(
+                todo.getId(), todo.getName(), null, todo.getTasks(), todo.getVersion(), fields))
+            .toList();
+    when(service.getTodos(0, null, null, fields)).thenReturn(new PageImpl<>(sparse, PageRequest.of(0, 20), 2));
+
+    mvc.perform(get("/api/v1/todos")
+                    .queryParam("fields", " id, tasks.name")
+                    .accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.todos.size()", is(todos.size())))
+        .andExpect(jsonPath("$.todos[0].id", is(todos.get(0).getId())))
+        .andExpect(jsonPath("$.todos[0].name").doesNotExist())
+        .andExpect(jsonPath("$.todos[0].description").doesNotExist())
+        .andExpect(jsonPath("$.todos[0].tasks[0].name", is(todos.get(0).getTasks().get(0).getName())))
+        .andExpect(jsonPath("$.todos[0].tasks[0].description").doesNotExist())
+        .andExpect(jsonPath("$.total", is(2)));
+    verify(service, times(1)).getTodos(0, null, null, fields);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should return 400 if a selected field is unknown")
+  @WithMockUser
+  void getTodoUnknownFieldTest() throws Exception {
+    mvc.perform(get("/api/v1/todos/1").queryParam("fields", "id,owner").accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.messages[0]", is("Unknown field: owner")));
+    verifyNoInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should stream all todos as newline delimited JSON")
+  @WithMockUser
+  void exportTodosTest() throws Exception {
+    doAnswer(invocation -> {
+      Consumer<TodoModel> consumer = invocation.getArgument(0);
+      todos.forEach(consumer);
+      return null;
+    }).when(service).exportTodos(any());
+
+    MvcResult result = mvc.perform(get("/api/v1/todos/export").accept(MediaType.APPLICATION_NDJSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mvc.perform(asyncDispatch(result))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(
+            ControllerUtil.toJsonString(todos.get(0)) + "\n" + ControllerUtil.toJsonString(todos.get(1)) + "\n"));
+    verify(service, times(1)).exportTodos(any());
     verifyNoMoreInteractions(service);
   }
 
@@ -109,6 +259,7 @@ class TodoControllerTest {
         .andDo(print())
         .andExpect(status().isOk())
         .andExpect(content().contentType("application/json"))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
         .andExpect(jsonPath("$", notNullValue()))
         .andExpect(jsonPath("$.name", is(todoModel.getName())))
         .andExpect(jsonPath("$.description", is(todoModel.getDescription())))
@@ -119,23 +270,56 @@ class TodoControllerTest {
     verifyNoMoreInteractions(service);
   }
 
+  @Test
+  @DisplayName("Should return 304 without loading the todo if its ETag matches")
+  @WithMockUser
+  void getTodoNotModifiedTest() throws Exception {
+    int id = 1;
+    when(service.getTodoVersion(id)).thenReturn(7L);
+
+    mvc.perform(get("/api/v1/todos" + "/%d".formatted(id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"7\"")
+                .accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+        .andExpect(content().string(""));
+    verify(service, times(1)).getTodoVersion(id);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should return 304 without loading the todos if the page ETag matches")
+  @WithMockUser
+  void getTodosNotModifiedTest() throws Exception {
+    PageImpl<TodoVersion> versions = new PageImpl<>(List.copyOf(todos), PageRequest.of(0, 20), 2);
+    when(service.getTodosVersions(0, null, null)).thenReturn(versions);
+
+    mvc.perform(get("/api/v1/todos")
+                .header(HttpHeaders.IF_NONE_MATCH, ETags.of(new PageImpl<>(todos, PageRequest.of(0, 20), 2)))
+                .accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isNotModified());
+    verify(service, times(1)).getTodosVersions(0, null, null);
+    verifyNoMoreInteractions(service);
+  }
+
   @Test
   @DisplayName("Should return 404")
   @WithMockUser
   void getTodoByIdTodoNotFoundTest() throws Exception {
     int id = 1;
-    when(properties.getExceptionDateFormat()).thenReturn("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
     doThrow(new NoSuchTodoFoundException(id)).when(service).getTodo(id);
 
     mvc.perform(get("/api/v1/todos" + "/%d".formatted(id)).accept(MediaType.APPLICATION_JSON))
             .andDo(print())
             .andExpect(status().isNotFound())
-            .andExpect(content().contentType("application/json"))
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
             .andExpect(jsonPath("$", notNullValue()))
             .andExpect(jsonPath("$.status", is(HttpStatus.NOT_FOUND.value())))
-            .andExpect(jsonPath("$.error", is(HttpStatus.NOT_FOUND.getReasonPhrase())))
+            .andExpect(jsonPath("$.title", is(HttpStatus.NOT_FOUND.getReasonPhrase())))
             .andExpect(jsonPath("$.messages[0]", is("Todo ID is not found: " + id)))
-            .andExpect(jsonPath("$.path", is("http://localhost/api/v1/todos/" + id)))
+            .andExpect(jsonPath("$.instance", is("/api/v1/todos/" + id)))
             .andExpect(jsonPath("$.timestamp", notNullValue()));
     verify(service, times(1)).getTodo(id);
     verifyNoMoreInteractions(service);
@@ -173,6 +357,33 @@ class TodoControllerTest {
     verifyNoMoreInteractions(service);
   }
 
+  @Test
+  @DisplayName("Should call bulk todo creation and return 207 if some todos are not created")
+  @WithMockUser
+  void createTodosTest() throws Exception {
+    BulkResult result = new BulkResult(1, 1, List.of(
+        new BulkItemResult(0, todos.get(0).getName(), 201, 1, null),
+        new BulkItemResult(1, todos.get(1).getName(), 409, null, "Todo with this name already exists")));
+    when(service.createTodos(todos)).thenReturn(result);
+
+    mvc.perform(
+            post("/api/v1/todos/bulk")
+                .content(ControllerUtil.toJsonString(todos))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isMultiStatus())
+        .andExpect(jsonPath("$.created", is(1)))
+        .andExpect(jsonPath("$.failed", is(1)))
+        .andExpect(jsonPath("$.items[0].status", is(201)))
+        .andExpect(jsonPath("$.items[0].id", is(1)))
+        .andExpect(jsonPath("$.items[0].message").doesNotExist())
+        .andExpect(jsonPath("$.items[1].status", is(409)))
+        .andExpect(jsonPath("$.items[1].id").doesNotExist());
+    verify(service, times(1)).createTodos(todos);
+    verifyNoMoreInteractions(service);
+  }
+
   @Test
   @DisplayName("Should return 400")
   @WithMockUser
@@ -184,7 +395,6 @@ class TodoControllerTest {
             .tasks(new ArrayList<>())
             .build();
 
-    when(properties.getExceptionDateFormat()).thenReturn("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
     mvc.perform(
                     post("/api/v1/todos")
                             .content(ControllerUtil.toJsonString(newTodoModel))
@@ -194,13 +404,13 @@ class TodoControllerTest {
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$", notNullValue()))
             .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())))
-            .andExpect(jsonPath("$.error", is(HttpStatus.BAD_REQUEST.getReasonPhrase())))
+            .andExpect(jsonPath("$.title", is(HttpStatus.BAD_REQUEST.getReasonPhrase())))
             .andExpect(jsonPath("$.messages", hasSize(2)))
             .andExpect(jsonPath("$.messages[0]", Matchers.endsWith("length must be of 10 - 255 characters")))
             .andExpect(jsonPath("$.messages[0]", Matchers.startsWith("Field error in object")))
             .andExpect(jsonPath("$.messages[1]", Matchers.endsWith("length must be of 10 - 255 characters")))
             .andExpect(jsonPath("$.messages[1]", Matchers.startsWith("Field error in object")))
-            .andExpect(jsonPath("$.path", is("http://localhost/api/v1/todos")))
+            .andExpect(jsonPath("$.instance", is("/api/v1/todos")))
             .andExpect(jsonPath("$.timestamp", notNullValue()));
     verifyNoInteractions(service);
   }
@@ -217,7 +427,6 @@ class TodoControllerTest {
                     .tasks(todoModel.getTasks())
                     .build();
     doThrow(new TodoAlreadyExistsException(newTodoModel.getName())).when(service).createTodo(newTodoModel);
-    when(properties.getExceptionDateFormat()).thenReturn("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
     mvc.perform(
                     post("/api/v1/todos")
                             .content(ControllerUtil.toJsonString(newTodoModel))
@@ -227,14 +436,19 @@ class TodoControllerTest {
             .andExpect(status().isConflict())
             .andExpect(jsonPath("$", notNullValue()))
             .andExpect(jsonPath("$.status", is(HttpStatus.CONFLICT.value())))
-            .andExpect(jsonPath("$.error", is(HttpStatus.CONFLICT.getReasonPhrase())))
+            .andExpect(jsonPath("$.title", is(HttpStatus.CONFLICT.getReasonPhrase())))
             .andExpect(jsonPath("$.messages", hasSize(1)))
             .andExpect(jsonPath("$.messages[0]",
                     is("Todo with this name already exists: " + newTodoModel.getName())))
-            .andExpect(jsonPath("$.path", is("http://localhost/api/v1/todos")))
+            .andExpect(jsonPath("$.instance", is("/api/v1/todos")))
             .andExpect(jsonPath("$.timestamp", notNullValue()));
     verify(service, times(1)).createTodo(newTodoModel);
     verifyNoMoreInteractions(service);
+    assertEquals(1, meterRegistry.get(RestResponseEntityExceptionHandler.ERRORS_METER)
+            .tag("exception", "TodoAlreadyExistsException")
+            .tag("status", "409")
+            .counter()
+            .count());
   }
 
   @Test
@@ -249,7 +463,7 @@ class TodoControllerTest {
             .description(todoModel.getDescription())
             .tasks(todoModel.getTasks())
             .build();
-    when(service.updateTodo(todoModel)).thenReturn(todoModel);
+    when(service.updateTodo(todoModel, null)).thenReturn(todoModel);
 
     mvc.perform(
             put("/api/v1/todos" + "/%d".formatted(id))
@@ -266,7 +480,28 @@ class TodoControllerTest {
         .andExpect(jsonPath("$.tasks[0].name", is(todoModel.getTasks().get(0).getName())))
         .andExpect(
             jsonPath("$.tasks[0].description", is(todoModel.getTasks().get(0).getDescription())));
-    verify(service, times(1)).updateTodo(todoModel);
+    verify(service, times(1)).updateTodo(todoModel, null);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should return 412 if the todo changed since the If-Match version")
+  @WithMockUser
+  void updateTodoVersionMismatchTest() throws Exception {
+    int id = 1;
+    doThrow(new TodoVersionMismatchException(id)).when(service).updateTodo(todoModel, 3L);
+
+    mvc.perform(
+            put("/api/v1/todos" + "/%d".formatted(id))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(ControllerUtil.toJsonString(todoModel))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+        .andDo(print())
+        .andExpect(status().isPreconditionFailed())
+        .andExpect(jsonPath("$.status", is(HttpStatus.PRECONDITION_FAILED.value())))
+        .andExpect(jsonPath("$.messages[0]", is("Todo was modified since it was read: " + id)));
+    verify(service, times(1)).updateTodo(todoModel, 3L);
     verifyNoMoreInteractions(service);
   }
 
@@ -310,6 +545,57 @@ class TodoControllerTest {
     verifyNoMoreInteractions(service);
   }
 
+  @Test
+  @DisplayName("Should return 409 if the todo already has a task of the name")
+  @WithMockUser
+  void createTaskNameAlreadyExistsTest() throws Exception {
+    int id = 1;
+    TaskModel taskModel = TaskModel.builder()
+            .name("some task name")
+            .description("task description")
+            .build();
+    doThrow(new TaskAlreadyExistsException(taskModel.getName())).when(service).createTask(taskModel, id);
+
+    mvc.perform(post("/api/v1/todos" + "/%d/tasks".formatted(id))
+                    .content(ControllerUtil.toJsonString(taskModel))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.status", is(HttpStatus.CONFLICT.value())))
+            .andExpect(jsonPath("$.messages[0]", is("Task with this name already exists: some task name")));
+    verify(service, times(1)).createTask(taskModel, id);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Retried task creation with the same Idempotency-Key gets the first response")
+  void createTaskIdempotencyKeyTest() throws Exception {
+    int id = 1;
+    TaskModel taskModel = TaskModel.builder()
+            .name("some task name")
+            .description("task description")
+            .build();
+    when(service.createTask(taskModel, id)).thenReturn(taskModel);
+
+    for (int i = 0; i < 2; i++) {
+      mvc.perform(post("/api/v1/todos" + "/%d/tasks".formatted(id))
+                      .header(IdempotencyService.IDEMPOTENCY_KEY, "a6c1f0e4")
+                      .content(ControllerUtil.toJsonString(taskModel))
+                      .contentType(MediaType.APPLICATION_JSON))
+              .andExpect(status().isCreated())
+              .andExpect(jsonPath("$.name", is(taskModel.getName())));
+    }
+    taskModel.setDescription("other task description");
+    mvc.perform(post("/api/v1/todos" + "/%d/tasks".formatted(id))
+                    .header(IdempotencyService.IDEMPOTENCY_KEY, "a6c1f0e4")
+                    .content(ControllerUtil.toJsonString(taskModel))
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isUnprocessableEntity());
+    verify(service, times(1)).createTask(taskModel, id);
+    verifyNoMoreInteractions(service);
+  }
+
   @Test
   @DisplayName("Should call task deleting")
   @WithMockUser
@@ -328,13 +614,63 @@ class TodoControllerTest {
     verifyNoMoreInteractions(service);
   }
 
+  @Test
+  @DisplayName("Should call batch task creation and return 201")
+  @WithMockUser
+  void createTasksTest() throws Exception {
+    int id = 1;
+    List<TaskModel> tasks = List.of(
+        TaskModel.builder().name("some task name").description("task description").build(),
+        TaskModel.builder().name("another task name").description("task description").build());
+    BulkResult result = new BulkResult(2, 0, List.of(
+        new BulkItemResult(0, tasks.get(0).getName(), 201, null, null),
+        new BulkItemResult(1, tasks.get(1).getName(), 201, null, null)));
+    when(service.createTasks(tasks, id)).thenReturn(result);
+
+    mvc.perform(post("/api/v1/todos" + "/%d/tasks/batch".formatted(id))
+                    .content(ControllerUtil.toJsonString(tasks))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.created", is(2)))
+            .andExpect(jsonPath("$.items[1].name", is(tasks.get(1).getName())))
+            .andExpect(jsonPath("$.items[1].status", is(201)))
+            .andExpect(jsonPath("$.items[1].id").doesNotExist());
+    verify(service, times(1)).createTasks(tasks, id);
+    verifyNoMoreInteractions(service);
+  }
+
+  @Test
+  @DisplayName("Should call batch task deleting and return 207 if some tasks don't exist")
+  @WithMockUser
+  void deleteTasksTest() throws Exception {
+    int id = 1;
+    List<String> names = List.of("Task name", "Other task name");
+    BulkDeleteResult result = new BulkDeleteResult(1, 1, List.of(
+        new BulkItemResult(0, names.get(0), 200, null, null),
+        new BulkItemResult(1, names.get(1), 404, null, "Task with this name doesn't exist")));
+    when(service.deleteTasks(names, id)).thenReturn(result);
+
+    mvc.perform(delete("/api/v1/todos" + "/%d/tasks/batch".formatted(id))
+                    .queryParam("name", names.toArray(String[]::new))
+                    .accept(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isMultiStatus())
+            .andExpect(jsonPath("$.deleted", is(1)))
+            .andExpect(jsonPath("$.failed", is(1)))
+            .andExpect(jsonPath("$.items[0].status", is(200)))
+            .andExpect(jsonPath("$.items[1].status", is(404)));
+    verify(service, times(1)).deleteTasks(names, id);
+    verifyNoMoreInteractions(service);
+  }
+
   @Test
   @DisplayName("Should return 404")
   @WithMockUser
   void deleteTaskNotFoundTest() throws Exception {
     int id = 1;
     String taskName = "Task name";
-    when(properties.getExceptionDateFormat()).thenReturn("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
     doThrow(new NoSuchTaskFoundException(taskName)).when(service).deleteTask(taskName, id);
 
     mvc.perform(delete("/api/v1/todos" + "/%d/tasks".formatted(id))
@@ -342,12 +678,12 @@ class TodoControllerTest {
                     .accept(MediaType.APPLICATION_JSON))
             .andDo(print())
             .andExpect(status().isNotFound())
-            .andExpect(content().contentType("application/json"))
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
             .andExpect(jsonPath("$", notNullValue()))
             .andExpect(jsonPath("$.status", is(HttpStatus.NOT_FOUND.value())))
-            .andExpect(jsonPath("$.error", is(HttpStatus.NOT_FOUND.getReasonPhrase())))
+            .andExpect(jsonPath("$.title", is(HttpStatus.NOT_FOUND.getReasonPhrase())))
             .andExpect(jsonPath("$.messages", notNullValue()))
-            .andExpect(jsonPath("$.path", is("http://localhost/api/v1/todos/" + id + "/tasks")))
+            .andExpect(jsonPath("$.instance", is("/api/v1/todos/" + id + "/tasks")))
             .andExpect(jsonPath("$.timestamp", notNullValue()));
   }
 
@@ -357,7 +693,6 @@ class TodoControllerTest {
   void deleteTaskRunTimeErrorTest() throws Exception {
     int id = 1;
     String taskName = "Task name";
-    when(properties.getExceptionDateFormat()).thenReturn("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
     doThrow(new RuntimeException("Accessing field on null object")).when(service).deleteTask(taskName, id);
 
     mvc.perform(delete("/api/v1/todos" + "/%d/tasks".formatted(id))
@@ -365,12 +700,12 @@ class TodoControllerTest {
                     .accept(MediaType.APPLICATION_JSON))
             .andDo(print())
             .andExpect(status().isInternalServerError())
-            .andExpect(content().contentType("application/json"))
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
             .andExpect(jsonPath("$", notNullValue()))
             .andExpect(jsonPath("$.status", is(HttpStatus.INTERNAL_SERVER_ERROR.value())))
-            .andExpect(jsonPath("$.error", is(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase())))
+            .andExpect(jsonPath("$.title", is(HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase())))
             .andExpect(jsonPath("$.messages[0]", is("Accessing field on null object")))
-            .andExpect(jsonPath("$.path", is("http://localhost/api/v1/todos/" + id + "/tasks")))
+            .andExpect(jsonPath("$.instance", is("/api/v1/todos/" + id + "/tasks")))
             .andExpect(jsonPath("$.timestamp", notNullValue()));
   }
 }
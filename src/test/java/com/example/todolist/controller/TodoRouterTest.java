@@ -0,0 +1,219 @@
+package com.example.todolist.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.todolist.entity.TodoRow;
+import com.example.todolist.model.BulkResult;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.repository.TaskRepositoryR2DBC;
+import com.example.todolist.repository.TodoRepositoryR2DBC;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/** Runs the todos API of the "reactive" profile against an in-memory R2DBC H2 database. */
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+@TestPropertySource(properties = "spring.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1")
+class TodoRouterTest {
+  private static final String TODOS = "/api/v1/todos";
+
+  @Autowired private WebTestClient client;
+  @Autowired private TodoRepositoryR2DBC todoRepository;
+  @Autowired private TaskRepositoryR2DBC taskRepository;
+
+  @AfterEach
+  void tearDown() {
+    taskRepository.deleteAll().then(todoRepository.deleteAll()).block();
+  }
+
+  @Test
+  @DisplayName("Created todo is returned with its tasks and ETag, 304 if it didn't change")
+  void createAndGetTodoTest() {
+    TodoModel created = create(todo("todo name 1", 2));
+
+    client.get().uri(TODOS + "/{id}", created.getId())
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+        .expectBody()
+        .jsonPath("$.name").isEqualTo("todo name 1")
+        .jsonPath("$.tasks.length()").isEqualTo(2);
+    client.get().uri(TODOS + "/{id}", created.getId())
+        .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+        .exchange()
+        .expectStatus().isNotModified();
+    client.get().uri(TODOS + "/{id}", created.getId() + 1000)
+        .exchange()
+        .expectStatus().isNotFound()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(404);
+  }
+
+  @Test
+  @DisplayName("Invalid todo gets 400 and a taken name gets 409 with the error body")
+  void createTodoErrorsTest() {
+    create(todo("todo name 1", 0));
+
+    client.post().uri(TODOS).bodyValue(todo("short", 0))
+        .exchange()
+        .expectStatus().isBadRequest()
+        .expectBody()
+        .jsonPath("$.messages.length()").isEqualTo(1);
+    client.post().uri(TODOS).bodyValue(todo("todo name 1", 0))
+        .exchange()
+        .expectStatus().isEqualTo(409)
+        .expectBody()
+        .jsonPath("$.title").isEqualTo("Conflict")
+        .jsonPath("$.messages[0]").isEqualTo("Todo with this name already exists: todo name 1");
+  }
+
+  @Test
+  @DisplayName("Update is rejected with 412 if the todo changed since the If-Match ETag")
+  void updateTodoVersionTest() {
+    TodoModel created = create(todo("todo name 1", 1));
+
+    client.put().uri(TODOS + "/{id}", created.getId())
+        .header(HttpHeaders.IF_MATCH, "\"0\"")
+        .bodyValue(todo("todo name 2", 3))
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+        .expectBody()
+        .jsonPath("$.name").isEqualTo("todo name 2")
+        .jsonPath("$.tasks.length()").isEqualTo(3);
+    client.put().uri(TODOS + "/{id}", created.getId())
+        .header(HttpHeaders.IF_MATCH, "\"0\"")
+        .bodyValue(todo("todo name 3", 0))
+        .exchange()
+        .expectStatus().isEqualTo(412);
+  }
+
+  @Test
+  @DisplayName("Tasks are added and removed by name, each change bumps the todo version, names are unique")
+  void tasksTest() {
+    TodoModel created = create(todo("todo name 1", 0));
+
+    client.post().uri(TODOS + "/{id}/tasks", created.getId())
+        .bodyValue(new TaskModel("task name 1", "task description"))
+        .exchange()
+        .expectStatus().isCreated();
+    // the rejected one is rolled back with its version bump
+    client.post().uri(TODOS + "/{id}/tasks", created.getId())
+        .bodyValue(new TaskModel("task name 1", "other task description"))
+        .exchange()
+        .expectStatus().isEqualTo(409);
+    client.delete().uri(b -> b.path(TODOS + "/{id}/tasks").queryParam("name", "task name 1").build(created.getId()))
+        .exchange()
+        .expectStatus().isOk();
+    client.delete().uri(b -> b.path(TODOS + "/{id}/tasks").queryParam("name", "task name 1").build(created.getId()))
+        .exchange()
+        .expectStatus().isNotFound();
+    client.get().uri(TODOS + "/{id}", created.getId())
+        .exchange()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+    client.delete().uri(TODOS + "/{id}", created.getId()).exchange().expectStatus().isOk();
+    client.delete().uri(TODOS + "/{id}", created.getId()).exchange().expectStatus().isNotFound();
+  }
+
+  @Test
+  @DisplayName("Todos are listed by pages and by cursor slices")
+  void getTodosTest() {
+    IntStream.range(0, 3).forEach(i -> create(todo("todo name %d".formatted(i), 1)));
+
+    String body =
+        client.get().uri(TODOS + "?size=2&sort=name")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+    client.get().uri(TODOS + "?size=2&sort=name")
+        .exchange()
+        .expectBody()
+        .jsonPath("$.total").isEqualTo(3)
+        .jsonPath("$.todos.length()").isEqualTo(2)
+        .jsonPath("$.todos[0].tasks.length()").isEqualTo(1);
+    String cursor = body.replaceAll(".*\"cursor\":\"([^\"]+)\".*", "$1");
+    client.get().uri(TODOS + "?size=2&after={cursor}", cursor)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.todos.length()").isEqualTo(1)
+        .jsonPath("$.todos[0].name").isEqualTo("todo name 2");
+    client.get().uri(TODOS + "?sort=version")
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  @DisplayName("Bulk create skips invalid todos and repeated names and allocates ids across id blocks")
+  void createTodosTest() {
+    List<TodoModel> todos = new ArrayList<>();
+    IntStream.range(0, 60).forEach(i -> todos.add(todo("todo name %d".formatted(i), 1)));
+    todos.add(todo("todo name 0", 0));
+    todos.add(todo("short", 0));
+
+    BulkResult result =
+        client.post().uri(TODOS + "/bulk").bodyValue(todos)
+            .exchange()
+            .expectStatus().isEqualTo(207)
+            .expectBody(BulkResult.class)
+            .returnResult()
+            .getResponseBody();
+
+    assertEquals(60, result.created());
+    assertEquals(2, result.failed());
+    assertEquals(409, result.items().get(60).status());
+    assertEquals(400, result.items().get(61).status());
+    assertEquals(60, result.items().stream().filter(item -> item.id() != null).map(item -> item.id()).distinct().count());
+    // one reservation after the inserts: consecutive change numbers in creation order
+    List<Long> changeSeqs =
+        todoRepository.findAll().map(TodoRow::getChangeSeq).sort().collectList().block();
+    assertEquals(60, changeSeqs.size());
+    assertEquals(59, changeSeqs.get(59) - changeSeqs.get(0));
+    assertTrue(changeSeqs.get(0) > 0);
+    client.get().uri(TODOS + "/export").accept(MediaType.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(TodoModel.class)
+        .getResponseBody()
+        .count()
+        .doOnNext(count -> assertEquals(60, count))
+        .block();
+  }
+
+  private TodoModel create(TodoModel todo) {
+    return client.post().uri(TODOS).bodyValue(todo)
+        .exchange()
+        .expectStatus().isCreated()
+        .expectBody(TodoModel.class)
+        .returnResult()
+        .getResponseBody();
+  }
+
+  private static TodoModel todo(String name, int tasks) {
+    return TodoModel.builder()
+        .name(name)
+        .description("todo description")
+        .tasks(
+            IntStream.range(0, tasks)
+                .mapToObj(i -> new TaskModel("task name %d".formatted(i), "task description"))
+                .toList())
+        .build();
+  }
+}
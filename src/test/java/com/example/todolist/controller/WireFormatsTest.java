@@ -0,0 +1,140 @@
+package com.example.todolist.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.todolist.model.Catalogue;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.IdempotencyKeyRepositoryJPA;
+import com.example.todolist.service.IdempotencyService;
+import com.example.todolist.service.TodoChangeFeed;
+import com.example.todolist.service.TodosService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class WireFormatsTest {
+  private final TodosService service = mock(TodosService.class);
+  private final MappingJackson2CborHttpMessageConverter cbor =
+      new MappingJackson2CborHttpMessageConverter(
+          Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build());
+  private final MappingJackson2SmileHttpMessageConverter smile =
+      new MappingJackson2SmileHttpMessageConverter(
+          Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build());
+  private final ProtobufMessageConverter protobuf =
+      new ProtobufMessageConverter(Jackson2ObjectMapperBuilder.json());
+  private MockMvc mvc;
+  private TodoModel todo;
+
+  @BeforeEach
+  void setUp() {
+    ObjectMapper objectMapper = new ObjectMapper();
+    IdempotencyService idempotency =
+        new IdempotencyService(
+            mock(IdempotencyKeyRepositoryJPA.class),
+            objectMapper,
+            mock(PlatformTransactionManager.class),
+            new MainProperties());
+    TodoController controller =
+        new TodoController(
+            service,
+            mock(TodoChangeFeed.class),
+            objectMapper,
+            idempotency,
+            new ResponseBodyCache(new MainProperties()));
+    // in the order of WireFormatsConfig: JSON first, Protobuf last
+    mvc =
+        MockMvcBuilders.standaloneSetup(controller)
+            .setMessageConverters(
+                new MappingJackson2HttpMessageConverter(objectMapper), cbor, smile, protobuf)
+            .build();
+    todo =
+        TodoModel.builder()
+            .id(1)
+            .name("some todo name")
+            .description("todo description")
+            .tasks(List.of(TaskModel.builder().name("some task name").description("ripe").build()))
+            .build();
+  }
+
+  @Test
+  @DisplayName("Catalogue is sent in the accepted binary format, JSON is the default")
+  void catalogueFormatsTest() throws Exception {
+    when(service.getTodos(0, null, null))
+        .thenReturn(new PageImpl<>(List.of(todo), PageRequest.of(0, 20), 1));
+
+    for (AbstractHttpMessageConverter<Object> converter : List.of(cbor, smile, protobuf)) {
+      MediaType mediaType = converter.getSupportedMediaTypes().get(0);
+      byte[] body =
+          mvc.perform(get("/api/v1/todos").accept(mediaType))
+              .andExpect(status().isOk())
+              .andExpect(content().contentType(mediaType))
+              .andReturn()
+              .getResponse()
+              .getContentAsByteArray();
+
+      Catalogue catalogue = (Catalogue) read(converter, Catalogue.class, body);
+      assertEquals(List.of(todo), catalogue.todos());
+      assertEquals(1, catalogue.todos().get(0).getId());
+      assertEquals(1L, catalogue.total());
+      assertEquals(20, catalogue.size());
+    }
+    mvc.perform(get("/api/v1/todos").accept(MediaType.ALL))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  @DisplayName("Todo is created from a Protobuf message and returned as one")
+  void protobufTodoTest() throws Exception {
+    TodoModel newTodo = todo.toBuilder().id(0).build();
+    when(service.createTodo(newTodo)).thenReturn(todo);
+    MockHttpOutputMessage request = new MockHttpOutputMessage();
+    protobuf.write(newTodo, ProtobufMessageConverter.PROTOBUF, request);
+
+    byte[] body =
+        mvc.perform(
+                post("/api/v1/todos")
+                    .content(request.getBodyAsBytes())
+                    .contentType(ProtobufMessageConverter.PROTOBUF)
+                    .accept(ProtobufMessageConverter.PROTOBUF))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+    TodoModel created = (TodoModel) read(protobuf, TodoModel.class, body);
+    assertEquals(todo, created);
+    assertEquals(todo.getId(), created.getId());
+  }
+
+  private static Object read(
+      AbstractHttpMessageConverter<Object> converter, Class<?> type, byte[] body) throws IOException {
+    return converter.read(type, new MockHttpInputMessage(body));
+  }
+}
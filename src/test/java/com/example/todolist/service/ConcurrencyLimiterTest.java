@@ -0,0 +1,80 @@
+package com.example.todolist.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.todolist.properties.MainProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Drives the limiter with its own clock, every call of {@link #check} is the next check. */
+class ConcurrencyLimiterTest {
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final Timer poolAcquire = meterRegistry.timer(ConcurrencyLimiter.POOL_ACQUIRE_TIMER);
+  private ConcurrencyLimiter limiter;
+  private long now;
+
+  @BeforeEach
+  void setUp() {
+    MainProperties properties = new MainProperties();
+    properties.setMinConcurrentRequests(2);
+    properties.setMaxConcurrentRequests(8);
+    properties.setPoolWaitThreshold(Duration.ofMillis(100));
+    limiter = new ConcurrencyLimiter(meterRegistry, properties);
+    now = System.nanoTime();
+  }
+
+  @Test
+  @DisplayName("Limit shrinks while connections are waited for too long, down to the minimum")
+  void poolWaitTest() {
+    assertEquals(8, limiter.getLimit());
+    poolAcquire.record(Duration.ofMillis(500));
+    poolAcquire.record(Duration.ofMillis(50));
+
+    check();
+    assertEquals(6, limiter.getLimit());
+    for (int i = 0; i < 5; i++) {
+      poolAcquire.record(Duration.ofMillis(200));
+      check();
+    }
+    assertEquals(2, limiter.getLimit());
+    // a short wait since the previous check, the long ones before don't count anymore
+    poolAcquire.record(Duration.ofMillis(20));
+    check();
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  @DisplayName("Limit grows back only when requests are refused and the pool is fast")
+  void growTest() {
+    for (int i = 0; i < 6; i++) {
+      poolAcquire.record(Duration.ofMillis(500));
+      check();
+    }
+    assertEquals(2, limiter.getLimit());
+    check();
+    assertEquals(2, limiter.getLimit());
+
+    assertTrue(limiter.tryAcquire(now));
+    assertTrue(limiter.tryAcquire(now));
+    assertFalse(limiter.tryAcquire(now));
+    check();
+    assertEquals(3, limiter.getLimit());
+    assertTrue(limiter.tryAcquire(now));
+    limiter.release();
+  }
+
+  /** Moves the clock to the next check and lets the limiter check the pool */
+  private void check() {
+    now += ConcurrencyLimiter.CHECK_INTERVAL.toNanos();
+    if (limiter.tryAcquire(now)) {
+      limiter.release();
+    }
+  }
+}
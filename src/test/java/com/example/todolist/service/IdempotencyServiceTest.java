@@ -0,0 +1,175 @@
+package com.example.todolist.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.todolist.entity.IdempotencyKeyEntity;
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.exceptions.IdempotencyKeyReusedException;
+import com.example.todolist.model.exceptions.NoSuchTodoFoundException;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.IdempotencyKeyRepositoryJPA;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class IdempotencyServiceTest {
+  private static final String KEY = "8e03978e-40d5-43e8-bc93-6894a57f9324";
+
+  private final IdempotencyKeyRepositoryJPA repository = mock(IdempotencyKeyRepositoryJPA.class);
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final MainProperties properties = new MainProperties();
+  private final AtomicInteger executions = new AtomicInteger();
+  private final TaskModel task = TaskModel.builder().name("Buy tomatoes").description("ripe").build();
+  private IdempotencyService idempotency;
+
+  @BeforeEach
+  void setUp() {
+    idempotency = idempotencyService();
+  }
+
+  @Test
+  @DisplayName("Retries with the same key get the first response without executing the request")
+  void replayTest() {
+    TaskModel first = idempotency.execute(KEY, "createTask 1", task, TaskModel.class, this::createTask);
+    TaskModel retried = idempotency.execute(KEY, "createTask 1", task, TaskModel.class, this::createTask);
+
+    assertEquals(1, executions.get());
+    assertEquals(first, retried);
+    idempotency.execute(KEY, "createTask 2", task, TaskModel.class, this::createTask);
+    idempotency.execute(null, "createTask 2", task, TaskModel.class, this::createTask);
+    assertEquals(3, executions.get());
+    verify(repository, never()).findById(anyString());
+  }
+
+  @Test
+  @DisplayName("Key sent with another request body is rejected")
+  void reusedKeyTest() {
+    idempotency.execute(KEY, "createTask 1", task, TaskModel.class, this::createTask);
+    TaskModel other = TaskModel.builder().name("Buy tomatoes").description("green").build();
+
+    assertThrows(
+        IdempotencyKeyReusedException.class,
+        () -> idempotency.execute(KEY, "createTask 1", other, TaskModel.class, this::createTask));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Failed request is executed again by its retry")
+  void failedRequestTest() {
+    assertThrows(
+        NoSuchTodoFoundException.class,
+        () ->
+            idempotency.execute(
+                KEY,
+                "createTask 1",
+                task,
+                TaskModel.class,
+                () -> {
+                  throw new NoSuchTodoFoundException(1);
+                }));
+
+    assertEquals(task, idempotency.execute(KEY, "createTask 1", task, TaskModel.class, this::createTask));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Concurrent duplicate waits for the request in flight instead of executing it")
+  void concurrentDuplicateTest() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<TaskModel> first =
+          executor.submit(
+              () ->
+                  idempotency.execute(
+                      KEY,
+                      "createTask 1",
+                      task,
+                      TaskModel.class,
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        return createTask();
+                      }));
+      assertEquals(true, started.await(5, TimeUnit.SECONDS));
+      Future<TaskModel> duplicate =
+          executor.submit(
+              () -> idempotency.execute(KEY, "createTask 1", task, TaskModel.class, this::createTask));
+      release.countDown();
+
+      assertEquals(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+      assertEquals(1, executions.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Responses stored in the table are found by the other instances")
+  void jdbcStoreTest() {
+    properties.setIdempotencyJdbc(true);
+    when(repository.findById(anyString())).thenReturn(Optional.empty());
+    idempotencyService().execute(KEY, "createTask 1", task, TaskModel.class, this::createTask);
+    ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<String> response = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<Instant> createdAt = ArgumentCaptor.forClass(Instant.class);
+    verify(repository)
+        .insertKey(eq("createTask 1 " + KEY), fingerprint.capture(), response.capture(), createdAt.capture());
+    when(repository.findById("createTask 1 " + KEY))
+        .thenReturn(
+            Optional.of(
+                IdempotencyKeyEntity.builder()
+                    .key("createTask 1 " + KEY)
+                    .fingerprint(fingerprint.getValue())
+                    .response(response.getValue())
+                    .createdAt(createdAt.getValue())
+                    .build()));
+
+    IdempotencyService otherInstance = idempotencyService();
+    assertEquals(task, otherInstance.execute(KEY, "createTask 1", task, TaskModel.class, this::createTask));
+    assertEquals(1, executions.get());
+    properties.setIdempotencyKeyTtl(Duration.ZERO);
+    otherInstance = idempotencyService();
+    otherInstance.execute(KEY, "createTask 1", task, TaskModel.class, this::createTask);
+    assertEquals(2, executions.get());
+  }
+
+  private IdempotencyService idempotencyService() {
+    return new IdempotencyService(
+        repository, objectMapper, mock(PlatformTransactionManager.class), properties);
+  }
+
+  private TaskModel createTask() {
+    executions.incrementAndGet();
+    return TaskModel.builder().name(task.getName()).description(task.getDescription()).build();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
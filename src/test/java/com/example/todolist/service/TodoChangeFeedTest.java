@@ -0,0 +1,122 @@
+package com.example.todolist.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.todolist.model.TodoChange;
+import com.example.todolist.properties.MainProperties;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TodoChangeFeedTest {
+  private final MainProperties properties = new MainProperties();
+  private final BlockingQueue<TodoChange> received = new LinkedBlockingQueue<>();
+  private TodoChangeFeed feed;
+
+  @BeforeEach
+  void setUp() {
+    properties.setChangeFeedBufferSize(4);
+    properties.setChangeFeedHistorySize(5);
+    feed = new TodoChangeFeed(properties);
+  }
+
+  @AfterEach
+  void tearDown() {
+    feed.destroy();
+  }
+
+  @Test
+  @DisplayName("Feed should number the changes and deliver them in order")
+  void publishTest() throws InterruptedException {
+    feed.subscribe(null, received::add);
+
+    feed.publish(TodoChange.todoCreated(1, 0));
+    feed.publish(TodoChange.taskCreated(1, "some task"));
+
+    assertEquals(TodoChange.todoCreated(1, 0).withId(1), next());
+    assertEquals(TodoChange.taskCreated(1, "some task").withId(2), next());
+  }
+
+  @Test
+  @DisplayName("Feed should replay the changes after Last-Event-ID or ask to resync if they are gone")
+  void resumeTest() throws InterruptedException {
+    for (int i = 1; i <= 8; i++) {
+      feed.publish(TodoChange.todoDeleted(i));
+    }
+
+    feed.subscribe(6L, received::add);
+    assertEquals(TodoChange.todoDeleted(7).withId(7), next());
+    assertEquals(TodoChange.todoDeleted(8).withId(8), next());
+
+    feed.subscribe(1L, received::add);
+    assertEquals(TodoChange.resync(8), next());
+    assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  @DisplayName("Feed should replace the backlog of a slow subscriber with a resync")
+  void slowSubscriberTest() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    feed.subscribe(
+        null,
+        change -> {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          received.add(change);
+        });
+
+    // the first change is taken by the blocked listener, the next 4 fill its queue
+    feed.publish(TodoChange.todoDeleted(1));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    for (int i = 2; i <= 6; i++) {
+      feed.publish(TodoChange.todoDeleted(i));
+    }
+    release.countDown();
+
+    List<TodoChange> changes = new ArrayList<>();
+    changes.add(next());
+    changes.add(next());
+    assertEquals(List.of(TodoChange.todoDeleted(1).withId(1), TodoChange.resync(6)), changes);
+    feed.publish(TodoChange.todoDeleted(7));
+    assertEquals(TodoChange.todoDeleted(7).withId(7), next());
+  }
+
+  @Test
+  @DisplayName("Feed should drop the subscriber whose client is gone")
+  void brokenSubscriberTest() throws InterruptedException {
+    CountDownLatch failed = new CountDownLatch(1);
+    feed.subscribe(
+        null,
+        change -> {
+          failed.countDown();
+          throw new IOException("Broken pipe");
+        });
+
+    feed.publish(TodoChange.todoDeleted(1));
+
+    assertTrue(failed.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 50 && feed.getSubscribersCount() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, feed.getSubscribersCount());
+  }
+
+  private TodoChange next() throws InterruptedException {
+    TodoChange change = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(change);
+    return change;
+  }
+}
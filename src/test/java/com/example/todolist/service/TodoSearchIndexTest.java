@@ -0,0 +1,87 @@
+package com.example.todolist.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoModel;
+import com.example.todolist.properties.MainProperties;
+import com.example.todolist.repository.TodoRepositoryJPA;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/** Runs the index in memory and without a transaction, so every update is searchable at once. */
+class TodoSearchIndexTest {
+  private TodoSearchIndex index;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    index =
+        new TodoSearchIndex(
+            mock(TodoRepositoryJPA.class),
+            mock(EntityManager.class),
+            mock(PlatformTransactionManager.class),
+            new MainProperties());
+    index.indexTodo(todo(1, "Make lunch today", "Pasta with cevapcici", "Boil pasta", "Make salad"));
+    index.indexTodo(todo(2, "Clean bathroom", "Home duty", "Clean toilet", "Clean shower cabin"));
+    index.indexTodo(todo(3, "Cook pasta dinner", "Pasta and salad", "Buy tomatoes"));
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    index.destroy();
+  }
+
+  @Test
+  @DisplayName("Todos match terms in their own and their tasks fields, todo names ranking first")
+  void searchRankingTest() {
+    assertEquals(List.of(3, 1), index.search("pasta", 0, 10));
+    assertEquals(List.of(2), index.search("shower", 0, 10));
+    assertEquals(List.of(1), index.search("\"make lunch\"", 0, 10));
+    assertEquals(List.of(2), index.search("clea*", 0, 10));
+    assertEquals(List.of(), index.search("pizza", 0, 10));
+  }
+
+  @Test
+  @DisplayName("Matching todos are paged without repeating a todo")
+  void searchPagingTest() {
+    assertEquals(List.of(3), index.search("pasta salad", 0, 1));
+    assertEquals(List.of(1), index.search("pasta salad", 1, 1));
+    assertEquals(List.of(), index.search("pasta salad", 2, 1));
+  }
+
+  @Test
+  @DisplayName("Task and todo updates replace their documents")
+  void updatesTest() {
+    index.indexTask(2, TaskModel.builder().name("Buy detergent").build());
+    assertEquals(List.of(2), index.search("detergent", 0, 10));
+
+    index.removeTask(2, "Buy detergent");
+    assertEquals(List.of(), index.search("detergent", 0, 10));
+
+    index.indexTodo(todo(1, "Make breakfast", "Eggs and toast"));
+    assertEquals(List.of(3), index.search("pasta", 0, 10));
+
+    index.removeTodo(3);
+    assertEquals(List.of(), index.search("pasta", 0, 10));
+  }
+
+  private static TodoModel todo(int id, String name, String description, String... tasks) {
+    return TodoModel.builder()
+        .id(id)
+        .name(name)
+        .description(description)
+        .tasks(
+            Arrays.stream(tasks)
+                .map(task -> TaskModel.builder().name(task).description("task description").build())
+                .toList())
+        .build();
+  }
+}
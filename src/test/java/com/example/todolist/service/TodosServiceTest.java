@@ -1,23 +1,62 @@
 package com.example.todolist.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import com.example.todolist.entity.TaskEntity;
 import com.example.todolist.entity.TodoEntity;
+import com.example.todolist.entity.TodoTombstoneEntity;
+import com.example.todolist.model.BulkDeleteResult;
+import com.example.todolist.model.BulkResult;
 import com.example.todolist.model.TaskModel;
+import com.example.todolist.model.TodoChange;
 import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.TodoPatch;
+import com.example.todolist.model.TodoSync;
+import com.example.todolist.model.exceptions.InvalidRequestException;
+import com.example.todolist.model.exceptions.NoSuchTaskFoundException;
 import com.example.todolist.model.exceptions.NoSuchTodoFoundException;
+import com.example.todolist.model.exceptions.TaskAlreadyExistsException;
+import com.example.todolist.model.exceptions.TodoAlreadyExistsException;
+import com.example.todolist.model.exceptions.TodoVersionMismatchException;
+import com.example.todolist.properties.MainProperties;
 import com.example.todolist.repository.TaskRepositoryJPA;
 import com.example.todolist.repository.TodoRepositoryJPA;
+import com.example.todolist.repository.TombstoneRepositoryJPA;
+import com.example.todolist.util.CursorCodec;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.*;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 class TodosServiceTest {
+  private static final long CHANGE_SEQ = 7;
   private final TodoRepositoryJPA todoRepository = mock(TodoRepositoryJPA.class);
   private final TaskRepositoryJPA taskRepository = mock(TaskRepositoryJPA.class);
+  private final TombstoneRepositoryJPA tombstoneRepository = mock(TombstoneRepositoryJPA.class);
   private final ValidationService validation = mock(ValidationService.class);
+  private final MainProperties properties = new MainProperties();
+  private final EntityManager entityManager = mock(EntityManager.class);
+  private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+  private final TodoSearchIndex searchIndex = mock(TodoSearchIndex.class);
   private TodosService service;
   private TodoModel todoModel;
   private TodoEntity todoEntity;
@@ -26,7 +65,19 @@ class TodosServiceTest {
 
   @BeforeEach
   void setUp() {
-    service = new TodosService(todoRepository, taskRepository, validation);
+    properties.setDefaultPageSize(20);
+    properties.setMaxPageSize(100);
+    properties.setMaxBulkSize(100);
+    when(tombstoneRepository.nextChangeSeq(1)).thenReturn(CHANGE_SEQ);
+    service = new TodosService(
+            todoRepository,
+            taskRepository,
+            tombstoneRepository,
+            validation,
+            properties,
+            entityManager,
+            eventPublisher,
+            searchIndex);
     TaskModel taskModel =
         TaskModel.builder().name("some task").description("task description").build();
     todoModel =
@@ -60,25 +111,158 @@ class TodosServiceTest {
   }
 
   @Test
-  @DisplayName("Service should return list of todo objects")
+  @DisplayName("Service should return page of todo objects")
   void getAllTodosTest() {
-    when(todoRepository.findAll()).thenReturn(entityList);
+    Pageable pageable = PageRequest.of(0, 20, Sort.by("id"));
+    when(todoRepository.findAll(pageable)).thenReturn(new PageImpl<>(entityList, pageable, 1));
 
-    assertEquals(modelList, service.getTodos());
-    verify(todoRepository, times(1)).findAll();
+    Page<TodoModel> page = service.getTodos(0, null, null);
+
+    assertEquals(modelList, page.getContent());
+    assertEquals(1, page.getTotalElements());
+    verify(todoRepository, times(1)).findAll(pageable);
     verifyNoMoreInteractions(todoRepository);
     verifyNoInteractions(taskRepository);
   }
 
+  @Test
+  @DisplayName("Service should cap page size and sort by requested property")
+  void getTodosPageSizeCapTest() {
+    Pageable pageable =
+        PageRequest.of(2, 100, Sort.by(Sort.Direction.DESC, "name").and(Sort.by("id")));
+    when(todoRepository.findAll(pageable)).thenReturn(new PageImpl<>(entityList, pageable, 201));
+
+    Page<TodoModel> page = service.getTodos(2, 5000, "name,desc");
+
+    assertEquals(100, page.getSize());
+    verify(todoRepository, times(1)).findAll(pageable);
+    verifyNoMoreInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should throw the InvalidRequestException for unsupported sort")
+  void getTodosInvalidSortTest() {
+    Assertions.assertThrows(
+        InvalidRequestException.class, () -> service.getTodos(0, 10, "tasks,asc"));
+    Assertions.assertThrows(
+        InvalidRequestException.class, () -> service.getTodos(0, 10, "name,sideways"));
+    verifyNoInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should seek todos after the cursor")
+  void getTodosAfterCursorTest() {
+    todoEntity.setId(7);
+    String after = CursorCodec.encode(new CursorCodec.Cursor("name", 5, "milk"));
+    when(todoRepository.findAfterName("milk", 5, PageRequest.of(0, 2)))
+        .thenReturn(List.of(todoEntity, todoEntity.toBuilder().id(8).build()));
+
+    Slice<TodoModel> slice = service.getTodosAfter(after, 1);
+
+    assertEquals(1, slice.getContent().size());
+    assertTrue(slice.hasNext());
+    CursorCodec.Cursor next = CursorCodec.decode(CursorCodec.next(slice));
+    assertEquals("name", next.property());
+    assertEquals(7, next.id());
+    assertEquals(todoEntity.getName(), next.value());
+    verify(todoRepository, times(1)).findAfterName("milk", 5, PageRequest.of(0, 2));
+    verifyNoMoreInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should return last slice without next cursor")
+  void getTodosAfterLastSliceTest() {
+    String after = CursorCodec.encode(new CursorCodec.Cursor("id", 3, ""));
+    when(todoRepository.findByIdGreaterThanOrderByIdAsc(3, PageRequest.of(0, 21)))
+        .thenReturn(entityList);
+
+    Slice<TodoModel> slice = service.getTodosAfter(after, null);
+
+    assertEquals(modelList, slice.getContent());
+    assertFalse(slice.hasNext());
+    assertNull(CursorCodec.next(slice));
+  }
+
+  @Test
+  @DisplayName("Service should throw the InvalidRequestException for malformed cursor")
+  void getTodosAfterInvalidCursorTest() {
+    Assertions.assertThrows(
+        InvalidRequestException.class, () -> service.getTodosAfter("not a cursor", 10));
+    verifyNoInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should return matching todos in the order of the search index")
+  void searchTodosTest() {
+    TodoEntity first = todoEntity.toBuilder().id(2).build();
+    when(searchIndex.search("task", 2, 3)).thenReturn(List.of(2, 5, 1));
+    when(todoRepository.findAllById(List.of(2, 5))).thenReturn(List.of(first));
+
+    // todo 5 was deleted after the search, the next page starts with todo 1
+    Slice<TodoModel> slice = service.searchTodos("task", 1, 2);
+
+    assertEquals(List.of(2), slice.getContent().stream().map(TodoModel::getId).toList());
+    assertTrue(slice.hasNext());
+    assertEquals(1, slice.getNumber());
+    verify(todoRepository, times(1)).findAllById(List.of(2, 5));
+    verifyNoMoreInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should reject a search page past the largest offset")
+  void searchTodosPageOverflowTest() {
+    assertThrows(
+        InvalidRequestException.class, () -> service.searchTodos("task", Integer.MAX_VALUE, 2));
+    verifyNoInteractions(searchIndex, todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should merge changed and deleted todos in change order")
+  void getChangesTest() {
+    TodoEntity changed = todoEntity.toBuilder().id(1).changeSeq(5).build();
+    TodoEntity changedLater = todoEntity.toBuilder().id(2).changeSeq(8).build();
+    when(tombstoneRepository.findChangeSeq()).thenReturn(Optional.of(9L));
+    when(todoRepository.findChanged(eq(4L), eq(9L), any(Pageable.class)))
+        .thenReturn(List.of(changed, changedLater));
+    when(tombstoneRepository.findChanged(eq(4L), eq(9L), any(Pageable.class)))
+        .thenReturn(List.of(new TodoTombstoneEntity(3, 6), new TodoTombstoneEntity(4, 9)));
+
+    TodoSync page = service.getChanges(4L, 2);
+    TodoSync all = service.getChanges(4L, null);
+
+    assertEquals(List.of(1), page.todos().stream().map(TodoModel::getId).toList());
+    assertEquals(List.of(3), page.deleted());
+    assertEquals(6, page.seq());
+    assertTrue(page.more());
+    assertEquals(List.of(1, 2), all.todos().stream().map(TodoModel::getId).toList());
+    assertEquals(List.of(3, 4), all.deleted());
+    assertEquals(9, all.seq());
+    assertFalse(all.more());
+  }
+
+  @Test
+  @DisplayName("Service should pass every todo to the consumer and detach it")
+  void exportTodosTest() {
+    when(todoRepository.streamAllWithTasks()).thenReturn(Stream.of(todoEntity));
+    List<TodoModel> exported = new ArrayList<>();
+
+    service.exportTodos(exported::add);
+
+    assertEquals(modelList, exported);
+    verify(entityManager, times(1)).detach(todoEntity);
+    verify(todoRepository, times(1)).streamAllWithTasks();
+    verifyNoMoreInteractions(todoRepository);
+  }
+
   @Test
   @DisplayName("Service should throw the NoSuchTodoFoundException exception")
   void getInvalidTodoByIdTest() {
     int id = 1;
-    when(todoRepository.findById(id)).thenReturn(Optional.empty());
+    when(todoRepository.findWithTasksById(id)).thenReturn(Optional.empty());
 
     Assertions.assertThrows(NoSuchTodoFoundException.class, () -> service.getTodo(id));
 
-    verify(todoRepository, times(1)).findById(id);
+    verify(todoRepository, times(1)).findWithTasksById(id);
     verifyNoMoreInteractions(todoRepository);
     verifyNoInteractions(taskRepository);
   }
@@ -87,10 +271,10 @@ class TodosServiceTest {
   @DisplayName("Service should return todo object")
   void getTodoByIdTest() {
     int id = 1;
-    when(todoRepository.findById(id)).thenReturn(Optional.of(todoEntity));
+    when(todoRepository.findWithTasksById(id)).thenReturn(Optional.of(todoEntity));
 
     assertEquals(todoModel, service.getTodo(id));
-    verify(todoRepository, times(1)).findById(id);
+    verify(todoRepository, times(1)).findWithTasksById(id);
     verifyNoMoreInteractions(todoRepository);
     verifyNoInteractions(taskRepository);
   }
@@ -102,13 +286,16 @@ class TodosServiceTest {
     todoEntityOutput.setId(1);
 
     doNothing().when(validation).validateTodo(todoModel);
-    when(todoRepository.findByName(todoEntity.getName())).thenReturn(Optional.empty());
-    when(todoRepository.save(todoEntity)).thenReturn(todoEntityOutput);
+    when(todoRepository.saveAndFlush(todoEntity)).thenReturn(todoEntityOutput);
 
     TodoModel outputModel = service.createTodo(todoModel);
 
-    verify(todoRepository, times(1)).findByName(todoEntity.getName());
-    verify(todoRepository, times(1)).save(todoEntity);
+    // the change number is reserved once the todo is inserted
+    InOrder order = inOrder(todoRepository, tombstoneRepository);
+    order.verify(todoRepository, times(1)).saveAndFlush(todoEntity);
+    order.verify(tombstoneRepository, times(1)).nextChangeSeq(1);
+    verify(todoRepository, times(2)).flush();
+    assertEquals(CHANGE_SEQ, todoEntityOutput.getChangeSeq());
     assertEquals(1, outputModel.getId());
     assertEquals(todoModel.getName(), outputModel.getName());
     assertEquals(todoModel.getDescription(), outputModel.getDescription());
@@ -116,21 +303,104 @@ class TodosServiceTest {
     assertEquals(
         todoModel.getTasks().get(0).getDescription(),
         outputModel.getTasks().get(0).getDescription());
+    verify(eventPublisher, times(1)).publishEvent(TodoChange.todoCreated(1, 0));
+    verify(searchIndex, times(1)).indexTodo(outputModel);
     verifyNoMoreInteractions(todoRepository);
     verifyNoInteractions(taskRepository);
   }
 
+  @Test
+  @DisplayName("Service should translate the name constraint violation to TodoAlreadyExistsException")
+  void createTodoAlreadyExistsTest() {
+    doNothing().when(validation).validateTodo(todoModel);
+    when(todoRepository.saveAndFlush(todoEntity))
+        .thenThrow(
+            new DataIntegrityViolationException(
+                "duplicate",
+                new ConstraintViolationException(
+                    "duplicate", null, "PUBLIC.UK_TODOS_NAME_INDEX_4 ON PUBLIC.TODOS(NAME)")));
+
+    Assertions.assertThrows(TodoAlreadyExistsException.class, () -> service.createTodo(todoModel));
+
+    verify(todoRepository, times(1)).saveAndFlush(todoEntity);
+    verifyNoMoreInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should rethrow other constraint violations")
+  void createTodoConstraintViolationTest() {
+    doNothing().when(validation).validateTodo(todoModel);
+    when(todoRepository.saveAndFlush(todoEntity))
+        .thenThrow(new DataIntegrityViolationException("value too long"));
+
+    Assertions.assertThrows(
+        DataIntegrityViolationException.class, () -> service.createTodo(todoModel));
+  }
+
+  @Test
+  @DisplayName("Service should create todos in bulk and skip invalid todos, taken and repeated names")
+  void createTodosTest() {
+    TodoModel takenTodo = todoModel.toBuilder().name("taken todo").build();
+    TodoModel repeatedTodo = todoModel.toBuilder().build();
+    TodoModel invalidTodo = todoModel.toBuilder().name("short").build();
+    when(validation.check(any())).thenReturn(ValidationService.Result.VALID);
+    when(validation.check(invalidTodo))
+        .thenReturn(new ValidationService.Result(List.of("Invalid todo name length")));
+    when(todoRepository.findExistingNames(
+            List.of(todoModel.getName(), takenTodo.getName(), invalidTodo.getName())))
+        .thenReturn(List.of(takenTodo.getName()));
+    when(todoRepository.save(todoEntity)).thenReturn(todoEntity.toBuilder().id(5).build());
+    Session session = mock(Session.class);
+    when(entityManager.unwrap(Session.class)).thenReturn(session);
+
+    BulkResult result =
+        service.createTodos(List.of(todoModel, takenTodo, repeatedTodo, invalidTodo));
+
+    assertEquals(1, result.created());
+    assertEquals(3, result.failed());
+    assertEquals(201, result.items().get(0).status());
+    assertEquals(5, result.items().get(0).id());
+    assertEquals(409, result.items().get(1).status());
+    assertEquals(409, result.items().get(2).status());
+    assertEquals(2, result.items().get(2).index());
+    // an invalid todo fails on its own, the others are still created
+    assertEquals(400, result.items().get(3).status());
+    assertEquals("Invalid request: [Invalid todo name length]", result.items().get(3).message());
+    verify(validation, times(4)).check(any());
+    verify(todoRepository, times(1)).findExistingNames(any());
+    verify(todoRepository, times(1)).save(todoEntity);
+    // change numbers are reserved for the created todos once they are inserted, and written in a batch
+    InOrder order = inOrder(todoRepository, tombstoneRepository, session);
+    order.verify(todoRepository, times(1)).flush();
+    order.verify(tombstoneRepository, times(1)).nextChangeSeq(1);
+    order.verify(session, times(1)).doWork(any());
+    verifyNoMoreInteractions(todoRepository);
+    verifyNoInteractions(taskRepository);
+  }
+
+  @Test
+  @DisplayName("Service should throw the InvalidRequestException for too large bulk request")
+  void createTodosTooLargeTest() {
+    properties.setMaxBulkSize(1);
+
+    Assertions.assertThrows(
+        InvalidRequestException.class, () -> service.createTodos(List.of(todoModel, todoModel)));
+    verifyNoInteractions(todoRepository);
+    verifyNoInteractions(validation);
+  }
+
   @Test
   @DisplayName("Service should throw the NoSuchTodoFoundException exception")
   void updateTodoFailureTest() {
     int id = 1;
     todoModel.setId(id);
-    when(todoRepository.findById(id)).thenReturn(Optional.empty());
+    when(todoRepository.findVersionById(id)).thenReturn(Optional.empty());
 
-    Assertions.assertThrows(NoSuchTodoFoundException.class, () -> service.updateTodo(todoModel));
+    Assertions.assertThrows(
+        NoSuchTodoFoundException.class, () -> service.updateTodo(todoModel, null));
 
-    verify(todoRepository, times(1)).findById(id);
-    verify(todoRepository, times(0)).save(todoEntity);
+    verify(todoRepository, times(1)).findVersionById(id);
+    verify(todoRepository, times(0)).saveAndFlush(todoEntity);
     verify(validation, times(0)).validateTodo(todoModel);
     verifyNoMoreInteractions(todoRepository);
     verifyNoInteractions(taskRepository);
@@ -142,14 +412,17 @@ class TodosServiceTest {
     int id = 1;
     todoModel.setId(id);
     todoEntity.setId(id);
-    when(todoRepository.findById(id)).thenReturn(Optional.of(todoEntity));
+    when(todoRepository.findVersionById(id)).thenReturn(Optional.of(3L));
     doNothing().when(validation).validateTodo(todoModel);
-    when(todoRepository.save(todoEntity)).thenReturn(todoEntity);
+    TodoEntity updatedEntity = todoEntity.toBuilder().version(4).build();
+    when(todoRepository.saveAndFlush(todoEntity)).thenReturn(updatedEntity);
 
-    TodoModel outputModel = service.updateTodo(todoModel);
+    TodoModel outputModel = service.updateTodo(todoModel, 3L);
 
-    verify(todoRepository, times(1)).findById(id);
-    verify(todoRepository, times(1)).save(todoEntity);
+    verify(todoRepository, times(1)).findVersionById(id);
+    verify(todoRepository, times(1)).saveAndFlush(todoEntity);
+    verify(todoRepository, times(2)).flush();
+    assertEquals(CHANGE_SEQ, updatedEntity.getChangeSeq());
     verify(validation, times(1)).validateTodo(todoModel);
     assertEquals(todoModel.getName(), outputModel.getName());
     assertEquals(todoModel.getDescription(), outputModel.getDescription());
@@ -157,36 +430,303 @@ class TodosServiceTest {
     assertEquals(
         todoModel.getTasks().get(0).getDescription(),
         outputModel.getTasks().get(0).getDescription());
+    assertEquals(4, outputModel.getVersion());
     verifyNoMoreInteractions(todoRepository);
     verifyNoInteractions(taskRepository);
   }
 
+  @Test
+  @DisplayName("Service should throw the TodoVersionMismatchException exception")
+  void updateTodoVersionMismatchTest() {
+    int id = 1;
+    todoModel.setId(id);
+    when(todoRepository.findVersionById(id)).thenReturn(Optional.of(3L));
+
+    Assertions.assertThrows(
+        TodoVersionMismatchException.class, () -> service.updateTodo(todoModel, 2L));
+
+    verify(todoRepository, times(1)).findVersionById(id);
+    verify(validation, times(0)).validateTodo(todoModel);
+    verifyNoMoreInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should patch only the supplied fields and tasks of the todo")
+  void patchTodoTest() {
+    int id = 1;
+    todoEntity.setId(id);
+    todoEntity.addTask(TaskEntity.builder().name("other task").description("task description").build());
+    when(todoRepository.findById(id)).thenReturn(Optional.of(todoEntity));
+    Map<String, TodoPatch.TaskPatch> tasks = new HashMap<>();
+    tasks.put("some task", new TodoPatch.TaskPatch("new task description"));
+    tasks.put("other task", null);
+    tasks.put("new task", new TodoPatch.TaskPatch("task description"));
+
+    TodoModel outputModel =
+        service.patchTodo(id, TodoPatch.builder().description("new description").tasks(tasks).build(), 0L);
+
+    verify(todoRepository, times(1)).findById(id);
+    verify(validation, times(1)).validateTodo(any());
+    // the patch, then the change number
+    verify(todoRepository, times(3)).flush();
+    assertEquals(CHANGE_SEQ, todoEntity.getChangeSeq());
+    assertEquals("some todo", outputModel.getName());
+    assertEquals("new description", outputModel.getDescription());
+    assertEquals(
+        List.of("some task:new task description", "new task:task description"),
+        outputModel.getTasks().stream().map(task -> task.getName() + ":" + task.getDescription()).toList());
+    assertEquals(CHANGE_SEQ, todoEntity.getChangeSeq());
+    verify(eventPublisher).publishEvent(TodoChange.todoUpdated(id, 0));
+    verifyNoMoreInteractions(todoRepository);
+    verifyNoInteractions(taskRepository);
+  }
+
+  @Test
+  @DisplayName("Service should not write the todo if the patch changes nothing")
+  void patchTodoUnchangedTest() {
+    int id = 1;
+    todoEntity.setId(id);
+    when(todoRepository.findById(id)).thenReturn(Optional.of(todoEntity));
+
+    service.patchTodo(
+        id,
+        TodoPatch.builder()
+            .name(todoEntity.getName())
+            .tasks(Map.of("some task", new TodoPatch.TaskPatch("task description")))
+            .build(),
+        null);
+
+    verify(todoRepository, times(1)).findById(id);
+    verifyNoMoreInteractions(todoRepository);
+    verifyNoInteractions(tombstoneRepository, eventPublisher);
+  }
+
+  @Test
+  @DisplayName("Service should validate the patched todo before writing it")
+  void patchTodoInvalidTest() {
+    int id = 1;
+    todoEntity.setId(id);
+    when(todoRepository.findById(id)).thenReturn(Optional.of(todoEntity));
+    doThrow(new InvalidRequestException(List.of("Invalid task name length")))
+        .when(validation)
+        .validateTodo(any());
+
+    Assertions.assertThrows(
+        InvalidRequestException.class,
+        () ->
+            service.patchTodo(
+                id,
+                TodoPatch.builder().tasks(Map.of("short", new TodoPatch.TaskPatch("task description"))).build(),
+                null));
+
+    verify(todoRepository, times(0)).flush();
+    verifyNoInteractions(tombstoneRepository, eventPublisher);
+  }
+
+  @Test
+  @DisplayName("Service should throw the TodoVersionMismatchException exception on patch")
+  void patchTodoVersionMismatchTest() {
+    int id = 1;
+    todoEntity.setId(id);
+    todoEntity.setVersion(3);
+    when(todoRepository.findById(id)).thenReturn(Optional.of(todoEntity));
+
+    Assertions.assertThrows(
+        TodoVersionMismatchException.class,
+        () -> service.patchTodo(id, TodoPatch.builder().description("new description").build(), 2L));
+
+    assertEquals("todo description", todoEntity.getDescription());
+    verify(todoRepository, times(0)).flush();
+  }
+
   @Test
   @DisplayName("Service should throw the NoSuchTodoFoundException exception")
   void deleteTodoFailureTest() {
     int id = 1;
-    when(todoRepository.findById(id)).thenReturn(Optional.empty());
+    when(todoRepository.deleteTodoById(id)).thenReturn(0);
 
     Assertions.assertThrows(NoSuchTodoFoundException.class, () -> service.deleteTodo(id));
 
-    verify(todoRepository, times(1)).findById(id);
-    verify(todoRepository, times(0)).delete(todoEntity);
+    verify(todoRepository, times(1)).deleteTodoById(id);
+    verify(todoRepository, times(0)).findById(id);
     verifyNoMoreInteractions(todoRepository);
-    verifyNoInteractions(taskRepository);
   }
 
   @Test
   @DisplayName("Service should execute todo deletion")
   void deleteTodoSuccessTest() {
     int id = 1;
-    when(todoRepository.findById(id)).thenReturn(Optional.of(todoEntity));
-    doNothing().when(todoRepository).deleteById(id);
+    when(taskRepository.deleteAllByTodoId(id)).thenReturn(1);
+    when(todoRepository.deleteTodoById(id)).thenReturn(1);
 
     service.deleteTodo(id);
 
-    verify(todoRepository, times(1)).findById(id);
-    verify(todoRepository, times(1)).deleteById(id);
+    verify(taskRepository, times(1)).deleteAllByTodoId(id);
+    verify(todoRepository, times(1)).deleteTodoById(id);
+    verify(todoRepository, times(0)).findById(id);
+    verify(tombstoneRepository, times(1)).insertTombstone(id, CHANGE_SEQ);
+    verify(searchIndex, times(1)).removeTodo(id);
     verifyNoMoreInteractions(todoRepository);
+    verifyNoMoreInteractions(taskRepository);
+  }
+
+  @Test
+  @DisplayName("Service should delete the task with a single statement")
+  void deleteTaskSuccessTest() {
+    int id = 1;
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.of(todoEntity));
+    when(taskRepository.deleteByTodoIdAndName(id, "some task")).thenReturn(1);
+
+    service.deleteTask("some task", id);
+
+    verify(todoRepository, times(1)).findForUpdateById(id);
+    verify(taskRepository, times(1)).deleteByTodoIdAndName(id, "some task");
+    verify(todoRepository, times(2)).flush();
+    assertEquals(CHANGE_SEQ, todoEntity.getChangeSeq());
+    verify(eventPublisher, times(1)).publishEvent(TodoChange.taskDeleted(id, "some task"));
+    verifyNoMoreInteractions(todoRepository);
+    verifyNoMoreInteractions(taskRepository);
+  }
+
+  @Test
+  @DisplayName("Service should throw the NoSuchTodoFoundException exception on task deletion")
+  void deleteTaskTodoNotFoundTest() {
+    int id = 1;
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.empty());
+
+    Assertions.assertThrows(
+        NoSuchTodoFoundException.class, () -> service.deleteTask("some task", id));
+
     verifyNoInteractions(taskRepository);
   }
+
+  @Test
+  @DisplayName("Service should throw the NoSuchTaskFoundException exception")
+  void deleteTaskNotFoundTest() {
+    int id = 1;
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.of(todoEntity));
+    when(taskRepository.deleteByTodoIdAndName(id, "other task")).thenReturn(0);
+
+    Assertions.assertThrows(
+        NoSuchTaskFoundException.class, () -> service.deleteTask("other task", id));
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  @DisplayName("Service should bump the todo version once and insert all the tasks")
+  void createTasksTest() {
+    int id = 1;
+    List<TaskModel> tasks = List.of(
+        TaskModel.builder().name("some task").description("task description").build(),
+        TaskModel.builder().name("other task").description("task description").build());
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.of(todoEntity));
+    when(taskRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    BulkResult result = service.createTasks(tasks, id);
+
+    assertEquals(2, result.created());
+    assertEquals(0, result.failed());
+    assertEquals("other task", result.items().get(1).name());
+    assertEquals(201, result.items().get(1).status());
+    verify(todoRepository, times(1)).findForUpdateById(id);
+    assertEquals(CHANGE_SEQ, todoEntity.getChangeSeq());
+    verify(taskRepository, times(2)).save(any());
+    verify(eventPublisher, times(1)).publishEvent(TodoChange.taskCreated(id, "other task"));
+    verify(searchIndex, times(2)).indexTask(eq(id), any());
+  }
+
+  @Test
+  @DisplayName("Service should skip the tasks whose name the todo has or the request repeats")
+  void createTasksNameConflictTest() {
+    int id = 1;
+    List<TaskModel> tasks = List.of(
+        TaskModel.builder().name("some task").description("task description").build(),
+        TaskModel.builder().name("other task").description("task description").build(),
+        TaskModel.builder().name("other task").description("another description").build());
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.of(todoEntity));
+    when(taskRepository.findExistingNames(id, List.of("some task", "other task")))
+        .thenReturn(List.of("some task"));
+    when(taskRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    BulkResult result = service.createTasks(tasks, id);
+
+    assertEquals(1, result.created());
+    assertEquals(2, result.failed());
+    assertEquals(409, result.items().get(0).status());
+    assertEquals(201, result.items().get(1).status());
+    assertEquals(409, result.items().get(2).status());
+    assertEquals(
+        new TaskAlreadyExistsException("other task").getMessage(), result.items().get(2).message());
+    verify(taskRepository, times(1)).save(any());
+    verify(searchIndex, times(1)).indexTask(eq(id), any());
+  }
+
+  @Test
+  @DisplayName("Service should throw the TaskAlreadyExistsException if the todo has a task of the name")
+  void createTaskAlreadyExistsTest() {
+    int id = 1;
+    TaskModel task = todoModel.getTasks().get(0);
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.of(todoEntity));
+    when(taskRepository.findExistingNames(id, List.of(task.getName()))).thenReturn(List.of(task.getName()));
+
+    Assertions.assertThrows(TaskAlreadyExistsException.class, () -> service.createTask(task, id));
+    verify(taskRepository, never()).save(any());
+    verifyNoInteractions(eventPublisher, searchIndex);
+  }
+
+  @Test
+  @DisplayName("Service should throw the NoSuchTodoFoundException exception on batch task creation")
+  void createTasksTodoNotFoundTest() {
+    int id = 1;
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.empty());
+
+    Assertions.assertThrows(
+        NoSuchTodoFoundException.class,
+        () -> service.createTasks(List.of(todoModel.getTasks().get(0)), id));
+    verifyNoInteractions(taskRepository);
+  }
+
+  @Test
+  @DisplayName("Service should delete the found tasks with one statement and report the others")
+  void deleteTasksTest() {
+    int id = 1;
+    when(taskRepository.findExistingNames(id, List.of("some task", "other task")))
+        .thenReturn(List.of("some task"));
+    when(todoRepository.findForUpdateById(id)).thenReturn(Optional.of(todoEntity));
+
+    BulkDeleteResult result =
+        service.deleteTasks(List.of("some task", "other task", "some task"), id);
+
+    assertEquals(1, result.deleted());
+    assertEquals(2, result.failed());
+    assertEquals(200, result.items().get(0).status());
+    assertEquals(404, result.items().get(1).status());
+    assertEquals(404, result.items().get(2).status());
+    verify(todoRepository, times(1)).findForUpdateById(id);
+    verify(taskRepository, times(1)).deleteByTodoIdAndNameIn(id, List.of("some task"));
+    verify(todoRepository, times(2)).flush();
+    verify(eventPublisher, times(1)).publishEvent(TodoChange.taskDeleted(id, "some task"));
+    verify(searchIndex, times(1)).removeTask(id, "some task");
+    verifyNoMoreInteractions(todoRepository);
+  }
+
+  @Test
+  @DisplayName("Service should not change the todo if none of the tasks exist")
+  void deleteTasksNotFoundTest() {
+    int id = 1;
+    when(taskRepository.findExistingNames(id, List.of("other task"))).thenReturn(List.of());
+    when(todoRepository.existsById(id)).thenReturn(true);
+
+    BulkDeleteResult result = service.deleteTasks(List.of("other task"), id);
+
+    assertEquals(0, result.deleted());
+    assertEquals(404, result.items().get(0).status());
+    verify(todoRepository, never()).findForUpdateById(anyInt());
+    verify(taskRepository, never()).deleteByTodoIdAndNameIn(anyInt(), any());
+    verifyNoInteractions(eventPublisher);
+
+    when(todoRepository.existsById(id)).thenReturn(false);
+    Assertions.assertThrows(
+        NoSuchTodoFoundException.class, () -> service.deleteTasks(List.of("other task"), id));
+  }
 }
@@ -2,54 +2,130 @@ package com.example.todolist.service;
 
 import com.example.todolist.model.TaskModel;
 import com.example.todolist.model.TodoModel;
+import com.example.todolist.model.exceptions.InvalidRequestException;
 import com.example.todolist.properties.MainProperties;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ValidationServiceTest {
-  private final MainProperties properties = mock(MainProperties.class);
+  private final MainProperties properties = new MainProperties();
   private ValidationService service;
   private TodoModel todoModel;
   private TaskModel taskModel;
-  private String invalidNameError;
 
   @BeforeEach
   void setUp() {
+    properties.setErrorInvalidName("Invalid %s name: string shouldn't be null or empty");
     service = new ValidationService(properties);
-    taskModel = TaskModel.builder().name("").description("").build();
+    taskModel = TaskModel.builder().name("task name 0").description("task description").build();
     todoModel =
-        TodoModel.builder().id(0).name("").description("").tasks(List.of(taskModel)).build();
-    invalidNameError = "Invalid name %s: string shouldn't be null or empty";
+        TodoModel.builder()
+            .id(0)
+            .name("todo name 0")
+            .description("todo description")
+            .tasks(List.of(taskModel))
+            .build();
   }
 
-  @AfterEach
-  public void tearDown() {
-    reset(properties);
+  @Test
+  @DisplayName("Valid todo passes and gets the shared valid result")
+  void validateTodoSuccessTest() {
+    service.validateTodo(todoModel);
+
+    assertSame(ValidationService.Result.VALID, service.check(todoModel));
   }
 
   @Test
-  @DisplayName("Name validation passes and doesn't throw InvalidRequestException")
-  void validateTodoSuccessTest() {
-    todoModel.setName("todoName");
-    taskModel.setName("taskName");
-    when(properties.getErrorInvalidName()).thenReturn(invalidNameError);
+  @DisplayName("Blank and too long names and descriptions are reported with configured messages")
+  void validateTodoInvalidFieldsTest() {
+    todoModel.setName(" ");
+    todoModel.setDescription("x".repeat(ValidationService.MAX_LENGTH + 1));
+    taskModel.setName(null);
 
-    service.validateTodo(todoModel);
+    InvalidRequestException exception =
+        assertThrows(InvalidRequestException.class, () -> service.validateTodo(todoModel));
+
+    assertEquals(
+        List.of(
+            "Invalid todo name: string shouldn't be null or empty",
+            "Invalid todo description length: must be of 10 - 255 characters",
+            "Invalid task name: string shouldn't be null or empty"),
+        exception.getErrorsList());
+  }
+
+  @Test
+  @DisplayName("Task names repeated in the todo are reported once per repetition")
+  void validateTodoDuplicateTasksTest() {
+    TaskModel other = TaskModel.builder().name("task name 1").build();
+    todoModel.setTasks(List.of(taskModel, other, taskModel, taskModel));
+    assertEquals(
+        List.of("Duplicate task name: task name 0", "Duplicate task name: task name 0"),
+        service.check(todoModel).errors());
 
-    verify(properties, times(0)).getErrorInvalidName();
-    assertEquals(0, service.getErrorMessages().size());
+    List<TaskModel> tasks = new ArrayList<>();
+    for (int i = 0; i <= ValidationService.PAIRWISE_DUPLICATE_CHECK; i++) {
+      tasks.add(TaskModel.builder().name("task name %d".formatted(i)).build());
+    }
+    todoModel.setTasks(tasks);
+    assertTrue(service.check(todoModel).isValid());
+    tasks.add(other);
+    assertEquals(List.of("Duplicate task name: task name 1"), service.check(todoModel).errors());
   }
 
   @Test
-  @DisplayName("Returns error messages list")
-  void getErrorMessagesTest() {
-    List<String> errors = service.getErrorMessages();
+  @DisplayName("Concurrent validations only ever see their own errors")
+  void concurrentValidationTest() throws Exception {
+    int threads = 8;
+    int iterations = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  int checked = 0;
+                  for (int i = 0; i < iterations; i++) {
+                    // odd threads send invalid todos with their own duplicate task name
+                    String name = "task of thread %d".formatted(thread);
+                    TaskModel task = TaskModel.builder().name(name).build();
+                    TodoModel todo =
+                        todoModel.toBuilder()
+                            .tasks(thread % 2 == 0 ? List.of(task) : List.of(task, task))
+                            .build();
+                    List<String> errors = service.check(todo).errors();
+                    if (thread % 2 == 0) {
+                      assertEquals(List.of(), errors);
+                    } else {
+                      assertEquals(List.of("Duplicate task name: " + name), errors);
+                    }
+                    checked++;
+                  }
+                  return checked;
+                }));
+      }
+      start.countDown();
 
-    verify(properties, times(0)).getErrorInvalidName();
-    assertEquals(0, errors.size());
+      for (Future<Integer> result : results) {
+        assertEquals(iterations, result.get(60, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
   }
 }